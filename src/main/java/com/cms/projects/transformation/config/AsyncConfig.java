@@ -1,25 +1,31 @@
 package com.cms.projects.transformation.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
-
 @Configuration
 @EnableAsync
 public class AsyncConfig {
     
+    /**
+     * Workers for transformation jobs. Once the core threads are busy jobs wait in the
+     * bounded queue; when the queue is full too, extra threads up to the maximum are
+     * started, and beyond that submissions are rejected.
+     */
     @Bean(name = "transformationExecutor")
-    public Executor transformationExecutor() {
+    public ThreadPoolTaskExecutor transformationExecutor(
+            @Value("${transformation.processing.thread-pool-size:5}") int threadPoolSize,
+            @Value("${transformation.processing.max-thread-pool-size:10}") int maxThreadPoolSize,
+            @Value("${transformation.processing.queue-capacity:100}") int queueCapacity) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(100);
+        executor.setCorePoolSize(threadPoolSize);
+        executor.setMaxPoolSize(Math.max(threadPoolSize, maxThreadPoolSize));
+        executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix("transformation-");
         executor.initialize();
         return executor;
     }
 }
-
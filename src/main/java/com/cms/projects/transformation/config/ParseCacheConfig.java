@@ -0,0 +1,25 @@
+package com.cms.projects.transformation.config;
+
+import com.cms.projects.transformation.framemaker.cache.FrameMakerParseCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class ParseCacheConfig {
+    
+    @Bean
+    public FrameMakerParseCache frameMakerParseCache(
+            @Value("${transformation.parse-cache.enabled:true}") boolean enabled,
+            @Value("${transformation.parse-cache.directory:${user.home}/framemaker/cache/parse}") String directory,
+            @Value("${transformation.parse-cache.max-memory-size:64MB}") DataSize maxMemorySize,
+            @Value("${transformation.parse-cache.max-disk-size:2GB}") DataSize maxDiskSize) {
+        if (!enabled) {
+            return new FrameMakerParseCache(Paths.get(directory), 0, 0);
+        }
+        return new FrameMakerParseCache(Paths.get(directory), maxMemorySize.toBytes(), maxDiskSize.toBytes());
+    }
+}
@@ -0,0 +1,28 @@
+package com.cms.projects.transformation.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Helpers for the fixed-size thread pools whose size is configured after they are created.
+ */
+public final class ThreadPools {
+
+    private ThreadPools() {
+    }
+
+    /**
+     * Sets a fixed-size pool to {@code threads} threads, or one per available processor when
+     * {@code threads} is 0 or less. Core and maximum size are changed in the order that keeps
+     * the core size from ever exceeding the maximum.
+     */
+    public static void resize(ThreadPoolExecutor pool, int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.cms.projects.transformation.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Async request handling. The default timeout is the download timeout, since streamed result
+ * downloads are the async responses that can't set their own; status long-polls and event
+ * streams set shorter ones.
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+    
+    @Value("${transformation.web.async-threads:16}")
+    private int asyncThreads;
+    
+    @Value("${transformation.web.async-queue-capacity:100}")
+    private int asyncQueueCapacity;
+    
+    @Value("${transformation.web.download-timeout:60m}")
+    private Duration downloadTimeout;
+    
+    /**
+     * Threads that write streamed downloads and other async responses, so they don't take
+     * the container's request threads. Once all are busy, responses wait in the bounded
+     * queue; beyond that they are rejected.
+     */
+    @Bean(name = "mvcAsyncExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncThreads);
+        executor.setMaxPoolSize(asyncThreads);
+        executor.setQueueCapacity(asyncQueueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.initialize();
+        return executor;
+    }
+    
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+        configurer.setDefaultTimeout(downloadTimeout.toMillis());
+    }
+}
@@ -0,0 +1,276 @@
+package com.cms.projects.transformation.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a multipart/form-data request body part by part, straight from the request stream.
+ * Nothing is buffered beyond a fixed-size window, so a part's content can be consumed
+ * while it is still arriving; the servlet container never sees the request as multipart
+ * and doesn't spool it. Parts must be read in order; moving to the next part skips
+ * whatever is left of the current one.
+ */
+final class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_LINE = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean finished;
+    private PartInputStream currentPart;
+
+    MultipartStreamReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        // The first boundary has no line break before it; start as if it had one
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * The boundary parameter of a multipart Content-Type, or null if there is none.
+     */
+    static String boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.regionMatches(true, 0, "boundary=", 0, 9)) {
+                String boundary = trimmed.substring(9);
+                if (boundary.length() >= 2 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                return boundary.isEmpty() ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A part of the body. Its content stream ends where the part ends.
+     */
+    static final class Part {
+        private final Map<String, String> headers;
+        private final InputStream content;
+
+        private Part(Map<String, String> headers, InputStream content) {
+            this.headers = headers;
+            this.content = content;
+        }
+
+        /**
+         * A header of the part; names are matched case-insensitively.
+         */
+        String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        String getName() {
+            return dispositionParameter("name");
+        }
+
+        /**
+         * The file name sent with a file field, or null for a plain form field.
+         */
+        String getFileName() {
+            return dispositionParameter("filename");
+        }
+
+        InputStream getContent() {
+            return content;
+        }
+
+        private String dispositionParameter(String parameterName) {
+            String disposition = getHeader("Content-Disposition");
+            if (disposition == null) {
+                return null;
+            }
+            for (String parameter : disposition.split(";")) {
+                String trimmed = parameter.trim();
+                int equals = trimmed.indexOf('=');
+                if (equals > 0 && trimmed.substring(0, equals).trim().equalsIgnoreCase(parameterName)) {
+                    String value = trimmed.substring(equals + 1).trim();
+                    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Moves to the next part and returns it, or null once the closing boundary has been read.
+     */
+    Part nextPart() throws IOException {
+        if (currentPart != null) {
+            currentPart.skipRemaining();
+            currentPart = null;
+        } else if (!finished) {
+            // Skip the preamble up to the first boundary
+            new PartInputStream().skipRemaining();
+        }
+        if (finished) {
+            return null;
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while (!(line = readHeaderLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        currentPart = new PartInputStream();
+        return new Part(headers, currentPart);
+    }
+
+    // Reads what follows a delimiter: "--" closes the body, a line break starts a part
+    private void readAfterDelimiter() throws IOException {
+        int first = readByte();
+        while (first == ' ' || first == '\t') {
+            first = readByte();
+        }
+        int second = readByte();
+        if (first == '-' && second == '-') {
+            finished = true;
+        } else if (first != '\r' || second != '\n') {
+            throw new IOException("Malformed multipart body: unexpected bytes after boundary");
+        }
+    }
+
+    // Browsers send non-ASCII file names as raw UTF-8
+    private String readHeaderLine() throws IOException {
+        byte[] line = new byte[256];
+        int length = 0;
+        while (true) {
+            int b = readByte();
+            if (b == '\r') {
+                if (readByte() != '\n') {
+                    throw new IOException("Malformed multipart body: bare CR in part headers");
+                }
+                return new String(line, 0, length, StandardCharsets.UTF_8);
+            }
+            if (length == line.length) {
+                if (length >= MAX_HEADER_LINE) {
+                    throw new IOException("Malformed multipart body: part header too long");
+                }
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = (byte) b;
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (pos == limit && !fill()) {
+            throw new IOException("Malformed multipart body: unexpected end of stream");
+        }
+        return buffer[pos++] & 0xff;
+    }
+
+    // Moves unread bytes to the front and reads more; false if the stream has ended and nothing is left
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        while (!eof && limit < buffer.length) {
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                eof = true;
+            } else if (n > 0) {
+                limit += n;
+                break;
+            }
+        }
+        return limit > pos;
+    }
+
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        outer:
+        for (int i = pos; i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Content of one part: the bytes up to the next delimiter.
+     */
+    private final class PartInputStream extends InputStream {
+
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (ended) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int delimiterAt = indexOfDelimiter();
+                if (delimiterAt >= 0) {
+                    int available = delimiterAt - pos;
+                    if (available == 0) {
+                        pos += delimiter.length;
+                        ended = true;
+                        readAfterDelimiter();
+                        return -1;
+                    }
+                    return copy(b, off, Math.min(len, available));
+                }
+                // Hold back a tail that could be the start of the delimiter
+                int safe = limit - pos - (delimiter.length - 1);
+                if (safe > 0) {
+                    return copy(b, off, Math.min(len, safe));
+                }
+                if (eof) {
+                    throw new IOException("Malformed multipart body: unexpected end of stream");
+                }
+                fill();
+            }
+        }
+
+        private int copy(byte[] b, int off, int n) {
+            System.arraycopy(buffer, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        void skipRemaining() throws IOException {
+            byte[] discard = new byte[8192];
+            while (read(discard, 0, discard.length) >= 0) {
+                // discard
+            }
+        }
+    }
+}
@@ -2,39 +2,71 @@ package com.cms.projects.transformation.controller;
 
 import com.cms.projects.transformation.dto.FolderTransformationResponse;
 import com.cms.projects.transformation.dto.FolderValidationResult;
+import com.cms.projects.transformation.dto.JobQueueStats;
+import com.cms.projects.transformation.dto.ManifestEntry;
+import com.cms.projects.transformation.dto.ParseCacheStats;
+import com.cms.projects.transformation.dto.PipelineStats;
+import com.cms.projects.transformation.dto.ResultArchive;
+import com.cms.projects.transformation.dto.ResultManifest;
+import com.cms.projects.transformation.dto.StoredUpload;
 import com.cms.projects.transformation.dto.TransformationResponse;
 import com.cms.projects.transformation.entity.TransformationJob;
+import com.cms.projects.transformation.exception.InvalidZipEntryException;
+import com.cms.projects.transformation.exception.JobQueueFullException;
+import com.cms.projects.transformation.service.ArchiveFormat;
 import com.cms.projects.transformation.service.FileStorageService;
 import com.cms.projects.transformation.service.FolderValidationService;
 import com.cms.projects.transformation.service.FolderZipService;
+import com.cms.projects.transformation.service.JobProgress;
+import com.cms.projects.transformation.service.JobProgressTracker;
+import com.cms.projects.transformation.service.ResultArchiveService;
+import com.cms.projects.transformation.service.ResultManifestService;
 import com.cms.projects.transformation.service.TransformationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
 
 @RestController
 @RequestMapping("/api/transform")
@@ -43,21 +75,53 @@ public class TransformationController {
     
     private static final Logger logger = LoggerFactory.getLogger(TransformationController.class);
     
+    // Largest ZIP accepted for a folder transformation
+    private static final long MAX_FOLDER_UPLOAD_SIZE = 500L * 1024 * 1024;
+    
+    private static final String INVALID_COMPRESSION_LEVEL = "Compression level must be between -1 and 9 (-1 = default)";
+    
+    // Longest a status long-poll is held open
+    private static final int MAX_STATUS_WAIT_SECONDS = 60;
+    
+    // Longest a status event stream is held open
+    private static final Duration STATUS_STREAM_TIMEOUT = Duration.ofMinutes(30);
+    
+    // Longest a progressive download waits for output before checking on its client
+    private static final Duration PROGRESS_WAIT = Duration.ofSeconds(5);
+    
+    // Request attributes of Tomcat's sendfile support
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
     private final TransformationService transformationService;
     private final FileStorageService fileStorageService;
     private final FolderValidationService folderValidationService;
     private final FolderZipService folderZipService;
+    private final ResultArchiveService resultArchiveService;
+    private final ResultManifestService resultManifestService;
+    private final JobProgressTracker jobProgressTracker;
+    private final Duration downloadTimeout;
     
     @Autowired
     public TransformationController(
             TransformationService transformationService,
             FileStorageService fileStorageService,
             FolderValidationService folderValidationService,
-            FolderZipService folderZipService) {
+            FolderZipService folderZipService,
+            ResultArchiveService resultArchiveService,
+            ResultManifestService resultManifestService,
+            JobProgressTracker jobProgressTracker,
+            @Value("${transformation.web.download-timeout:60m}") Duration downloadTimeout) {
         this.transformationService = transformationService;
         this.fileStorageService = fileStorageService;
         this.folderValidationService = folderValidationService;
         this.folderZipService = folderZipService;
+        this.resultArchiveService = resultArchiveService;
+        this.resultManifestService = resultManifestService;
+        this.jobProgressTracker = jobProgressTracker;
+        this.downloadTimeout = downloadTimeout;
     }
     
     @PostMapping("/framemaker-to-dita")
@@ -86,7 +150,13 @@ public class TransformationController {
             String filePath = fileStorageService.storeFile(file, jobId);
             
             // Submit transformation
-            TransformationResponse response = transformationService.submitTransformation(filePath, fileName);
+            TransformationResponse response;
+            try {
+                response = transformationService.submitTransformation(filePath, fileName);
+            } catch (JobQueueFullException e) {
+                fileStorageService.deleteFile(filePath);
+                return buildQueueFullResponse(e);
+            }
             return ResponseEntity.ok(response);
             
         } catch (IOException e) {
@@ -104,7 +174,9 @@ public class TransformationController {
     public ResponseEntity<?> transformFolder(
             @RequestParam("zipFile") @NotNull(message = "ZIP file parameter is required") MultipartFile zipFile) {
         
-        Path extractedDir = null;
+        String zipFilePath = null;
+        // Set once the job has taken over the stored ZIP
+        boolean handedOff = false;
         
         try {
             // Validate ZIP file
@@ -132,39 +204,119 @@ public class TransformationController {
             
             // Store ZIP file
             String jobId = UUID.randomUUID().toString();
-            String zipFilePath = fileStorageService.storeFile(zipFile, jobId);
+            zipFilePath = fileStorageService.storeFile(zipFile, jobId);
             
-            // Extract ZIP file for validation
-            extractedDir = fileStorageService.extractZipFile(Paths.get(zipFilePath), jobId);
-            
-            // Perform folder validation
-            FolderValidationResult validationResult = folderValidationService.validateFolder(extractedDir);
+            // Validate from the ZIP's central directory; a rejected upload is never extracted
+            FolderValidationResult validationResult = folderValidationService.validateZip(Paths.get(zipFilePath));
             
             // If validation fails, return error immediately
             if (!validationResult.isValid()) {
                 return buildErrorResponse(HttpStatus.BAD_REQUEST, validationResult.getMessage());
             }
             
-            // Validation passed - submit folder transformation
-            FolderTransformationResponse response = transformationService.submitFolderTransformation(
-                zipFilePath, fileName);
+            // Validation passed - submit folder transformation; the job extracts the ZIP
+            // and starts transforming files while the rest is still being extracted
+            FolderTransformationResponse response;
+            try {
+                response = submitValidatedFolder(jobId, zipFilePath, fileName, null, validationResult);
+                handedOff = true;
+            } catch (JobQueueFullException e) {
+                return buildQueueFullResponse(e);
+            }
+            
+            return ResponseEntity.ok(response);
             
-            // Add validation information to response
-            response.setValidationPassed(true);
-            response.setValidationMessage(validationResult.getMessage());
-            response.setFileType(validationResult.getFileType() != null ? 
-                validationResult.getFileType().name() : null);
-            response.setValidatedFileCount(validationResult.getFileCount());
-            response.setValidatedFileNames(validationResult.getFileNames());
+        } catch (InvalidZipEntryException | ZipException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "Invalid ZIP file: " + e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error processing ZIP file upload: {}", e.getMessage(), e);
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
+                "Error processing ZIP file: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Unexpected error: {}", e.getMessage(), e);
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
+                "An unexpected error occurred");
+        } finally {
+            // Until the job has it, the stored ZIP is ours to remove
+            if (!handedOff && zipFilePath != null) {
+                FileUtils.deleteQuietly(new File(zipFilePath));
+            }
+        }
+    }
+    
+    /**
+     * POST /api/transform/folder-to-dita/stream
+     * Same as /folder-to-dita, but the multipart body is read straight from the request:
+     * the ZIP is hashed, written once and extracted while it arrives, and the container
+     * never spools its own copy. The file must be sent in the "zipFile" field.
+     */
+    @PostMapping(value = "/folder-to-dita/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> transformFolderStream(HttpServletRequest request) {
+        
+        StoredUpload upload = null;
+        // Set once the job has taken over the extracted folder
+        boolean handedOff = false;
+        
+        try {
+            String boundary = MultipartStreamReader.boundary(request.getContentType());
+            if (boundary == null) {
+                return buildErrorResponse(HttpStatus.BAD_REQUEST, "Request must be multipart/form-data");
+            }
+            
+            // Find the ZIP file part; other form fields are skipped
+            MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary);
+            MultipartStreamReader.Part part;
+            while ((part = reader.nextPart()) != null && !"zipFile".equals(part.getName())) {
+                // skip
+            }
+            if (part == null) {
+                return buildErrorResponse(HttpStatus.BAD_REQUEST, "ZIP file parameter is required");
+            }
+            
+            String fileName = part.getFileName();
+            if (fileName == null || fileName.isEmpty()) {
+                return buildErrorResponse(HttpStatus.BAD_REQUEST, "File name cannot be null");
+            }
+            
+            if (!fileName.toLowerCase().endsWith(".zip")) {
+                return buildErrorResponse(HttpStatus.BAD_REQUEST, 
+                    "Invalid file format. Only .zip files are supported");
+            }
+            
+            // Store, hash and extract in one pass over the request body
+            String jobId = UUID.randomUUID().toString();
+            upload = fileStorageService.storeStream(part.getContent(), fileName, jobId, MAX_FOLDER_UPLOAD_SIZE, true);
+            if (upload.getSize() == 0) {
+                return buildErrorResponse(HttpStatus.BAD_REQUEST, "ZIP file cannot be empty");
+            }
+            
+            FolderValidationResult validationResult =
+                folderValidationService.validateZip(Paths.get(upload.getFilePath()));
+            if (!validationResult.isValid()) {
+                return buildErrorResponse(HttpStatus.BAD_REQUEST, validationResult.getMessage());
+            }
+            validationResult = validationResult.resolve(upload.getExtractedDir());
             
-            logger.info("Folder validation passed for job {}: {} {} files", 
-                       jobId, validationResult.getFileCount(),
-                       validationResult.getFileType() == FolderValidationResult.FileType.FM ? ".fm" : ".mif");
+            FolderTransformationResponse response;
+            try {
+                response = submitValidatedFolder(jobId, upload.getFilePath(), fileName,
+                    upload.getExtractedDir(), validationResult);
+                handedOff = true;
+            } catch (JobQueueFullException e) {
+                return buildQueueFullResponse(e);
+            }
+            response.setUploadSha256(upload.getSha256());
             
             return ResponseEntity.ok(response);
             
+        } catch (MaxUploadSizeExceededException e) {
+            return buildErrorResponse(HttpStatus.PAYLOAD_TOO_LARGE, 
+                "ZIP file size exceeds maximum allowed limit of 500MB");
+        } catch (InvalidZipEntryException | ZipException e) {
+            // The archive is at fault; storeStream has already removed what it wrote
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "Invalid ZIP file: " + e.getMessage());
         } catch (IOException e) {
-            logger.error("Error processing ZIP file upload: {}", e.getMessage(), e);
+            logger.error("Error processing streamed ZIP upload: {}", e.getMessage(), e);
             return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
                 "Error processing ZIP file: " + e.getMessage());
         } catch (Exception e) {
@@ -172,11 +324,40 @@ public class TransformationController {
             return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
                 "An unexpected error occurred");
         } finally {
-            // Note: extractedDir cleanup is handled in processFolderTransformation
-            // We don't clean it up here as it's needed for transformation
+            // Until the job has them, the stored ZIP and the extracted folder are ours to remove
+            if (!handedOff && upload != null) {
+                FileUtils.deleteQuietly(new File(upload.getFilePath()));
+                FileUtils.deleteQuietly(upload.getExtractedDir().toFile());
+            }
         }
     }
     
+    /**
+     * Submits a folder job for a validated upload and adds the validation details to the response.
+     * With a null {@code extractedDir} the job extracts the ZIP itself; otherwise, once this
+     * returns, the job owns {@code extractedDir}.
+     */
+    private FolderTransformationResponse submitValidatedFolder(String jobId, String zipFilePath, String fileName,
+                                                               Path extractedDir, FolderValidationResult validationResult) {
+        FolderTransformationResponse response = extractedDir == null
+            ? transformationService.submitFolderTransformation(zipFilePath, fileName, validationResult)
+            : transformationService.submitFolderTransformation(zipFilePath, fileName, extractedDir, validationResult);
+        
+        // Add validation information to response
+        response.setValidationPassed(true);
+        response.setValidationMessage(validationResult.getMessage());
+        response.setFileType(validationResult.getFileType() != null ? 
+            validationResult.getFileType().name() : null);
+        response.setValidatedFileCount(validationResult.getFileCount());
+        response.setValidatedFileNames(validationResult.getFileNames());
+        
+        logger.info("Folder validation passed for job {}: {} {} files", 
+                   jobId, validationResult.getFileCount(),
+                   validationResult.getFileType() == FolderValidationResult.FileType.FM ? ".fm" : ".mif");
+        
+        return response;
+    }
+    
     @GetMapping("/{jobId}/status")
     public ResponseEntity<String> getStatus(
             @PathVariable @NotBlank(message = "Job ID cannot be blank") String jobId) {
@@ -194,36 +375,354 @@ public class TransformationController {
         }
     }
     
+    /**
+     * GET /api/transform/{jobId}/status/poll
+     * Long-poll for a status change: answers as soon as the job's status differs from
+     * {@code since}, or with the unchanged status once {@code timeout} seconds (1-60, default 30)
+     * have passed. Changes of a running job are pushed from the worker as they happen, so
+     * waiting costs no database reads; a finished job is answered right away.
+     */
+    @GetMapping("/{jobId}/status/poll")
+    public DeferredResult<ResponseEntity<String>> pollStatus(
+            @PathVariable String jobId,
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "timeout", defaultValue = "30") int timeoutSeconds) {
+        // Rejected with 400 by the exception handler
+        TransformationJob.TransformationStatus sinceStatus =
+            since != null ? TransformationJob.TransformationStatus.valueOf(since) : null;
+        if (timeoutSeconds < 1 || timeoutSeconds > MAX_STATUS_WAIT_SECONDS) {
+            throw new IllegalArgumentException("timeout must be between 1 and " + MAX_STATUS_WAIT_SECONDS + " seconds");
+        }
+        
+        Optional<JobProgress> progress = jobProgressTracker.find(jobId);
+        if (progress.isEmpty()) {
+            DeferredResult<ResponseEntity<String>> result = new DeferredResult<>(timeoutSeconds * 1000L);
+            result.setResult(statusResponse(transformationService.getJobStatus(jobId)));
+            return result;
+        }
+        
+        JobProgress jobProgress = progress.get();
+        DeferredResult<ResponseEntity<String>> result = new DeferredResult<>(
+            timeoutSeconds * 1000L, () -> statusResponse(jobProgress.getStatus()));
+        Runnable stopFollowing = jobProgress.followStatus(status -> {
+            if (status != sinceStatus) {
+                result.setResult(statusResponse(status));
+            }
+        });
+        result.onCompletion(stopFollowing);
+        return result;
+    }
+    
+    /**
+     * GET /api/transform/{jobId}/status/stream
+     * Server-sent events with the job's status: one "status" event now and one on every
+     * change, pushed from the worker as it happens. The stream ends after the job completes
+     * or fails, or after 30 minutes; for a job that has already finished it carries just its
+     * final status.
+     */
+    @GetMapping(value = "/{jobId}/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStatus(@PathVariable String jobId) {
+        Optional<JobProgress> progress = jobProgressTracker.find(jobId);
+        TransformationJob.TransformationStatus finishedStatus = null;
+        if (progress.isEmpty()) {
+            finishedStatus = transformationService.getJobStatus(jobId);
+            if (finishedStatus == null) {
+                return ResponseEntity.notFound().build();
+            }
+        }
+        
+        SseEmitter emitter = new SseEmitter(STATUS_STREAM_TIMEOUT.toMillis());
+        Consumer<TransformationJob.TransformationStatus> sendStatus = status -> {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(status.name()));
+                if (isFinished(status)) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client has gone; the container completes the emitter
+                logger.debug("Status stream of job {} closed: {}", jobId, e.getMessage());
+            }
+        };
+        if (progress.isPresent()) {
+            Runnable stopFollowing = progress.get().followStatus(sendStatus);
+            emitter.onCompletion(stopFollowing);
+            emitter.onTimeout(() -> {
+                // Ends the stream normally; an EventSource reconnects and gets the status again
+                stopFollowing.run();
+                emitter.complete();
+            });
+            emitter.onError(e -> stopFollowing.run());
+        } else {
+            // Not running here, so no further change will be pushed
+            sendStatus.accept(finishedStatus);
+            emitter.complete();
+        }
+        return ResponseEntity.ok().body(emitter);
+    }
+    
+    private static ResponseEntity<String> statusResponse(TransformationJob.TransformationStatus status) {
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(status.name());
+    }
+    
+    private static boolean isFinished(TransformationJob.TransformationStatus status) {
+        return status == TransformationJob.TransformationStatus.COMPLETED
+            || status == TransformationJob.TransformationStatus.FAILED;
+    }
+    
+    /**
+     * GET /api/transform/{jobId}/result
+     * The job's output as a ZIP. The archive is built once, when the job completes, and
+     * rebuilt only if the output folder has changed since; its ETag answers If-None-Match
+     * with 304, and Range requests get partial content so large downloads can be resumed.
+     * An optional compressionLevel (0-9, or -1 for the deflater's default) selects another
+     * deflate level than the configured one.
+     * This is format=zip, the default; tar and tar.gz are handled by {@link #streamResult}.
+     */
     @GetMapping("/{jobId}/result")
-    public ResponseEntity<Resource> getResult(@PathVariable String jobId) {
-        TransformationResponse jobResult = transformationService.getJobResult(jobId);
-        if (jobResult == null || jobResult.getStatus() != TransformationJob.TransformationStatus.COMPLETED) {
+    public ResponseEntity<?> getResult(
+            @PathVariable String jobId,
+            @RequestParam(value = "compressionLevel", required = false) Integer compressionLevel) {
+        if (!isValidCompressionLevel(compressionLevel)) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, INVALID_COMPRESSION_LEVEL);
+        }
+        
+        Path outputPath = completedOutputPath(jobId);
+        if (outputPath == null) {
             return ResponseEntity.notFound().build();
         }
         
         try {
-            Path outputPath = Paths.get(jobResult.getOutputPath());
-            if (!Files.exists(outputPath)) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            // Create ZIP file
-            File zipFile = createZipFile(outputPath, jobId);
+            ResultArchive archive = resultArchiveService.getArchive(outputPath,
+                compressionLevel != null ? compressionLevel : folderZipService.getDefaultCompressionLevel());
             
-            Resource resource = new FileSystemResource(zipFile);
+            // Conditional and Range requests are answered from the ETag and the file itself
             return ResponseEntity.ok()
+                    .eTag(archive.getEtag())
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                     .header(HttpHeaders.CONTENT_DISPOSITION, 
                            "attachment; filename=\"transformation_" + jobId + ".zip\"")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
-                    .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(zipFile.length()))
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(resource);
+                    .body(new FileSystemResource(archive.getPath()));
                     
         } catch (IOException e) {
+            logger.error("Error preparing result archive for job {}: {}", jobId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * GET /api/transform/{jobId}/result?format=tar or format=tar.gz
+     * The job's output as a tar or tar.gz, written to the response in a single pass while the
+     * output folder is walked; nothing is staged. These come out byte for byte the same while
+     * the output is unchanged, so they carry a strong ETag and answer If-None-Match with 304.
+     */
+    @GetMapping(value = "/{jobId}/result", params = {"format", "format!=zip"})
+    public ResponseEntity<StreamingResponseBody> streamResult(
+            @PathVariable String jobId,
+            @RequestParam("format") String format,
+            @RequestParam(value = "compressionLevel", required = false) Integer compressionLevel,
+            WebRequest webRequest) throws IOException {
+        // Rejected with 400 by the exception handler
+        ArchiveFormat archiveFormat = ArchiveFormat.fromParameter(format);
+        if (!isValidCompressionLevel(compressionLevel)) {
+            throw new IllegalArgumentException(INVALID_COMPRESSION_LEVEL);
+        }
+        
+        Path outputPath = completedOutputPath(jobId);
+        if (outputPath == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        int level = compressionLevel != null ? compressionLevel : folderZipService.getDefaultCompressionLevel();
+        String etag = resultArchiveService.getStreamedEtag(outputPath, archiveFormat, level);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        
+        boolean gzip = archiveFormat == ArchiveFormat.TAR_GZ;
+        StreamingResponseBody body = out -> {
+            try {
+                folderZipService.writeTar(outputPath, out, gzip, level);
+            } catch (IOException e) {
+                // Headers are already sent; the client sees the download end early
+                logger.error("Error streaming result for job {}: {}", jobId, e.getMessage(), e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.CONTENT_DISPOSITION, 
+                       "attachment; filename=\"transformation_" + jobId + "." + archiveFormat.getExtension() + "\"")
+                .contentType(MediaType.parseMediaType(archiveFormat.getMediaType()))
+                .body(body);
+    }
+    
+    /**
+     * GET /api/transform/{jobId}/result/progressive?format=tar or format=tar.gz
+     * The job's output as a tar that can be opened while the job is still pending or running.
+     * Each file's topics, chapter maps and TOC are appended as soon as that file has been
+     * transformed, the rest of the output when the job completes, and the stream ends with
+     * the job. If the job fails, the archive is cut short without its end-of-archive records.
+     * A job that has already completed is sent whole.
+     */
+    @GetMapping("/{jobId}/result/progressive")
+    public ResponseEntity<StreamingResponseBody> streamProgressiveResult(
+            @PathVariable String jobId,
+            @RequestParam(value = "format", defaultValue = "tar") String format,
+            @RequestParam(value = "compressionLevel", required = false) Integer compressionLevel) {
+        // Rejected with 400 by the exception handler
+        ArchiveFormat archiveFormat = ArchiveFormat.fromParameter(format);
+        if (archiveFormat == ArchiveFormat.ZIP) {
+            throw new IllegalArgumentException("Progressive downloads are available as tar or tar.gz");
+        }
+        if (!isValidCompressionLevel(compressionLevel)) {
+            throw new IllegalArgumentException(INVALID_COMPRESSION_LEVEL);
+        }
+        int level = compressionLevel != null ? compressionLevel : folderZipService.getDefaultCompressionLevel();
+        boolean gzip = archiveFormat == ArchiveFormat.TAR_GZ;
+        
+        Optional<JobProgress> progress = jobProgressTracker.find(jobId);
+        StreamingResponseBody body;
+        if (progress.isPresent()) {
+            Path outputPath = fileStorageService.getOutputPath(jobId);
+            JobProgress jobProgress = progress.get();
+            body = out -> {
+                int[] sent = {0};
+                long deadline = System.nanoTime() + downloadTimeout.toNanos();
+                try {
+                    folderZipService.writeTar(outputPath, out, gzip, level, () -> {
+                        while (true) {
+                            boolean finished = jobProgress.isFinished();
+                            List<Path> files = jobProgress.awaitReadyFiles(sent[0], PROGRESS_WAIT);
+                            if (!files.isEmpty()) {
+                                sent[0] += files.size();
+                                return files;
+                            }
+                            if (finished) {
+                                if (!jobProgress.isSucceeded()) {
+                                    throw new IOException("Job failed while its result was being downloaded");
+                                }
+                                return files;
+                            }
+                            // Nothing new yet; stop waiting for a client that has gone or a download
+                            // that has outlived its async timeout
+                            out.flush();
+                            if (System.nanoTime() - deadline >= 0) {
+                                throw new IOException("Download timed out waiting for the job's output");
+                            }
+                        }
+                    });
+                } catch (IOException e) {
+                    logger.warn("Progressive download of job {} ended early: {}", jobId, e.getMessage());
+                    throw e;
+                }
+            };
+        } else {
+            // Finished; only a completed job has a result to send
+            Path outputPath = completedOutputPath(jobId);
+            if (outputPath == null) {
+                return ResponseEntity.notFound().build();
+            }
+            body = out -> folderZipService.writeTar(outputPath, out, gzip, level);
+        }
+        
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, 
+                       "attachment; filename=\"transformation_" + jobId + "." + archiveFormat.getExtension() + "\"")
+                .contentType(MediaType.parseMediaType(archiveFormat.getMediaType()))
+                .body(body);
+    }
+    
+    /**
+     * GET /api/transform/{jobId}/manifest
+     * Path, size and SHA-256 of every file of a completed job's output, so a client can fetch
+     * just the files that changed through /files. The ETag is the output's version, so an
+     * unchanged output answers If-None-Match with 304.
+     */
+    @GetMapping("/{jobId}/manifest")
+    public ResponseEntity<ResultManifest> getManifest(@PathVariable String jobId) {
+        Path outputPath = completedOutputPath(jobId);
+        if (outputPath == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        try {
+            ResultManifest manifest = resultManifestService.getManifest(outputPath);
+            return ResponseEntity.ok()
+                    .eTag("\"" + manifest.getVersion() + "\"")
+                    .body(manifest);
+        } catch (IOException e) {
+            logger.error("Error building manifest for job {}: {}", jobId, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
+    /**
+     * GET /api/transform/{jobId}/files/{path}
+     * One file of a completed job's output, e.g. a single topic after a small edit. Its ETag is
+     * the SHA-256 from the manifest. The content is handed to the container's sendfile when it
+     * supports it and otherwise copied with FileChannel.transferTo, never through a heap buffer.
+     */
+    @GetMapping("/{jobId}/files/{*path}")
+    public void getOutputFile(@PathVariable String jobId, @PathVariable String path,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path outputPath = completedOutputPath(jobId);
+        // The captured path starts with the separator
+        String relativePath = path.startsWith("/") ? path.substring(1) : path;
+        Optional<ManifestEntry> entry = outputPath == null
+            ? Optional.empty()
+            : resultManifestService.findEntry(outputPath, relativePath);
+        if (entry.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        
+        // Sets the ETag header, and answers 304 when the client's copy is current
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + entry.get().getSha256() + "\"")) {
+            return;
+        }
+        
+        Path file = outputPath.resolve(entry.get().getPath());
+        long size = entry.get().getSize();
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(size);
+        
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the file to the socket itself once this request returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                long transferred = channel.transferTo(position, size - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("File shrank while being sent: " + file);
+                }
+                position += transferred;
+            }
+        }
+    }
+    
+    // Output folder of a completed job, or null if the job isn't completed or its output is gone
+    private Path completedOutputPath(String jobId) {
+        TransformationResponse jobResult = transformationService.getJobResult(jobId);
+        if (jobResult == null || jobResult.getStatus() != TransformationJob.TransformationStatus.COMPLETED) {
+            return null;
+        }
+        Path outputPath = Paths.get(jobResult.getOutputPath());
+        return Files.isDirectory(outputPath) ? outputPath : null;
+    }
+    
     @GetMapping("/{jobId}/details")
     public ResponseEntity<TransformationResponse> getJobDetails(
             @PathVariable @NotBlank(message = "Job ID cannot be blank") String jobId) {
@@ -239,6 +738,37 @@ public class TransformationController {
         }
     }
     
+    /**
+     * GET /api/transform/parse-cache/stats
+     * Hit/miss counters and current size of the parse cache
+     */
+    @GetMapping("/parse-cache/stats")
+    public ResponseEntity<ParseCacheStats> getParseCacheStats() {
+        ParseCacheStats stats = transformationService.getParseCacheStats();
+        if (stats == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * GET /api/transform/pipeline/stats
+     * Queue depths of the parse, map and write stages of running transformations
+     */
+    @GetMapping("/pipeline/stats")
+    public ResponseEntity<PipelineStats> getPipelineStats() {
+        return ResponseEntity.ok(transformationService.getPipelineStats());
+    }
+    
+    /**
+     * GET /api/transform/queue/stats
+     * Queued jobs and busy workers of the transformation executor
+     */
+    @GetMapping("/queue/stats")
+    public ResponseEntity<JobQueueStats> getJobQueueStats() {
+        return ResponseEntity.ok(transformationService.getJobQueueStats());
+    }
+    
     /**
      * POST /api/transform/validate-folder
      * Validates a folder structure according to business rules:
@@ -251,7 +781,7 @@ public class TransformationController {
             @RequestParam("zipFile") @NotNull(message = "ZIP file parameter is required") 
             MultipartFile zipFile) {
         
-        Path extractedDir = null;
+        String zipFilePath = null;
         
         try {
             // Validate ZIP file
@@ -277,13 +807,12 @@ public class TransformationController {
                     "ZIP file size exceeds maximum allowed limit of 500MB");
             }
             
-            // Store and extract ZIP
+            // Store the ZIP; its central directory is all that is read, nothing is extracted
             String jobId = UUID.randomUUID().toString();
-            String zipFilePath = fileStorageService.storeFile(zipFile, jobId);
-            extractedDir = fileStorageService.extractZipFile(Paths.get(zipFilePath), jobId);
+            zipFilePath = fileStorageService.storeFile(zipFile, jobId);
             
             // Perform validation
-            FolderValidationResult validationResult = folderValidationService.validateFolder(extractedDir);
+            FolderValidationResult validationResult = folderValidationService.validateZip(Paths.get(zipFilePath));
             
             // Build response
             Map<String, Object> response = new HashMap<>();
@@ -301,6 +830,8 @@ public class TransformationController {
             
             return ResponseEntity.status(status).body(response);
             
+        } catch (InvalidZipEntryException | ZipException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "Invalid ZIP file: " + e.getMessage());
         } catch (IOException e) {
             logger.error("Error validating folder: {}", e.getMessage(), e);
             return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
@@ -310,8 +841,10 @@ public class TransformationController {
             return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
                 "An unexpected error occurred");
         } finally {
-            // Cleanup extracted directory
-            cleanupExtractedDirectory(extractedDir);
+            // The upload was only needed for validation
+            if (zipFilePath != null) {
+                FileUtils.deleteQuietly(new File(zipFilePath));
+            }
         }
     }
     
@@ -322,8 +855,10 @@ public class TransformationController {
     @PostMapping("/validate-and-zip")
     public ResponseEntity<?> validateAndZipFolder(
             @RequestParam("zipFile") @NotNull(message = "ZIP file parameter is required") 
-            MultipartFile zipFile) {
+            MultipartFile zipFile,
+            @RequestParam(value = "compressionLevel", required = false) Integer compressionLevel) {
         
+        String zipFilePath = null;
         Path extractedDir = null;
         Path outputZipPath = null;
         
@@ -351,24 +886,28 @@ public class TransformationController {
                     "ZIP file size exceeds maximum allowed limit of 500MB");
             }
             
-            // Store and extract ZIP
-            String jobId = UUID.randomUUID().toString();
-            String zipFilePath = fileStorageService.storeFile(zipFile, jobId);
-            extractedDir = fileStorageService.extractZipFile(Paths.get(zipFilePath), jobId);
+            if (!isValidCompressionLevel(compressionLevel)) {
+                return buildErrorResponse(HttpStatus.BAD_REQUEST, INVALID_COMPRESSION_LEVEL);
+            }
             
-            // Perform validation
-            FolderValidationResult validationResult = folderValidationService.validateFolder(extractedDir);
+            // Store the ZIP and validate it before extracting anything
+            String jobId = UUID.randomUUID().toString();
+            zipFilePath = fileStorageService.storeFile(zipFile, jobId);
+            FolderValidationResult validationResult = folderValidationService.validateZip(Paths.get(zipFilePath));
             
             if (!validationResult.isValid()) {
                 return buildErrorResponse(HttpStatus.BAD_REQUEST, validationResult.getMessage());
             }
             
+            extractedDir = fileStorageService.extractZipFile(Paths.get(zipFilePath), jobId);
+            
             // Create output ZIP
             Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
             String outputZipName = "validated_" + jobId + ".zip";
             outputZipPath = tempDir.resolve(outputZipName);
             
-            folderZipService.zipFolder(extractedDir, outputZipPath);
+            folderZipService.zipFolder(extractedDir, outputZipPath,
+                compressionLevel != null ? compressionLevel : folderZipService.getDefaultCompressionLevel());
             
             // Build success response with metadata
             Map<String, Object> responseMetadata = new HashMap<>();
@@ -394,6 +933,8 @@ public class TransformationController {
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
                     .body(resource);
         
+        } catch (InvalidZipEntryException | ZipException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "Invalid ZIP file: " + e.getMessage());
         } catch (IOException e) {
             logger.error("Error validating and zipping folder: {}", e.getMessage(), e);
             return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
@@ -403,7 +944,10 @@ public class TransformationController {
             return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
                 "An unexpected error occurred");
         } finally {
-            // Cleanup extracted directory
+            // Cleanup the upload and extracted directory; only the output ZIP is sent back
+            if (zipFilePath != null) {
+                FileUtils.deleteQuietly(new File(zipFilePath));
+            }
             cleanupExtractedDirectory(extractedDir);
         }
     }
@@ -429,6 +973,12 @@ public class TransformationController {
         }
     }
     
+    // An omitted level means the configured one
+    private static boolean isValidCompressionLevel(Integer compressionLevel) {
+        return compressionLevel == null
+            || (compressionLevel >= Deflater.DEFAULT_COMPRESSION && compressionLevel <= Deflater.BEST_COMPRESSION);
+    }
+    
     private ResponseEntity<Map<String, Object>> buildErrorResponse(HttpStatus status, String message) {
         Map<String, Object> errorResponse = new HashMap<>();
         errorResponse.put("timestamp", java.time.LocalDateTime.now());
@@ -438,27 +988,15 @@ public class TransformationController {
         return ResponseEntity.status(status).body(errorResponse);
     }
     
-    private File createZipFile(Path sourceDir, String jobId) throws IOException {
-        Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
-        File zipFile = tempDir.resolve("transformation_" + jobId + ".zip").toFile();
-        
-        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFile))) {
-            Files.walk(sourceDir)
-                .filter(path -> !Files.isDirectory(path))
-                .forEach(path -> {
-                    try {
-                        ZipEntry zipEntry = new ZipEntry(
-                            sourceDir.relativize(path).toString().replace('\\', '/')
-                        );
-                        zos.putNextEntry(zipEntry);
-                        Files.copy(path, zos);
-                        zos.closeEntry();
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                });
-        }
-        
-        return zipFile;
+    private ResponseEntity<Map<String, Object>> buildQueueFullResponse(JobQueueFullException e) {
+        logger.warn("Rejected transformation request: {}", e.getMessage());
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("timestamp", java.time.LocalDateTime.now());
+        errorResponse.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        errorResponse.put("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        errorResponse.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorResponse);
     }
 }
\ No newline at end of file
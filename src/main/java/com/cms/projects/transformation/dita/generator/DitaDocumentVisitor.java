@@ -0,0 +1,140 @@
+package com.cms.projects.transformation.dita.generator;
+
+import com.cms.projects.transformation.dita.model.DitaMap;
+import com.cms.projects.transformation.dita.model.DitaStructure;
+import com.cms.projects.transformation.dita.model.DitaTopic;
+import com.cms.projects.transformation.dita.model.TocEntry;
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds topics, chapter maps, the main map and the TOC in a single walk over a document.
+ * Sections are numbered here and nowhere else; each section's topic, its chapter map
+ * reference and its TOC entry are created together from the same index.
+ *
+ * <p>The visitor can be driven with {@link #visit(FrameMakerDocument)} or call by call
+ * from parser events, in which case a section's paragraphs are only needed while
+ * {@link #visitSection} runs.
+ *
+ * <p>File names and hrefs come from the visitor's {@link DitaOutputNamespace}.
+ */
+public class DitaDocumentVisitor {
+
+    private final DitaTopicGenerator topicGenerator;
+    private final DitaMapGenerator mapGenerator;
+    private final TableOfContentsGenerator tocGenerator;
+    private final DitaOutputNamespace namespace;
+
+    private final DitaStructure structure;
+    private final List<DitaMap.DitaMapReference> chapterReferences;
+    private final List<TocEntry> tableEntries;
+    private String documentTitle;
+    private int chapterIndex;
+    private int topicIndex;
+
+    private List<DitaMap.DitaMapReference> chapterTopicReferences;
+    private List<TocEntry> chapterTopicEntries;
+
+    /**
+     * @param topicGenerator generator for topic content, or null when only maps and the TOC are wanted
+     */
+    public DitaDocumentVisitor(DitaTopicGenerator topicGenerator, DitaMapGenerator mapGenerator,
+                               TableOfContentsGenerator tocGenerator) {
+        this(topicGenerator, mapGenerator, tocGenerator, DitaOutputNamespace.DEFAULT);
+    }
+
+    public DitaDocumentVisitor(DitaTopicGenerator topicGenerator, DitaMapGenerator mapGenerator,
+                               TableOfContentsGenerator tocGenerator, DitaOutputNamespace namespace) {
+        this.topicGenerator = topicGenerator;
+        this.mapGenerator = mapGenerator;
+        this.tocGenerator = tocGenerator;
+        this.namespace = namespace;
+        this.structure = new DitaStructure();
+        this.chapterReferences = new ArrayList<>();
+        this.tableEntries = new ArrayList<>();
+    }
+
+    /**
+     * Visits a fully parsed document. Generated topics are collected in the structure
+     * returned by {@link #endDocument()}.
+     */
+    public void visit(FrameMakerDocument document) {
+        startDocument(document.getTitle());
+        for (FrameMakerChapter chapter : document.getChapters()) {
+            startChapter();
+            for (FrameMakerSection section : chapter.getSections()) {
+                DitaTopic topic = visitSection(section);
+                if (topic != null) {
+                    structure.addTopic(topic);
+                }
+            }
+            endChapter(chapter);
+        }
+        for (String tableReference : document.getTableReferences()) {
+            visitTableReference(tableReference);
+        }
+    }
+
+    public void startDocument(String title) {
+        this.documentTitle = title;
+    }
+
+    public void startChapter() {
+        chapterIndex++;
+        chapterTopicReferences = new ArrayList<>();
+        chapterTopicEntries = new ArrayList<>();
+    }
+
+    /**
+     * Numbers the section and returns its topic; the caller decides whether to keep it.
+     * Returns null if this visitor has no topic generator.
+     */
+    public DitaTopic visitSection(FrameMakerSection section) {
+        topicIndex++;
+        String topicFileName = namespace.topicFileName(topicIndex);
+        chapterTopicReferences.add(mapGenerator.generateTopicReference(section, topicFileName));
+        chapterTopicEntries.add(tocGenerator.generateTopicEntry(section, topicFileName));
+
+        if (topicGenerator == null) {
+            return null;
+        }
+        return topicGenerator.generateTopic(section, DitaNaming.topicId(topicIndex), topicFileName);
+    }
+
+    /**
+     * Closes the current chapter. The chapter's title is read here rather than at the start,
+     * since event parsers may only fill it in while the chapter is being read.
+     */
+    public void endChapter(FrameMakerChapter chapter) {
+        DitaMap chapterMap = mapGenerator.generateChapterMap(chapter, chapterIndex, namespace);
+        chapterMap.setReferences(chapterTopicReferences);
+        structure.addChapterMap(chapterMap);
+        chapterReferences.add(mapGenerator.generateChapterReference(chapter, chapterIndex, namespace));
+
+        TocEntry chapterEntry = tocGenerator.generateChapterEntry(chapter, chapterIndex, namespace);
+        chapterEntry.setChildren(chapterTopicEntries);
+        structure.addTocEntry(chapterEntry);
+
+        chapterTopicReferences = null;
+        chapterTopicEntries = null;
+    }
+
+    public void visitTableReference(String tableReference) {
+        tableEntries.add(tocGenerator.generateTableEntry(tableReference));
+    }
+
+    /**
+     * Completes the main map and the TOC; table entries follow the chapters.
+     */
+    public DitaStructure endDocument() {
+        DitaMap mainMap = mapGenerator.generateMainMap(documentTitle);
+        mainMap.setReferences(chapterReferences);
+        structure.setMainMap(mainMap);
+        structure.getTocEntries().addAll(tableEntries);
+        return structure;
+    }
+}
@@ -2,58 +2,50 @@ package com.cms.projects.transformation.dita.generator;
 
 import com.cms.projects.transformation.dita.model.DitaMap;
 import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
-import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
-
-import java.util.List;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
 
 public class DitaMapGenerator {
     
-    public DitaMap generateMainMap(FrameMakerDocument document, List<String> chapterMapPaths) {
+    public DitaMap generateMainMap(String documentTitle) {
         DitaMap mainMap = new DitaMap();
-        mainMap.setId("main-map");
-        mainMap.setTitle(document.getTitle() != null ? document.getTitle() : "Main Document");
-        mainMap.setFileName("main.ditamap");
-        
-        // Add references to chapter maps
-        for (int i = 0; i < chapterMapPaths.size(); i++) {
-            DitaMap.DitaMapReference chapterRef = new DitaMap.DitaMapReference();
-            chapterRef.setHref("chapters/chapter_" + String.format("%02d", i + 1) + ".ditamap");
-            chapterRef.setFormat("ditamap");
-            chapterRef.setType("map");
-            
-            if (i < document.getChapters().size()) {
-                chapterRef.setTitle(document.getChapters().get(i).getTitle());
-            }
-            
-            mainMap.addReference(chapterRef);
-        }
-        
+        mainMap.setId(DitaNaming.MAIN_MAP_ID);
+        mainMap.setTitle(documentTitle != null ? documentTitle : "Main Document");
+        mainMap.setFileName(DitaNaming.MAIN_MAP_FILE_NAME);
         return mainMap;
     }
 
-    public DitaMap generateChapterMap(FrameMakerChapter chapter, List<String> topicPaths, int chapterIndex) {
+    public DitaMap.DitaMapReference generateChapterReference(FrameMakerChapter chapter, int chapterIndex) {
+        return generateChapterReference(chapter, chapterIndex, DitaOutputNamespace.DEFAULT);
+    }
+
+    public DitaMap.DitaMapReference generateChapterReference(FrameMakerChapter chapter, int chapterIndex,
+                                                             DitaOutputNamespace namespace) {
+        DitaMap.DitaMapReference chapterRef = new DitaMap.DitaMapReference();
+        chapterRef.setHref(namespace.chapterMapHref(chapterIndex));
+        chapterRef.setFormat("ditamap");
+        chapterRef.setType("map");
+        chapterRef.setTitle(chapter.getTitle());
+        return chapterRef;
+    }
+
+    public DitaMap generateChapterMap(FrameMakerChapter chapter, int chapterIndex) {
+        return generateChapterMap(chapter, chapterIndex, DitaOutputNamespace.DEFAULT);
+    }
+
+    public DitaMap generateChapterMap(FrameMakerChapter chapter, int chapterIndex, DitaOutputNamespace namespace) {
         DitaMap chapterMap = new DitaMap();
-        chapterMap.setId("chapter-" + chapterIndex);
+        chapterMap.setId(DitaNaming.chapterMapId(chapterIndex));
         chapterMap.setTitle(chapter.getTitle() != null ? chapter.getTitle() : "Chapter " + chapterIndex);
-        chapterMap.setFileName("chapter_" + String.format("%02d", chapterIndex) + ".ditamap");
-        
-        // Add references to topics
-        int topicIndex = 0;
-        for (String topicPath : topicPaths) {
-            DitaMap.DitaMapReference topicRef = new DitaMap.DitaMapReference();
-            topicRef.setHref("../xml/" + topicPath);
-            topicRef.setFormat("dita");
-            topicRef.setType("topic");
-            
-            if (topicIndex < chapter.getSections().size()) {
-                topicRef.setTitle(chapter.getSections().get(topicIndex).getTitle());
-            }
-            
-            chapterMap.addReference(topicRef);
-            topicIndex++;
-        }
-        
+        chapterMap.setFileName(namespace.chapterMapFileName(chapterIndex));
         return chapterMap;
     }
-}
 
+    public DitaMap.DitaMapReference generateTopicReference(FrameMakerSection section, String topicFileName) {
+        DitaMap.DitaMapReference topicRef = new DitaMap.DitaMapReference();
+        topicRef.setHref(DitaNaming.topicHref(topicFileName));
+        topicRef.setFormat("dita");
+        topicRef.setType("topic");
+        topicRef.setTitle(section.getTitle());
+        return topicRef;
+    }
+}
@@ -0,0 +1,30 @@
+package com.cms.projects.transformation.dita.generator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hands out output namespaces to the documents of one folder transformation.
+ * The first document keeps the plain names; every later one is prefixed with its
+ * source file name, plus a counter if another document already used that prefix.
+ * Allocate in a fixed document order and the names come out the same on every run.
+ */
+public class DitaNamespaceAllocator {
+
+    private final Set<String> allocatedPrefixes = new HashSet<>();
+
+    public synchronized DitaOutputNamespace allocate(String sourceFileName) {
+        String prefix;
+        if (allocatedPrefixes.isEmpty()) {
+            prefix = "";
+        } else {
+            String base = sourceFileName.replaceAll("[^a-zA-Z0-9]", "_");
+            prefix = base + "_";
+            for (int n = 2; allocatedPrefixes.contains(prefix); n++) {
+                prefix = base + "_" + n + "_";
+            }
+        }
+        allocatedPrefixes.add(prefix);
+        return DitaOutputNamespace.shared(prefix);
+    }
+}
@@ -0,0 +1,46 @@
+package com.cms.projects.transformation.dita.generator;
+
+/**
+ * File names, ids and hrefs of the generated output, all derived from 1-based
+ * topic and chapter indices. Every generator goes through here so the names
+ * written into maps and the TOC always match the files that are written.
+ * File names are prefixed, and chapter map hrefs built, by {@link DitaOutputNamespace}.
+ */
+public final class DitaNaming {
+
+    public static final String MAIN_MAP_ID = "main-map";
+    public static final String MAIN_MAP_FILE_NAME = "main.ditamap";
+    public static final String TOC_FILE_NAME = "toc.xml";
+
+    private DitaNaming() {
+    }
+
+    public static String topicId(int topicIndex) {
+        return "topic_" + zeroPad(topicIndex, 3);
+    }
+
+    public static String topicFileName(int topicIndex) {
+        return topicId(topicIndex) + ".xml";
+    }
+
+    /**
+     * Reference to a topic file from a chapter map or the TOC.
+     */
+    public static String topicHref(String topicFileName) {
+        return "../xml/" + topicFileName;
+    }
+
+    public static String chapterMapId(int chapterIndex) {
+        return "chapter-" + chapterIndex;
+    }
+
+    public static String chapterMapFileName(int chapterIndex) {
+        return "chapter_" + zeroPad(chapterIndex, 2) + ".ditamap";
+    }
+
+    // Same result as String.format("%0<width>d") for the positive indices used here
+    private static String zeroPad(int value, int width) {
+        String digits = Integer.toString(value);
+        return digits.length() >= width ? digits : "0".repeat(width - digits.length()) + digits;
+    }
+}
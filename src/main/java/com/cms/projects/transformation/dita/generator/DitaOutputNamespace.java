@@ -0,0 +1,72 @@
+package com.cms.projects.transformation.dita.generator;
+
+import java.util.regex.Pattern;
+
+/**
+ * Names of the files one transformation writes, all starting with the same prefix.
+ * Several documents can then be written into the same output tree at once without
+ * overwriting each other, and the hrefs in their maps and TOCs still point at their
+ * own files. Topic and chapter map ids are not prefixed; they only need to be unique
+ * within a file.
+ */
+public final class DitaOutputNamespace {
+
+    /**
+     * The unprefixed names of a single-document transformation, main map included.
+     */
+    public static final DitaOutputNamespace DEFAULT = new DitaOutputNamespace("", true);
+
+    private static final Pattern GENERATED_FILE =
+        Pattern.compile("topic_\\d+\\.xml|chapter_\\d+\\.ditamap|" + Pattern.quote(DitaNaming.TOC_FILE_NAME)
+            + "|" + Pattern.quote(DitaNaming.MAIN_MAP_FILE_NAME));
+
+    private final String prefix;
+    private final boolean writesMainMap;
+
+    private DitaOutputNamespace(String prefix, boolean writesMainMap) {
+        this.prefix = prefix;
+        this.writesMainMap = writesMainMap;
+    }
+
+    /**
+     * A namespace for one document among several sharing an output tree. The tree has a
+     * main map of its own, so the document's main map is not written.
+     */
+    public static DitaOutputNamespace shared(String prefix) {
+        return new DitaOutputNamespace(prefix, false);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public boolean writesMainMap() {
+        return writesMainMap;
+    }
+
+    public String topicFileName(int topicIndex) {
+        return prefix + DitaNaming.topicFileName(topicIndex);
+    }
+
+    public String chapterMapFileName(int chapterIndex) {
+        return prefix + DitaNaming.chapterMapFileName(chapterIndex);
+    }
+
+    /**
+     * Reference to a chapter map from the main map or the TOC.
+     */
+    public String chapterMapHref(int chapterIndex) {
+        return "chapters/" + chapterMapFileName(chapterIndex);
+    }
+
+    public String tocFileName() {
+        return prefix + DitaNaming.TOC_FILE_NAME;
+    }
+
+    /**
+     * Whether a file in the output tree was generated under this namespace.
+     */
+    public boolean owns(String fileName) {
+        return fileName.startsWith(prefix) && GENERATED_FILE.matcher(fileName.substring(prefix.length())).matches();
+    }
+}
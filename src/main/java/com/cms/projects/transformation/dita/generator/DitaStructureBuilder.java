@@ -1,58 +1,44 @@
 package com.cms.projects.transformation.dita.generator;
 
-import com.cms.projects.transformation.dita.model.DitaMap;
-import com.cms.projects.transformation.dita.model.DitaTopic;
-import com.cms.projects.transformation.framemaker.model.*;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.cms.projects.transformation.dita.model.DitaStructure;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
 
 public class DitaStructureBuilder {
     
     private final DitaTopicGenerator topicGenerator;
     private final DitaMapGenerator mapGenerator;
+    private final TableOfContentsGenerator tocGenerator;
     
     public DitaStructureBuilder() {
         this.topicGenerator = new DitaTopicGenerator();
         this.mapGenerator = new DitaMapGenerator();
+        this.tocGenerator = new TableOfContentsGenerator();
     }
 
-    public List<DitaTopic> buildTopics(FrameMakerDocument document) {
-        List<DitaTopic> topics = new ArrayList<>();
-        int topicIndex = 1;
-        
-        for (FrameMakerChapter chapter : document.getChapters()) {
-            for (FrameMakerSection section : chapter.getSections()) {
-                String topicId = "topic_" + String.format("%03d", topicIndex);
-                String fileName = topicId + ".xml";
-                
-                DitaTopic topic = topicGenerator.generateTopic(section, topicId, fileName);
-                topics.add(topic);
-                topicIndex++;
-            }
-        }
-        
-        return topics;
+    /**
+     * Builds the topics, chapter maps, main map and TOC of a parsed document in one pass.
+     */
+    public DitaStructure build(FrameMakerDocument document) {
+        return build(document, DitaOutputNamespace.DEFAULT);
     }
 
-    public DitaMap buildMainMap(FrameMakerDocument document, List<String> chapterMapPaths) {
-        return mapGenerator.generateMainMap(document, chapterMapPaths);
+    /**
+     * Builds the structure with the file names of {@code namespace}.
+     */
+    public DitaStructure build(FrameMakerDocument document, DitaOutputNamespace namespace) {
+        DitaDocumentVisitor visitor = newVisitor(namespace);
+        visitor.visit(document);
+        return visitor.endDocument();
     }
 
-    public List<DitaMap> buildChapterMaps(FrameMakerDocument document, List<List<String>> topicPathsPerChapter) {
-        List<DitaMap> chapterMaps = new ArrayList<>();
-        int chapterIndex = 1;
-        
-        for (int i = 0; i < document.getChapters().size(); i++) {
-            FrameMakerChapter chapter = document.getChapters().get(i);
-            List<String> topicPaths = topicPathsPerChapter.size() > i ? topicPathsPerChapter.get(i) : new ArrayList<>();
-            
-            DitaMap chapterMap = mapGenerator.generateChapterMap(chapter, topicPaths, chapterIndex);
-            chapterMaps.add(chapterMap);
-            chapterIndex++;
-        }
-        
-        return chapterMaps;
+    /**
+     * A visitor to drive section by section, for documents that are never held in memory whole.
+     */
+    public DitaDocumentVisitor newVisitor() {
+        return newVisitor(DitaOutputNamespace.DEFAULT);
     }
-}
 
+    public DitaDocumentVisitor newVisitor(DitaOutputNamespace namespace) {
+        return new DitaDocumentVisitor(topicGenerator, mapGenerator, tocGenerator, namespace);
+    }
+}
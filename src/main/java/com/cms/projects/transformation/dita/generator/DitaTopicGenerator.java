@@ -1,6 +1,7 @@
 package com.cms.projects.transformation.dita.generator;
 
 import com.cms.projects.transformation.dita.model.DitaElement;
+import com.cms.projects.transformation.dita.model.DitaElementKind;
 import com.cms.projects.transformation.dita.model.DitaTopic;
 import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
 import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
@@ -37,7 +38,7 @@ public class DitaTopicGenerator {
 
     private DitaElement createParagraphElement(FrameMakerParagraph paragraph) {
         DitaElement paraElement = new DitaElement();
-        paraElement.setType("p");
+        paraElement.setKind(DitaElementKind.P);
         
         if (paragraph.getText() != null && !paragraph.getText().isEmpty()) {
             paraElement.setContent(paragraph.getText());
@@ -46,7 +47,7 @@ public class DitaTopicGenerator {
         // Handle image references
         if (!paragraph.getImageReferences().isEmpty()) {
             DitaElement imageElement = new DitaElement();
-            imageElement.setType("image");
+            imageElement.setKind(DitaElementKind.IMAGE);
             
             // Use first image reference
             String imageRef = paragraph.getImageReferences().get(0);
@@ -61,14 +62,14 @@ public class DitaTopicGenerator {
 
     private DitaElement createTableElement(FrameMakerParagraph paragraph) {
         DitaElement tableElement = new DitaElement();
-        tableElement.setType("simpletable");
+        tableElement.setKind(DitaElementKind.SIMPLETABLE);
         
         // Create a simple table structure
         if (paragraph.getText() != null && !paragraph.getText().isEmpty()) {
             DitaElement titleElement = new DitaElement();
-            titleElement.setType("sthead");
+            titleElement.setKind(DitaElementKind.STHEAD);
             DitaElement titlePara = new DitaElement();
-            titlePara.setType("stentry");
+            titlePara.setKind(DitaElementKind.STENTRY);
             titlePara.setContent(paragraph.getText());
             titleElement.addChild(titlePara);
             tableElement.addChild(titleElement);
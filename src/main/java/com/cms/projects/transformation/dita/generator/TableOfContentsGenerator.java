@@ -3,58 +3,53 @@ package com.cms.projects.transformation.dita.generator;
 import com.cms.projects.transformation.dita.model.TocEntry;
 import com.cms.projects.transformation.framemaker.model.*;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class TableOfContentsGenerator {
     
+    /**
+     * Builds only the TOC of a document. The transformer gets the TOC from
+     * {@link DitaStructureBuilder}, together with the topics and maps, in one pass.
+     */
     public List<TocEntry> generateToc(FrameMakerDocument document) {
-        List<TocEntry> tocEntries = new ArrayList<>();
-        
-        int topicIndex = 1;
-        int chapterIndex = 1;
-        
-        for (FrameMakerChapter chapter : document.getChapters()) {
-            // Create chapter entry
-            TocEntry chapterEntry = new TocEntry();
-            chapterEntry.setTitle(chapter.getTitle() != null ? chapter.getTitle() : "Chapter " + chapterIndex);
-            chapterEntry.setType("chapter");
-            chapterEntry.setHref("chapters/chapter_" + String.format("%02d", chapterIndex) + ".ditamap");
-            chapterEntry.setLevel(1);
-            
-            // Add sections/topics as children
-            for (FrameMakerSection section : chapter.getSections()) {
-                TocEntry topicEntry = new TocEntry();
-                topicEntry.setTitle(section.getTitle() != null ? section.getTitle() : "Untitled Section");
-                topicEntry.setType("topic");
-                topicEntry.setHref("../xml/topic_" + String.format("%03d", topicIndex) + ".xml");
-                topicEntry.setLevel(2);
-                
-                // Add subsections if any
-                if (section.getLevel() > 1) {
-                    topicEntry.setLevel(section.getLevel() + 1);
-                }
-                
-                chapterEntry.addChild(topicEntry);
-                topicIndex++;
-            }
-            
-            tocEntries.add(chapterEntry);
-            chapterIndex++;
-        }
+        DitaDocumentVisitor visitor = new DitaDocumentVisitor(null, new DitaMapGenerator(), this);
+        visitor.visit(document);
+        return visitor.endDocument().getTocEntries();
+    }
+
+    public TocEntry generateChapterEntry(FrameMakerChapter chapter, int chapterIndex) {
+        return generateChapterEntry(chapter, chapterIndex, DitaOutputNamespace.DEFAULT);
+    }
+
+    public TocEntry generateChapterEntry(FrameMakerChapter chapter, int chapterIndex, DitaOutputNamespace namespace) {
+        TocEntry chapterEntry = new TocEntry();
+        chapterEntry.setTitle(chapter.getTitle() != null ? chapter.getTitle() : "Chapter " + chapterIndex);
+        chapterEntry.setType("chapter");
+        chapterEntry.setHref(namespace.chapterMapHref(chapterIndex));
+        chapterEntry.setLevel(1);
+        return chapterEntry;
+    }
+
+    public TocEntry generateTopicEntry(FrameMakerSection section, String topicFileName) {
+        TocEntry topicEntry = new TocEntry();
+        topicEntry.setTitle(section.getTitle() != null ? section.getTitle() : "Untitled Section");
+        topicEntry.setType("topic");
+        topicEntry.setHref(DitaNaming.topicHref(topicFileName));
+        topicEntry.setLevel(2);
         
-        // Add table references if any
-        if (!document.getTableReferences().isEmpty()) {
-            for (String tableRef : document.getTableReferences()) {
-                TocEntry tableEntry = new TocEntry();
-                tableEntry.setTitle("Table: " + tableRef);
-                tableEntry.setType("table");
-                tableEntry.setLevel(2);
-                tocEntries.add(tableEntry);
-            }
+        // Add subsections if any
+        if (section.getLevel() > 1) {
+            topicEntry.setLevel(section.getLevel() + 1);
         }
         
-        return tocEntries;
+        return topicEntry;
     }
-}
 
+    public TocEntry generateTableEntry(String tableReference) {
+        TocEntry tableEntry = new TocEntry();
+        tableEntry.setTitle("Table: " + tableReference);
+        tableEntry.setType("table");
+        tableEntry.setLevel(2);
+        return tableEntry;
+    }
+}
@@ -1,25 +1,42 @@
 package com.cms.projects.transformation.dita.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * One element of a topic body. Kept small because large manuals hold millions of them:
+ * the element name is an enum constant, and the child list is only allocated when the
+ * first child is added, so leaf paragraphs carry no list at all.
+ */
 public class DitaElement {
-    private String type;
+    private DitaElementKind kind;
     private String content;
     private List<DitaElement> children;
     private String id;
     private String href;
 
     public DitaElement() {
-        this.children = new ArrayList<>();
+    }
+
+    public DitaElement(DitaElementKind kind) {
+        this.kind = kind;
+    }
+
+    public DitaElementKind getKind() {
+        return kind;
+    }
+
+    public void setKind(DitaElementKind kind) {
+        this.kind = kind;
     }
 
     public String getType() {
-        return type;
+        return kind != null ? kind.getElementName() : null;
     }
 
     public void setType(String type) {
-        this.type = type;
+        this.kind = type != null ? DitaElementKind.fromElementName(type) : null;
     }
 
     public String getContent() {
@@ -30,8 +47,11 @@ public class DitaElement {
         this.content = content;
     }
 
+    /**
+     * Returns the children; an element without children returns an immutable empty list.
+     */
     public List<DitaElement> getChildren() {
-        return children;
+        return children != null ? children : Collections.emptyList();
     }
 
     public void setChildren(List<DitaElement> children) {
@@ -39,6 +59,10 @@ public class DitaElement {
     }
 
     public void addChild(DitaElement child) {
+        if (children == null) {
+            // Paragraphs hold at most an image and table heads a single entry
+            children = new ArrayList<>(1);
+        }
         this.children.add(child);
     }
 
@@ -58,4 +82,3 @@ public class DitaElement {
         this.href = href;
     }
 }
-
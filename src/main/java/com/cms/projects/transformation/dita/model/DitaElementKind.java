@@ -0,0 +1,32 @@
+package com.cms.projects.transformation.dita.model;
+
+/**
+ * The elements a topic body can contain. Writers switch on the kind instead of
+ * comparing element names.
+ */
+public enum DitaElementKind {
+    P("p"),
+    IMAGE("image"),
+    SIMPLETABLE("simpletable"),
+    STHEAD("sthead"),
+    STENTRY("stentry");
+
+    private final String elementName;
+
+    DitaElementKind(String elementName) {
+        this.elementName = elementName;
+    }
+
+    public String getElementName() {
+        return elementName;
+    }
+
+    public static DitaElementKind fromElementName(String elementName) {
+        for (DitaElementKind kind : values()) {
+            if (kind.elementName.equals(elementName)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported DITA element: " + elementName);
+    }
+}
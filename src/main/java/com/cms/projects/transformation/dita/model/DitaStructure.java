@@ -0,0 +1,61 @@
+package com.cms.projects.transformation.dita.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DitaStructure {
+    private List<DitaTopic> topics;
+    private List<DitaMap> chapterMaps;
+    private DitaMap mainMap;
+    private List<TocEntry> tocEntries;
+
+    public DitaStructure() {
+        this.topics = new ArrayList<>();
+        this.chapterMaps = new ArrayList<>();
+        this.tocEntries = new ArrayList<>();
+    }
+
+    public List<DitaTopic> getTopics() {
+        return topics;
+    }
+
+    public void setTopics(List<DitaTopic> topics) {
+        this.topics = topics;
+    }
+
+    public void addTopic(DitaTopic topic) {
+        this.topics.add(topic);
+    }
+
+    public List<DitaMap> getChapterMaps() {
+        return chapterMaps;
+    }
+
+    public void setChapterMaps(List<DitaMap> chapterMaps) {
+        this.chapterMaps = chapterMaps;
+    }
+
+    public void addChapterMap(DitaMap chapterMap) {
+        this.chapterMaps.add(chapterMap);
+    }
+
+    public DitaMap getMainMap() {
+        return mainMap;
+    }
+
+    public void setMainMap(DitaMap mainMap) {
+        this.mainMap = mainMap;
+    }
+
+    public List<TocEntry> getTocEntries() {
+        return tocEntries;
+    }
+
+    public void setTocEntries(List<TocEntry> tocEntries) {
+        this.tocEntries = tocEntries;
+    }
+
+    public void addTocEntry(TocEntry tocEntry) {
+        this.tocEntries.add(tocEntry);
+    }
+}
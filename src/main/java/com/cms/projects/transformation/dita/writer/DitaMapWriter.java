@@ -1,71 +1,60 @@
 package com.cms.projects.transformation.dita.writer;
 
 import com.cms.projects.transformation.dita.model.DitaMap;
-import org.dom4j.Document;
-import org.dom4j.DocumentHelper;
-import org.dom4j.Element;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.cms.projects.transformation.dita.writer.DitaXmlNames.*;
 
 public class DitaMapWriter {
     
     private static final String DITA_MAP_NAMESPACE = "http://docs.oasis-open.org/dita/v1.3/ns/200603/map.dtd";
 
     public void write(DitaMap ditaMap, Path outputPath) throws IOException {
-        Document document = DocumentHelper.createDocument();
-        Element mapElement = document.addElement("map", DITA_MAP_NAMESPACE);
-        mapElement.addAttribute("id", ditaMap.getId());
-        
-        // Title
-        Element titleElement = mapElement.addElement("title");
-        titleElement.addText(ditaMap.getTitle());
-        
-        // Topicrefs
-        for (DitaMap.DitaMapReference reference : ditaMap.getReferences()) {
-            addTopicref(mapElement, reference);
-        }
-        
-        // Write to file
         Files.createDirectories(outputPath.getParent());
-        OutputFormat format = OutputFormat.createPrettyPrint();
-        format.setEncoding("UTF-8");
-        format.setIndentSize(2);
         
-        try (FileWriter writer = new FileWriter(outputPath.toFile())) {
-            XMLWriter xmlWriter = new XMLWriter(writer, format);
-            xmlWriter.write(document);
-            xmlWriter.close();
+        try (FileChannel channel = FileChannel.open(outputPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             XmlEmitter xml = XmlEmitter.open(channel, false)) {
+            xml.declaration();
+            
+            xml.startElement(MAP);
+            xml.attribute(XMLNS, DITA_MAP_NAMESPACE);
+            xml.attribute(ID, ditaMap.getId());
+            
+            // Title
+            xml.startElement(TITLE);
+            if (ditaMap.getTitle() != null) {
+                xml.text(ditaMap.getTitle());
+            }
+            xml.endElement();
+            
+            // Topicrefs
+            for (DitaMap.DitaMapReference reference : ditaMap.getReferences()) {
+                writeTopicref(xml, reference);
+            }
+            
+            xml.endElement();
+            xml.finish();
         }
     }
 
-    private void addTopicref(Element parent, DitaMap.DitaMapReference reference) {
-        Element topicref = parent.addElement("topicref");
-        
-        if (reference.getHref() != null) {
-            topicref.addAttribute("href", reference.getHref());
-        }
-        
-        if (reference.getFormat() != null) {
-            topicref.addAttribute("format", reference.getFormat());
-        }
-        
-        if (reference.getType() != null) {
-            topicref.addAttribute("type", reference.getType());
-        }
-        
-        if (reference.getTitle() != null) {
-            topicref.addAttribute("navtitle", reference.getTitle());
-        }
+    private void writeTopicref(XmlEmitter xml, DitaMap.DitaMapReference reference) throws IOException {
+        xml.startElement(TOPICREF);
+        xml.attribute(HREF, reference.getHref());
+        xml.attribute(FORMAT, reference.getFormat());
+        xml.attribute(TYPE, reference.getType());
+        xml.attribute(NAVTITLE, reference.getTitle());
         
         // Add children
         for (DitaMap.DitaMapReference child : reference.getChildren()) {
-            addTopicref(topicref, child);
+            writeTopicref(xml, child);
         }
+        
+        xml.endElement();
     }
 }
-
@@ -2,71 +2,77 @@ package com.cms.projects.transformation.dita.writer;
 
 import com.cms.projects.transformation.dita.model.DitaElement;
 import com.cms.projects.transformation.dita.model.DitaTopic;
-import org.dom4j.Document;
-import org.dom4j.DocumentHelper;
-import org.dom4j.Element;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.cms.projects.transformation.dita.writer.DitaXmlNames.*;
 
 public class DitaTopicWriter {
-    
+
     private static final String DITA_NAMESPACE = "http://docs.oasis-open.org/dita/v1.3/ns/200603/topic.dtd";
 
+    private boolean compact;
+
+    /**
+     * Compact output leaves out indentation and line breaks; the default is indented.
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
     public void write(DitaTopic topic, Path outputPath) throws IOException {
-        Document document = DocumentHelper.createDocument();
-        Element topicElement = document.addElement("topic", DITA_NAMESPACE);
-        topicElement.addAttribute("id", topic.getId());
-        
-        // Title
-        Element titleElement = topicElement.addElement("title");
-        titleElement.addText(topic.getTitle());
-        
-        // Body
-        Element bodyElement = topicElement.addElement("body");
-        
-        // Add content elements
-        for (DitaElement element : topic.getContent()) {
-            createElement(bodyElement, element);
-        }
-        
-        // Write to file
         Files.createDirectories(outputPath.getParent());
-        OutputFormat format = OutputFormat.createPrettyPrint();
-        format.setEncoding("UTF-8");
-        format.setIndentSize(2);
-        
-        try (FileWriter writer = new FileWriter(outputPath.toFile())) {
-            XMLWriter xmlWriter = new XMLWriter(writer, format);
-            xmlWriter.write(document);
-            xmlWriter.close();
+
+        // Stream the topic straight to the file as UTF-8; no DOM is built
+        try (FileChannel channel = FileChannel.open(outputPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             XmlEmitter xml = XmlEmitter.open(channel, compact)) {
+            xml.declaration();
+
+            xml.startElement(TOPIC);
+            xml.attribute(XMLNS, DITA_NAMESPACE);
+            xml.attribute(ID, topic.getId());
+
+            // Title
+            xml.startElement(TITLE);
+            if (topic.getTitle() != null) {
+                xml.text(topic.getTitle());
+            }
+            xml.endElement();
+
+            // Body
+            xml.startElement(BODY);
+            for (DitaElement element : topic.getContent()) {
+                writeElement(xml, element);
+            }
+            xml.endElement();
+
+            xml.endElement();
+            xml.finish();
         }
     }
 
-    private Element createElement(Element parent, DitaElement ditaElement) {
-        Element element = parent.addElement(ditaElement.getType());
-        
-        if (ditaElement.getId() != null) {
-            element.addAttribute("id", ditaElement.getId());
-        }
-        
-        if (ditaElement.getHref() != null) {
-            element.addAttribute("href", ditaElement.getHref());
-        }
-        
+    private void writeElement(XmlEmitter xml, DitaElement ditaElement) throws IOException {
+        xml.startElement(DitaXmlNames.element(ditaElement.getKind()));
+        xml.attribute(ID, ditaElement.getId());
+        xml.attribute(HREF, ditaElement.getHref());
+
         if (ditaElement.getContent() != null && !ditaElement.getContent().isEmpty()) {
-            element.addText(ditaElement.getContent());
+            xml.text(ditaElement.getContent());
         }
-        
+
         for (DitaElement child : ditaElement.getChildren()) {
-            createElement(element, child);
+            writeElement(xml, child);
         }
-        
-        return element;
+
+        xml.endElement();
     }
 }
-
@@ -0,0 +1,45 @@
+package com.cms.projects.transformation.dita.writer;
+
+import com.cms.projects.transformation.dita.model.DitaElementKind;
+
+/**
+ * Pre-encoded names of the DITA elements and attributes the writers emit.
+ */
+final class DitaXmlNames {
+
+    // Elements
+    static final XmlName TOPIC = XmlName.of("topic");
+    static final XmlName MAP = XmlName.of("map");
+    static final XmlName TOC = XmlName.of("toc");
+    static final XmlName TITLE = XmlName.of("title");
+    static final XmlName BODY = XmlName.of("body");
+    static final XmlName P = XmlName.of("p");
+    static final XmlName IMAGE = XmlName.of("image");
+    static final XmlName SIMPLETABLE = XmlName.of("simpletable");
+    static final XmlName STHEAD = XmlName.of("sthead");
+    static final XmlName STENTRY = XmlName.of("stentry");
+    static final XmlName TOPICREF = XmlName.of("topicref");
+    static final XmlName ENTRY = XmlName.of("entry");
+
+    // Attributes (TITLE doubles as the TOC entry attribute)
+    static final XmlName XMLNS = XmlName.of("xmlns");
+    static final XmlName ID = XmlName.of("id");
+    static final XmlName HREF = XmlName.of("href");
+    static final XmlName FORMAT = XmlName.of("format");
+    static final XmlName TYPE = XmlName.of("type");
+    static final XmlName NAVTITLE = XmlName.of("navtitle");
+    static final XmlName LEVEL = XmlName.of("level");
+
+    private DitaXmlNames() {
+    }
+
+    static XmlName element(DitaElementKind kind) {
+        return switch (kind) {
+            case P -> P;
+            case IMAGE -> IMAGE;
+            case SIMPLETABLE -> SIMPLETABLE;
+            case STHEAD -> STHEAD;
+            case STENTRY -> STENTRY;
+        };
+    }
+}
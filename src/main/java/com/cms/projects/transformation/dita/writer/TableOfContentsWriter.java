@@ -1,70 +1,58 @@
 package com.cms.projects.transformation.dita.writer;
 
 import com.cms.projects.transformation.dita.model.TocEntry;
-import org.dom4j.Document;
-import org.dom4j.DocumentHelper;
-import org.dom4j.Element;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
+import static com.cms.projects.transformation.dita.writer.DitaXmlNames.*;
+
 public class TableOfContentsWriter {
     
     private static final String TOC_NAMESPACE = "http://docs.oasis-open.org/dita/v1.3/ns/200603/toc";
 
     public void write(List<TocEntry> entries, Path outputPath) throws IOException {
-        Document document = DocumentHelper.createDocument();
-        Element tocElement = document.addElement("toc", TOC_NAMESPACE);
-        tocElement.addAttribute("xmlns", TOC_NAMESPACE);
-        
-        // Add title
-        Element titleElement = tocElement.addElement("title");
-        titleElement.addText("Table of Contents");
-        
-        // Add entries
-        for (TocEntry entry : entries) {
-            addEntry(tocElement, entry);
-        }
-        
-        // Write to file
         Files.createDirectories(outputPath.getParent());
-        OutputFormat format = OutputFormat.createPrettyPrint();
-        format.setEncoding("UTF-8");
-        format.setIndentSize(2);
         
-        try (FileWriter writer = new FileWriter(outputPath.toFile())) {
-            XMLWriter xmlWriter = new XMLWriter(writer, format);
-            xmlWriter.write(document);
-            xmlWriter.close();
+        try (FileChannel channel = FileChannel.open(outputPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             XmlEmitter xml = XmlEmitter.open(channel, false)) {
+            xml.declaration();
+            
+            xml.startElement(TOC);
+            xml.attribute(XMLNS, TOC_NAMESPACE);
+            
+            // Add title
+            xml.startElement(TITLE);
+            xml.text("Table of Contents");
+            xml.endElement();
+            
+            // Add entries
+            for (TocEntry entry : entries) {
+                writeEntry(xml, entry);
+            }
+            
+            xml.endElement();
+            xml.finish();
         }
     }
 
-    private void addEntry(Element parent, TocEntry entry) {
-        Element entryElement = parent.addElement("entry");
-        
-        if (entry.getTitle() != null) {
-            entryElement.addAttribute("title", entry.getTitle());
-        }
-        
-        if (entry.getHref() != null) {
-            entryElement.addAttribute("href", entry.getHref());
-        }
-        
-        if (entry.getType() != null) {
-            entryElement.addAttribute("type", entry.getType());
-        }
-        
-        entryElement.addAttribute("level", String.valueOf(entry.getLevel()));
+    private void writeEntry(XmlEmitter xml, TocEntry entry) throws IOException {
+        xml.startElement(ENTRY);
+        xml.attribute(TITLE, entry.getTitle());
+        xml.attribute(HREF, entry.getHref());
+        xml.attribute(TYPE, entry.getType());
+        xml.attribute(LEVEL, entry.getLevel());
         
         // Add children
         for (TocEntry child : entry.getChildren()) {
-            addEntry(entryElement, child);
+            writeEntry(xml, child);
         }
+        
+        xml.endElement();
     }
 }
-
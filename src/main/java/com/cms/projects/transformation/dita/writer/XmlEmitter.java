@@ -0,0 +1,337 @@
+package com.cms.projects.transformation.dita.writer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Streaming UTF-8 XML emitter shared by the DITA writers. Elements are written as
+ * they are produced, without building a document tree first. The layout matches
+ * dom4j's pretty-print format (two-space indent, trimmed and whitespace-normalized
+ * text, {@code <empty/>} tags), so files are byte-for-byte what the previous
+ * DOM-based writers produced. In compact mode the same content is written without
+ * indentation or line breaks.
+ *
+ * <p>Markup comes from pre-encoded {@link XmlName}s, and text is copied byte by byte
+ * until a character that needs escaping or multi-byte encoding turns up. Output
+ * buffers are taken from a per-thread pool and given back on {@link #close()}.
+ */
+final class XmlEmitter implements Closeable {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 4;
+    private static final int INITIAL_DEPTH = 16;
+
+    private static final ThreadLocal<ArrayDeque<ByteBuffer>> BUFFER_POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static final byte[] DECLARATION = ascii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    private static final byte[] EMPTY_ELEMENT_END = ascii("/>");
+    private static final byte[] ESCAPED_LT = ascii("&lt;");
+    private static final byte[] ESCAPED_GT = ascii("&gt;");
+    private static final byte[] ESCAPED_AMP = ascii("&amp;");
+    private static final byte[] ESCAPED_QUOT = ascii("&quot;");
+
+    // ASCII characters that leave the fast path, for text and for attribute values
+    private static final boolean[] TEXT_SPECIAL = new boolean[128];
+    private static final boolean[] ATTRIBUTE_SPECIAL = new boolean[128];
+
+    static {
+        for (char c = 0; c < 32; c++) {
+            boolean whitespace = c == '\t' || c == '\n' || c == '\r';
+            TEXT_SPECIAL[c] = !whitespace;
+            ATTRIBUTE_SPECIAL[c] = !whitespace;
+        }
+        for (char c : new char[] {'<', '>', '&'}) {
+            TEXT_SPECIAL[c] = true;
+            ATTRIBUTE_SPECIAL[c] = true;
+        }
+        ATTRIBUTE_SPECIAL['"'] = true;
+    }
+
+    private final WritableByteChannel channel;
+    private final boolean compact;
+    private ByteBuffer buffer;
+    private byte[] bytes;
+    private int position;
+
+    private XmlName[] names = new XmlName[INITIAL_DEPTH];
+    private boolean[] hasChildElements = new boolean[INITIAL_DEPTH];
+    private int depth;
+    private boolean startTagOpen;
+    private boolean padBeforeChild;
+
+    private XmlEmitter(WritableByteChannel channel, boolean compact, ByteBuffer buffer) {
+        this.channel = channel;
+        this.compact = compact;
+        this.buffer = buffer;
+        this.bytes = buffer.array();
+    }
+
+    /**
+     * Opens an emitter on a pooled buffer; close it to return the buffer.
+     */
+    static XmlEmitter open(WritableByteChannel channel, boolean compact) {
+        ByteBuffer pooled = BUFFER_POOL.get().pollFirst();
+        return new XmlEmitter(channel, compact, pooled != null ? pooled : ByteBuffer.allocate(BUFFER_SIZE));
+    }
+
+    void declaration() throws IOException {
+        write(DECLARATION);
+    }
+
+    void startElement(XmlName name) throws IOException {
+        if (depth > 0) {
+            closeStartTag();
+            hasChildElements[depth - 1] = true;
+            if (padBeforeChild) {
+                writeByte(' ');
+                padBeforeChild = false;
+            }
+        }
+        newLine(depth);
+        write(name.startTag);
+        if (depth == names.length) {
+            names = Arrays.copyOf(names, depth * 2);
+            hasChildElements = Arrays.copyOf(hasChildElements, depth * 2);
+        }
+        names[depth] = name;
+        hasChildElements[depth] = false;
+        depth++;
+        startTagOpen = true;
+    }
+
+    /**
+     * Writes an attribute of the element just started. A null value writes nothing,
+     * the same as dom4j's addAttribute(name, null).
+     */
+    void attribute(XmlName name, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        write(name.attributePrefix);
+        writeEscaped(value, 0, value.length(), ATTRIBUTE_SPECIAL, true);
+        writeByte('"');
+    }
+
+    void attribute(XmlName name, int value) throws IOException {
+        write(name.attributePrefix);
+        writeAscii(Integer.toString(value));
+        writeByte('"');
+    }
+
+    /**
+     * Writes element text. Leading and trailing whitespace is dropped and inner runs of
+     * whitespace collapse to one space, as with dom4j's trimText. Even empty text
+     * gives the element content, so it is closed as {@code <a></a>} rather than {@code <a/>}.
+     */
+    void text(String text) throws IOException {
+        closeStartTag();
+        if (text.isEmpty()) {
+            return;
+        }
+        if (hasChildElements[depth - 1] && Character.isWhitespace(text.charAt(0))) {
+            writeByte(' ');
+        }
+
+        int length = text.length();
+        int i = 0;
+        boolean firstToken = true;
+        while (i < length) {
+            while (i < length && isTokenSeparator(text.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int end = i;
+            while (end < length && !isTokenSeparator(text.charAt(end))) {
+                end++;
+            }
+            if (!firstToken) {
+                writeByte(' ');
+            }
+            writeEscaped(text, i, end, TEXT_SPECIAL, false);
+            firstToken = false;
+            i = end;
+        }
+        padBeforeChild = Character.isWhitespace(text.charAt(length - 1));
+    }
+
+    void endElement() throws IOException {
+        depth--;
+        if (startTagOpen) {
+            write(EMPTY_ELEMENT_END);
+            startTagOpen = false;
+        } else {
+            if (hasChildElements[depth]) {
+                newLine(depth);
+            }
+            write(names[depth].endTag);
+        }
+        names[depth] = null;
+        padBeforeChild = false;
+    }
+
+    /**
+     * Ends the document and writes everything still buffered to the channel.
+     */
+    void finish() throws IOException {
+        if (!compact) {
+            writeByte('\n');
+        }
+        flush();
+    }
+
+    /**
+     * Returns the buffer to this thread's pool. Does not flush or close the channel.
+     */
+    @Override
+    public void close() {
+        if (buffer != null) {
+            buffer.clear();
+            ArrayDeque<ByteBuffer> pool = BUFFER_POOL.get();
+            if (pool.size() < MAX_POOLED_BUFFERS) {
+                pool.addFirst(buffer);
+            }
+            buffer = null;
+            bytes = null;
+        }
+    }
+
+    private void closeStartTag() throws IOException {
+        if (startTagOpen) {
+            writeByte('>');
+            startTagOpen = false;
+        }
+    }
+
+    private void newLine(int indentLevel) throws IOException {
+        if (compact) {
+            return;
+        }
+        writeByte('\n');
+        for (int i = 0; i < indentLevel; i++) {
+            writeByte(' ');
+            writeByte(' ');
+        }
+    }
+
+    /**
+     * Copies plain ASCII straight into the buffer and drops to the slow path only for
+     * markup characters, control characters and non-ASCII.
+     */
+    private void writeEscaped(String value, int start, int end, boolean[] special, boolean attribute)
+            throws IOException {
+        int i = start;
+        while (i < end) {
+            if (position == bytes.length) {
+                flush();
+            }
+            int limit = Math.min(end, i + bytes.length - position);
+            while (i < limit) {
+                char c = value.charAt(i);
+                if (c >= 0x80 || special[c]) {
+                    break;
+                }
+                bytes[position++] = (byte) c;
+                i++;
+            }
+            if (i < limit) {
+                i = writeSpecial(value, i, end, attribute);
+            }
+        }
+    }
+
+    /**
+     * Writes the character at {@code i} and returns the index after it.
+     */
+    private int writeSpecial(String value, int i, int end, boolean attribute) throws IOException {
+        char c = value.charAt(i);
+        switch (c) {
+            case '<' -> write(ESCAPED_LT);
+            case '>' -> write(ESCAPED_GT);
+            case '&' -> write(ESCAPED_AMP);
+            case '"' -> {
+                if (attribute) {
+                    write(ESCAPED_QUOT);
+                } else {
+                    writeByte('"');
+                }
+            }
+            default -> {
+                if (c < 32) {
+                    writeAscii("&#" + (int) c + ";");
+                } else if (Character.isHighSurrogate(c) && i + 1 < end
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    writeCodePoint(Character.toCodePoint(c, value.charAt(i + 1)));
+                    return i + 2;
+                } else {
+                    // An unpaired surrogate cannot be encoded; the charset encoder wrote '?'
+                    writeCodePoint(Character.isSurrogate(c) ? '?' : c);
+                }
+            }
+        }
+        return i + 1;
+    }
+
+    private void writeCodePoint(int codePoint) throws IOException {
+        if (codePoint < 0x80) {
+            writeByte(codePoint);
+        } else if (codePoint < 0x800) {
+            writeByte(0xC0 | (codePoint >> 6));
+            writeByte(0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            writeByte(0xE0 | (codePoint >> 12));
+            writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+            writeByte(0x80 | (codePoint & 0x3F));
+        } else {
+            writeByte(0xF0 | (codePoint >> 18));
+            writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+            writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+            writeByte(0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void writeAscii(String ascii) throws IOException {
+        for (int i = 0; i < ascii.length(); i++) {
+            writeByte(ascii.charAt(i));
+        }
+    }
+
+    private void write(byte[] encoded) throws IOException {
+        if (encoded.length > bytes.length - position) {
+            flush();
+        }
+        System.arraycopy(encoded, 0, bytes, position, encoded.length);
+        position += encoded.length;
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == bytes.length) {
+            flush();
+        }
+        bytes[position++] = (byte) b;
+    }
+
+    private void flush() throws IOException {
+        buffer.clear().limit(position);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        position = 0;
+    }
+
+    private static boolean isTokenSeparator(char c) {
+        // StringTokenizer's delimiters, minus form feed which dom4j escapes before splitting
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static byte[] ascii(String markup) {
+        return markup.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,34 @@
+package com.cms.projects.transformation.dita.writer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An element or attribute name with its markup encoded to UTF-8 once, up front,
+ * so the emitter copies bytes instead of encoding the same names for every file.
+ */
+final class XmlName {
+
+    private final String name;
+    final byte[] startTag;
+    final byte[] endTag;
+    final byte[] attributePrefix;
+
+    private XmlName(String name) {
+        this.name = name;
+        this.startTag = encode("<" + name);
+        this.endTag = encode("</" + name + ">");
+        this.attributePrefix = encode(" " + name + "=\"");
+    }
+
+    static XmlName of(String name) {
+        return new XmlName(name);
+    }
+
+    String name() {
+        return name;
+    }
+
+    private static byte[] encode(String markup) {
+        return markup.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -22,6 +22,9 @@ public class FolderTransformationResponse {
     private String fileType; // FM or MIF
     private Integer validatedFileCount;
     private List<String> validatedFileNames;
+    
+    // SHA-256 of the uploaded ZIP, when it was hashed on upload
+    private String uploadSha256;
 
     public FolderTransformationResponse() {
     }
@@ -146,5 +149,12 @@ public class FolderTransformationResponse {
     public void setValidatedFileNames(List<String> validatedFileNames) {
         this.validatedFileNames = validatedFileNames;
     }
+    
+    public String getUploadSha256() {
+        return uploadSha256;
+    }
+    
+    public void setUploadSha256(String uploadSha256) {
+        this.uploadSha256 = uploadSha256;
+    }
 }
-
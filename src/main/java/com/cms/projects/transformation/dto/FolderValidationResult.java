@@ -70,5 +70,17 @@ public class FolderValidationResult {
     public List<String> getFileNames() { 
         return fileNames; 
     }
+    
+    /**
+     * The same result with its files resolved against {@code directory}, for a result
+     * read from an archive that has since been extracted there.
+     */
+    public FolderValidationResult resolve(Path directory) {
+        if (!valid) {
+            return this;
+        }
+        List<Path> resolvedFiles = files.stream().map(directory::resolve).toList();
+        return new FolderValidationResult(true, fileType, message, resolvedFiles, fileCount);
+    }
 }
 
@@ -0,0 +1,54 @@
+package com.cms.projects.transformation.dto;
+
+/**
+ * DTO with the state of the transformation job queue and its worker pool
+ */
+public class JobQueueStats {
+
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final int activeWorkers;
+    private final int poolSize;
+    private final int maxPoolSize;
+    private final long completedJobs;
+    private final long rejectedJobs;
+
+    public JobQueueStats(int queueDepth, int queueCapacity, int activeWorkers, int poolSize, int maxPoolSize,
+                         long completedJobs, long rejectedJobs) {
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.activeWorkers = activeWorkers;
+        this.poolSize = poolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.completedJobs = completedJobs;
+        this.rejectedJobs = rejectedJobs;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public long getCompletedJobs() {
+        return completedJobs;
+    }
+
+    public long getRejectedJobs() {
+        return rejectedJobs;
+    }
+}
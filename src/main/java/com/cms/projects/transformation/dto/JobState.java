@@ -0,0 +1,53 @@
+package com.cms.projects.transformation.dto;
+
+import com.cms.projects.transformation.entity.TransformationJob;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO with the part of a job that its status and result endpoints serve: status, output
+ * path, error message and creation time
+ */
+public class JobState {
+
+    private final TransformationJob.TransformationStatus status;
+    private final String outputPath;
+    private final String errorMessage;
+    private final LocalDateTime createdAt;
+
+    public JobState(TransformationJob.TransformationStatus status, String outputPath, String errorMessage,
+                    LocalDateTime createdAt) {
+        this.status = status;
+        this.outputPath = outputPath;
+        this.errorMessage = errorMessage;
+        this.createdAt = createdAt;
+    }
+
+    public static JobState of(TransformationJob job) {
+        return new JobState(job.getStatus(), job.getOutputPath(), job.getErrorMessage(), job.getCreatedAt());
+    }
+
+    public TransformationJob.TransformationStatus getStatus() {
+        return status;
+    }
+
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Whether the job has completed or failed; its state no longer changes.
+     */
+    public boolean isFinished() {
+        return status == TransformationJob.TransformationStatus.COMPLETED
+            || status == TransformationJob.TransformationStatus.FAILED;
+    }
+}
@@ -0,0 +1,42 @@
+package com.cms.projects.transformation.dto;
+
+/**
+ * DTO describing one file of a job's output: its path relative to the output folder,
+ * size, modification time and SHA-256 of its content
+ */
+public class ManifestEntry {
+
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final String sha256;
+
+    public ManifestEntry(String path, long size, long lastModified, String sha256) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * Path relative to the output folder, with '/' separators.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Modification time in epoch milliseconds.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+}
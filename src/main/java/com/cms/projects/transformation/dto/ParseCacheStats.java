@@ -0,0 +1,71 @@
+package com.cms.projects.transformation.dto;
+
+/**
+ * DTO with hit/miss counters and current size of the FrameMaker parse cache
+ */
+public class ParseCacheStats {
+
+    private final long hits;
+    private final long memoryHits;
+    private final long diskHits;
+    private final long misses;
+    private final long evictions;
+    private final int memoryEntries;
+    private final long memoryBytes;
+    private final int diskEntries;
+    private final long diskBytes;
+
+    public ParseCacheStats(long memoryHits, long diskHits, long misses, long evictions,
+                           int memoryEntries, long memoryBytes, int diskEntries, long diskBytes) {
+        this.hits = memoryHits + diskHits;
+        this.memoryHits = memoryHits;
+        this.diskHits = diskHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.memoryEntries = memoryEntries;
+        this.memoryBytes = memoryBytes;
+        this.diskEntries = diskEntries;
+        this.diskBytes = diskBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public long getDiskHits() {
+        return diskHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getMemoryEntries() {
+        return memoryEntries;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public int getDiskEntries() {
+        return diskEntries;
+    }
+
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+}
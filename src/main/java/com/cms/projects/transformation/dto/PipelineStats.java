@@ -0,0 +1,68 @@
+package com.cms.projects.transformation.dto;
+
+/**
+ * DTO with queue depths of the transformation pipeline stages. Depths are summed
+ * over all transformations currently running; capacities are per transformation.
+ */
+public class PipelineStats {
+
+    private final int activeTransformations;
+    private final int sectionQueueCapacity;
+    private final int sectionQueueDepth;
+    private final int sectionQueuePeakDepth;
+    private final long sectionsMapped;
+    private final int writeQueueCapacity;
+    private final int writeQueueDepth;
+    private final int writeQueuePeakDepth;
+    private final long filesWritten;
+
+    public PipelineStats(int activeTransformations,
+                         int sectionQueueCapacity, int sectionQueueDepth, int sectionQueuePeakDepth, long sectionsMapped,
+                         int writeQueueCapacity, int writeQueueDepth, int writeQueuePeakDepth, long filesWritten) {
+        this.activeTransformations = activeTransformations;
+        this.sectionQueueCapacity = sectionQueueCapacity;
+        this.sectionQueueDepth = sectionQueueDepth;
+        this.sectionQueuePeakDepth = sectionQueuePeakDepth;
+        this.sectionsMapped = sectionsMapped;
+        this.writeQueueCapacity = writeQueueCapacity;
+        this.writeQueueDepth = writeQueueDepth;
+        this.writeQueuePeakDepth = writeQueuePeakDepth;
+        this.filesWritten = filesWritten;
+    }
+
+    public int getActiveTransformations() {
+        return activeTransformations;
+    }
+
+    public int getSectionQueueCapacity() {
+        return sectionQueueCapacity;
+    }
+
+    public int getSectionQueueDepth() {
+        return sectionQueueDepth;
+    }
+
+    public int getSectionQueuePeakDepth() {
+        return sectionQueuePeakDepth;
+    }
+
+    public long getSectionsMapped() {
+        return sectionsMapped;
+    }
+
+    public int getWriteQueueCapacity() {
+        return writeQueueCapacity;
+    }
+
+    public int getWriteQueueDepth() {
+        return writeQueueDepth;
+    }
+
+    public int getWriteQueuePeakDepth() {
+        return writeQueuePeakDepth;
+    }
+
+    public long getFilesWritten() {
+        return filesWritten;
+    }
+}
@@ -0,0 +1,29 @@
+package com.cms.projects.transformation.dto;
+
+import java.nio.file.Path;
+
+/**
+ * DTO describing a job's pre-built result archive: the file to serve and its strong ETag,
+ * which is the fingerprint of the output tree the archive was built from
+ */
+public class ResultArchive {
+
+    private final Path path;
+    private final String etag;
+
+    public ResultArchive(Path path, String etag) {
+        this.path = path;
+        this.etag = etag;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Quoted entity tag, ready for the ETag header.
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
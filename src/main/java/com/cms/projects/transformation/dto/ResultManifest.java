@@ -0,0 +1,34 @@
+package com.cms.projects.transformation.dto;
+
+import java.util.List;
+
+/**
+ * DTO listing every file of a job's output. The version is the fingerprint of the output
+ * tree the manifest was built from; it changes whenever a file is added, removed or rewritten.
+ */
+public class ResultManifest {
+
+    private final String version;
+    private final List<ManifestEntry> files;
+
+    public ResultManifest(String version, List<ManifestEntry> files) {
+        this.version = version;
+        this.files = List.copyOf(files);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public long getTotalSize() {
+        return files.stream().mapToLong(ManifestEntry::getSize).sum();
+    }
+
+    public List<ManifestEntry> getFiles() {
+        return files;
+    }
+}
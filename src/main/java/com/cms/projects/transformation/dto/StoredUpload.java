@@ -0,0 +1,41 @@
+package com.cms.projects.transformation.dto;
+
+import java.nio.file.Path;
+
+/**
+ * DTO describing an upload stored in a single pass: where it was written, its size and
+ * SHA-256, and the folder its ZIP entries were extracted to, if it was extracted
+ */
+public class StoredUpload {
+
+    private final String filePath;
+    private final long size;
+    private final String sha256;
+    private final Path extractedDir;
+
+    public StoredUpload(String filePath, long size, String sha256, Path extractedDir) {
+        this.filePath = filePath;
+        this.size = size;
+        this.sha256 = sha256;
+        this.extractedDir = extractedDir;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * Folder the upload was extracted to, or null if it was stored without extracting.
+     */
+    public Path getExtractedDir() {
+        return extractedDir;
+    }
+}
@@ -0,0 +1,21 @@
+package com.cms.projects.transformation.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a ZIP archive has an entry that cannot be extracted safely, e.g. one whose
+ * path points outside the extraction folder or is not a valid file name. The archive
+ * itself is at fault, not the server.
+ */
+public class InvalidZipEntryException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidZipEntryException(String message) {
+        super(message);
+    }
+
+    public InvalidZipEntryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,21 @@
+package com.cms.projects.transformation.exception;
+
+/**
+ * Thrown when a transformation job cannot be accepted because every worker is busy
+ * and the job queue is full. Clients should retry after {@link #getRetryAfterSeconds()}.
+ */
+public class JobQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public JobQueueFullException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
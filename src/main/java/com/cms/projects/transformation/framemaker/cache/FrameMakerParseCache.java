@@ -0,0 +1,578 @@
+package com.cms.projects.transformation.framemaker.cache;
+
+import com.cms.projects.transformation.dto.ParseCacheStats;
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerDocumentBuilder;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerEventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of parse results keyed by the SHA-256 of the input file's bytes.
+ * An entry is the compressed event stream of one parse (see ParseEventCodec), so a hit
+ * can either rebuild the FrameMakerDocument or be replayed straight into a streaming
+ * writer without holding the document in memory. Entries live in a size-bounded LRU
+ * on local disk, and small entries are also kept in a size-bounded in-memory LRU.
+ */
+public class FrameMakerParseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrameMakerParseCache.class);
+
+    private static final String ENTRY_SUFFIX = ".fmpc";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Receives the events of an entry that is only being checked
+    private static final FrameMakerEventHandler NO_EVENTS = new FrameMakerEventHandler() {
+        public void startDocument(String title) { }
+        public void startChapter(FrameMakerChapter chapter) { }
+        public void startSection(FrameMakerSection section) { }
+        public void paragraph(FrameMakerParagraph paragraph) { }
+        public void image(String imageReference) { }
+        public void table(FrameMakerParagraph table) { }
+        public void endSection() { }
+        public void endChapter() { }
+        public void endDocument() { }
+    };
+
+    private final Path directory;
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+
+    // Both maps are in access order: the first entry is the least recently used
+    private final LinkedHashMap<String, byte[]> memoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+    // Entries written or fully decoded by this process; others are checked before a streamed replay
+    private final Set<String> verifiedKeys = new HashSet<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FrameMakerParseCache(Path directory, long maxMemoryBytes, long maxDiskBytes) {
+        this.directory = directory;
+        this.maxMemoryBytes = Math.max(0, maxMemoryBytes);
+        this.maxDiskBytes = Math.max(0, maxDiskBytes);
+        if (isEnabled()) {
+            try {
+                Files.createDirectories(directory);
+                loadDiskIndex();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot initialize parse cache directory: " + directory, e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxMemoryBytes > 0 || maxDiskBytes > 0;
+    }
+
+    /**
+     * Computes the cache key for a file: the hex SHA-256 of its contents.
+     */
+    public String key(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Rebuilds the cached document for a key. A corrupt entry is dropped and counted as a miss.
+     *
+     * @param filePath path recorded on the returned document
+     * @return the document, or null on a cache miss
+     */
+    public FrameMakerDocument get(String key, String filePath) throws IOException {
+        FrameMakerDocumentBuilder builder = new FrameMakerDocumentBuilder(filePath);
+        // The builder is discarded if the entry turns out to be corrupt, so it needs no check first
+        return replay(key, builder, false) ? builder.getDocument() : null;
+    }
+
+    /**
+     * Replays the cached parse for a key into a handler.
+     * An entry that was not written by this process is decoded once without a handler
+     * before its first replay; if it is corrupt, truncated or of another format version
+     * it is dropped and counted as a miss, so the caller parses the source instead.
+     *
+     * @return true on a hit, false on a miss (the handler has not been called)
+     */
+    public boolean replay(String key, FrameMakerEventHandler handler) throws IOException {
+        return replay(key, handler, true);
+    }
+
+    private boolean replay(String key, FrameMakerEventHandler handler, boolean verifyFirst) throws IOException {
+        byte[] bytes = getFromMemory(key);
+        if (bytes != null) {
+            byte[] entry = bytes;
+            if (replayEntry(key, () -> new ByteArrayInputStream(entry), handler, verifyFirst)) {
+                memoryHits.incrementAndGet();
+                return true;
+            }
+        } else {
+            Long size = getFromDisk(key);
+            if (size != null && replayFromDisk(key, size, handler, verifyFirst)) {
+                diskHits.incrementAndGet();
+                return true;
+            }
+        }
+
+        misses.incrementAndGet();
+        return false;
+    }
+
+    private boolean replayFromDisk(String key, long size, FrameMakerEventHandler handler, boolean verifyFirst)
+            throws IOException {
+        Path entry = entryPath(key);
+        try {
+            EntrySource source;
+            byte[] bytes = null;
+            if (fitsInMemory(size)) {
+                bytes = Files.readAllBytes(entry);
+                byte[] read = bytes;
+                source = () -> new ByteArrayInputStream(read);
+            } else {
+                source = () -> new BufferedInputStream(Files.newInputStream(entry), BUFFER_SIZE);
+            }
+            if (!replayEntry(key, source, handler, verifyFirst)) {
+                return false;
+            }
+            if (bytes != null) {
+                putInMemory(key, bytes);
+            }
+            touch(entry);
+            return true;
+        } catch (NoSuchFileException e) {
+            // Evicted or removed by hand since the lookup
+            remove(key);
+            return false;
+        }
+    }
+
+    /**
+     * Replays one entry, dropping it if it can't be decoded. Once the handler has seen events
+     * a failure can no longer be turned into a miss, so it is thrown instead.
+     */
+    private boolean replayEntry(String key, EntrySource source, FrameMakerEventHandler handler, boolean verifyFirst)
+            throws IOException {
+        if (!verifyFirst) {
+            return decodeOrDiscard(key, source, handler);
+        }
+        if (!isVerified(key)) {
+            if (!decodeOrDiscard(key, source, NO_EVENTS)) {
+                return false;
+            }
+            markVerified(key);
+        }
+        try (InputStream in = source.open()) {
+            decode(in, handler);
+        } catch (NoSuchFileException e) {
+            // Nothing replayed yet
+            throw e;
+        } catch (IOException e) {
+            remove(key);
+            throw new IOException("Corrupt parse cache entry " + key + ": " + e.getMessage(), e);
+        }
+        return true;
+    }
+
+    private boolean decodeOrDiscard(String key, EntrySource source, FrameMakerEventHandler handler)
+            throws NoSuchFileException {
+        try (InputStream in = source.open()) {
+            decode(in, handler);
+            return true;
+        } catch (NoSuchFileException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Discarding unreadable parse cache entry {}: {}", key, e.getMessage());
+            remove(key);
+            return false;
+        }
+    }
+
+    /**
+     * Stores a materialized document under a key. Failures are logged, not thrown,
+     * since a cache write must never fail the transformation.
+     */
+    public void put(String key, FrameMakerDocument document) {
+        if (!isEnabled()) {
+            return;
+        }
+        Path temp = tempPath(key);
+        try {
+            try (DataOutputStream out = openEntryStream(temp)) {
+                ParseEventCodec.writeDocument(out, document);
+            }
+            admit(key, temp);
+        } catch (IOException e) {
+            logger.warn("Could not write parse cache entry {}: {}", key, e.getMessage());
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Returns a handler that forwards every event to {@code delegate} while recording
+     * it under {@code key}. The recording is only stored if {@link Recorder#commit()}
+     * is called before the recorder is closed.
+     */
+    public Recorder record(String key, FrameMakerEventHandler delegate) {
+        return new Recorder(key, delegate);
+    }
+
+    public ParseCacheStats getStats() {
+        synchronized (this) {
+            return new ParseCacheStats(memoryHits.get(), diskHits.get(), misses.get(), evictions.get(),
+                memoryEntries.size(), memoryBytes, diskEntries.size(), diskBytes);
+        }
+    }
+
+    private void decode(InputStream in, FrameMakerEventHandler handler) throws IOException {
+        DataInputStream data = new DataInputStream(new GZIPInputStream(in, BUFFER_SIZE));
+        ParseEventCodec.replay(data, handler);
+    }
+
+    private DataOutputStream openEntryStream(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+            new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+    }
+
+    /**
+     * Moves a completed temp file into the cache tiers it fits in.
+     */
+    private void admit(String key, Path temp) throws IOException {
+        long size = Files.size(temp);
+        synchronized (this) {
+            verifiedKeys.add(key);
+        }
+        if (fitsInMemory(size)) {
+            putInMemory(key, Files.readAllBytes(temp));
+        }
+        if (size <= maxDiskBytes) {
+            Files.move(temp, entryPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            putOnDisk(key, size);
+        } else {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private boolean fitsInMemory(long size) {
+        // A single entry may take at most a quarter of the memory budget
+        return size <= maxMemoryBytes / 4;
+    }
+
+    private synchronized boolean isVerified(String key) {
+        return verifiedKeys.contains(key);
+    }
+
+    private synchronized void markVerified(String key) {
+        if (diskEntries.containsKey(key) || memoryEntries.containsKey(key)) {
+            verifiedKeys.add(key);
+        }
+    }
+
+    private synchronized byte[] getFromMemory(String key) {
+        return memoryEntries.get(key);
+    }
+
+    private synchronized Long getFromDisk(String key) {
+        return diskEntries.get(key);
+    }
+
+    private synchronized void putInMemory(String key, byte[] bytes) {
+        byte[] previous = memoryEntries.put(key, bytes);
+        if (previous != null) {
+            memoryBytes -= previous.length;
+        }
+        memoryBytes += bytes.length;
+
+        Iterator<Map.Entry<String, byte[]>> iterator = memoryEntries.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+            Map.Entry<String, byte[]> eldest = iterator.next();
+            memoryBytes -= eldest.getValue().length;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void putOnDisk(String key, long size) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Long previous = diskEntries.put(key, size);
+            if (previous != null) {
+                diskBytes -= previous;
+            }
+            diskBytes += size;
+
+            Iterator<Map.Entry<String, Long>> iterator = diskEntries.entrySet().iterator();
+            while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                diskBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                verifiedKeys.remove(eldest.getKey());
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        evicted.forEach(evictedKey -> deleteQuietly(entryPath(evictedKey)));
+    }
+
+    private void remove(String key) {
+        synchronized (this) {
+            verifiedKeys.remove(key);
+            byte[] bytes = memoryEntries.remove(key);
+            if (bytes != null) {
+                memoryBytes -= bytes.length;
+            }
+            Long size = diskEntries.remove(key);
+            if (size != null) {
+                diskBytes -= size;
+            }
+        }
+        deleteQuietly(entryPath(key));
+    }
+
+    /**
+     * Rebuilds the disk index from the cache directory, oldest entries first,
+     * and removes temp files left behind by an earlier run.
+     */
+    private void loadDiskIndex() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(ENTRY_SUFFIX)) {
+                    entries.add(file);
+                } else if (name.endsWith(TEMP_SUFFIX)) {
+                    deleteQuietly(file);
+                }
+            });
+        }
+        entries.sort(Comparator.comparing(this::lastModified));
+        for (Path entry : entries) {
+            String name = entry.getFileName().toString();
+            putOnDisk(name.substring(0, name.length() - ENTRY_SUFFIX.length()), Files.size(entry));
+        }
+        logger.info("Parse cache loaded from {}: {} entries, {} bytes", directory, diskEntries.size(), diskBytes);
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects eviction order after a restart
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + ENTRY_SUFFIX);
+    }
+
+    private Path tempPath(String key) {
+        return directory.resolve(key + "." + UUID.randomUUID() + TEMP_SUFFIX);
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete parse cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Event handler that records a parse into the cache while passing it on.
+     * Recording problems are logged and stop the recording; they never reach the parse.
+     */
+    public class Recorder implements FrameMakerEventHandler, Closeable {
+
+        private final String key;
+        private final FrameMakerEventHandler delegate;
+        private final Path temp;
+        private DataOutputStream out;
+        private boolean committed;
+
+        private Recorder(String key, FrameMakerEventHandler delegate) {
+            this.key = key;
+            this.delegate = delegate;
+            this.temp = tempPath(key);
+            try {
+                this.out = openEntryStream(temp);
+                ParseEventCodec.writeHeader(out);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void startDocument(String title) {
+            write(data -> ParseEventCodec.startDocument(data, title));
+            delegate.startDocument(title);
+        }
+
+        @Override
+        public void startChapter(FrameMakerChapter chapter) {
+            write(data -> ParseEventCodec.startChapter(data, chapter));
+            delegate.startChapter(chapter);
+        }
+
+        @Override
+        public void startSection(FrameMakerSection section) {
+            write(data -> ParseEventCodec.startSection(data, section));
+            delegate.startSection(section);
+        }
+
+        @Override
+        public void paragraph(FrameMakerParagraph paragraph) {
+            write(data -> ParseEventCodec.paragraph(data, paragraph));
+            delegate.paragraph(paragraph);
+        }
+
+        @Override
+        public void image(String imageReference) {
+            write(data -> ParseEventCodec.image(data, imageReference));
+            delegate.image(imageReference);
+        }
+
+        @Override
+        public void table(FrameMakerParagraph table) {
+            write(data -> ParseEventCodec.table(data, table));
+            delegate.table(table);
+        }
+
+        @Override
+        public void endSection() {
+            write(ParseEventCodec::endSection);
+            delegate.endSection();
+        }
+
+        @Override
+        public void endChapter() {
+            write(ParseEventCodec::endChapter);
+            delegate.endChapter();
+        }
+
+        @Override
+        public void endDocument() {
+            write(ParseEventCodec::endDocument);
+            delegate.endDocument();
+        }
+
+        /**
+         * Stores the recording. Call once the parse has completed successfully.
+         */
+        public void commit() {
+            if (out == null || committed) {
+                return;
+            }
+            try {
+                out.close();
+                out = null;
+                admit(key, temp);
+                committed = true;
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!committed) {
+                closeQuietly();
+                deleteQuietly(temp);
+            }
+        }
+
+        private void write(EventWriter writer) {
+            if (out != null) {
+                try {
+                    writer.write(out);
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+
+        private void fail(IOException e) {
+            logger.warn("Could not record parse cache entry {}: {}", key, e.getMessage());
+            closeQuietly();
+            deleteQuietly(temp);
+        }
+
+        private void closeQuietly() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // The temp file is deleted anyway
+                }
+                out = null;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EventWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface EntrySource {
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,191 @@
+package com.cms.projects.transformation.framemaker.cache;
+
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerEventHandler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a parse as the sequence of FrameMakerEventHandler events.
+ * Each event is one tag byte followed by its fields; strings are length-prefixed UTF-8.
+ * Replaying a stream produces the same events the parser produced when it was recorded.
+ */
+class ParseEventCodec {
+
+    static final int MAGIC = 0x464D5043; // "FMPC"
+    static final int VERSION = 1;
+
+    private static final byte START_DOCUMENT = 1;
+    private static final byte START_CHAPTER = 2;
+    private static final byte START_SECTION = 3;
+    private static final byte PARAGRAPH = 4;
+    private static final byte IMAGE = 5;
+    private static final byte TABLE = 6;
+    private static final byte END_SECTION = 7;
+    private static final byte END_CHAPTER = 8;
+    private static final byte END_DOCUMENT = 9;
+
+    private ParseEventCodec() {
+    }
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    static void startDocument(DataOutputStream out, String title) throws IOException {
+        out.writeByte(START_DOCUMENT);
+        writeString(out, title);
+    }
+
+    static void startChapter(DataOutputStream out, FrameMakerChapter chapter) throws IOException {
+        out.writeByte(START_CHAPTER);
+        writeString(out, chapter.getTitle());
+        writeString(out, chapter.getChapterNumber());
+    }
+
+    static void startSection(DataOutputStream out, FrameMakerSection section) throws IOException {
+        out.writeByte(START_SECTION);
+        writeString(out, section.getTitle());
+        out.writeInt(section.getLevel());
+    }
+
+    static void paragraph(DataOutputStream out, FrameMakerParagraph paragraph) throws IOException {
+        out.writeByte(PARAGRAPH);
+        writeString(out, paragraph.getText());
+        List<String> imageReferences = paragraph.getImageReferences();
+        out.writeInt(imageReferences.size());
+        for (String imageReference : imageReferences) {
+            writeString(out, imageReference);
+        }
+    }
+
+    static void image(DataOutputStream out, String imageReference) throws IOException {
+        out.writeByte(IMAGE);
+        writeString(out, imageReference);
+    }
+
+    static void table(DataOutputStream out, FrameMakerParagraph table) throws IOException {
+        out.writeByte(TABLE);
+        writeString(out, table.getText());
+    }
+
+    static void endSection(DataOutputStream out) throws IOException {
+        out.writeByte(END_SECTION);
+    }
+
+    static void endChapter(DataOutputStream out) throws IOException {
+        out.writeByte(END_CHAPTER);
+    }
+
+    static void endDocument(DataOutputStream out) throws IOException {
+        out.writeByte(END_DOCUMENT);
+    }
+
+    /**
+     * Encodes an already materialized document as the events that would have built it.
+     */
+    static void writeDocument(DataOutputStream out, FrameMakerDocument document) throws IOException {
+        writeHeader(out);
+        startDocument(out, document.getTitle());
+        for (FrameMakerChapter chapter : document.getChapters()) {
+            startChapter(out, chapter);
+            for (FrameMakerSection section : chapter.getSections()) {
+                startSection(out, section);
+                for (FrameMakerParagraph paragraph : section.getParagraphs()) {
+                    if (paragraph.isTable()) {
+                        table(out, paragraph);
+                    } else {
+                        paragraph(out, paragraph);
+                    }
+                }
+                endSection(out);
+            }
+            endChapter(out);
+        }
+        endDocument(out);
+    }
+
+    /**
+     * Replays an encoded parse into a handler.
+     *
+     * @throws IOException if the stream is truncated or was written by another format version
+     */
+    static void replay(DataInputStream in, FrameMakerEventHandler handler) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Unrecognized parse cache entry format");
+        }
+        while (true) {
+            byte tag = in.readByte();
+            switch (tag) {
+                case START_DOCUMENT -> handler.startDocument(readString(in));
+                case START_CHAPTER -> {
+                    FrameMakerChapter chapter = new FrameMakerChapter();
+                    chapter.setTitle(readString(in));
+                    chapter.setChapterNumber(readString(in));
+                    handler.startChapter(chapter);
+                }
+                case START_SECTION -> {
+                    FrameMakerSection section = new FrameMakerSection();
+                    section.setTitle(readString(in));
+                    section.setLevel(in.readInt());
+                    handler.startSection(section);
+                }
+                case PARAGRAPH -> {
+                    FrameMakerParagraph paragraph = new FrameMakerParagraph();
+                    paragraph.setText(readString(in));
+                    int imageCount = in.readInt();
+                    for (int i = 0; i < imageCount; i++) {
+                        paragraph.addImageReference(readString(in));
+                    }
+                    handler.paragraph(paragraph);
+                }
+                case IMAGE -> handler.image(readString(in));
+                case TABLE -> {
+                    FrameMakerParagraph table = new FrameMakerParagraph();
+                    table.setTable(true);
+                    table.setText(readString(in));
+                    handler.table(table);
+                }
+                case END_SECTION -> handler.endSection();
+                case END_CHAPTER -> handler.endChapter();
+                case END_DOCUMENT -> {
+                    handler.endDocument();
+                    return;
+                }
+                default -> throw new IOException("Corrupt parse cache entry: unknown event " + tag);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        // Read as it arrives, so a corrupt length can't allocate more than the entry holds
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Parse cache entry ends inside a string");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+
+/**
+ * Event handler that materializes the full FrameMakerDocument model.
+ * Used when a caller needs the whole document rather than incremental events.
+ */
+public class FrameMakerDocumentBuilder implements FrameMakerEventHandler {
+
+    private final FrameMakerDocument document;
+    private FrameMakerChapter currentChapter;
+    private FrameMakerSection currentSection;
+
+    public FrameMakerDocumentBuilder(String filePath) {
+        this.document = new FrameMakerDocument();
+        this.document.setFilePath(filePath);
+    }
+
+    @Override
+    public void startDocument(String title) {
+        document.setTitle(title);
+    }
+
+    @Override
+    public void startChapter(FrameMakerChapter chapter) {
+        currentChapter = chapter;
+        document.addChapter(chapter);
+    }
+
+    @Override
+    public void startSection(FrameMakerSection section) {
+        currentSection = section;
+        currentChapter.addSection(section);
+    }
+
+    @Override
+    public void paragraph(FrameMakerParagraph paragraph) {
+        currentSection.addParagraph(paragraph);
+    }
+
+    @Override
+    public void image(String imageReference) {
+        FrameMakerParagraph paragraph = new FrameMakerParagraph();
+        paragraph.addImageReference(imageReference);
+        currentSection.addParagraph(paragraph);
+    }
+
+    @Override
+    public void table(FrameMakerParagraph table) {
+        currentSection.addParagraph(table);
+        document.addTableReference("table_" + (document.getTableReferences().size() + 1));
+    }
+
+    @Override
+    public void endSection() {
+        currentSection = null;
+    }
+
+    @Override
+    public void endChapter() {
+        currentChapter = null;
+    }
+
+    @Override
+    public void endDocument() {
+    }
+
+    public FrameMakerDocument getDocument() {
+        return document;
+    }
+}
@@ -0,0 +1,32 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+
+/**
+ * Callback interface for event-based MIF parsing.
+ * Events arrive in document order; chapter and section headers carry their
+ * title and level but no children, content is delivered through the
+ * paragraph, image and table events that follow them.
+ */
+public interface FrameMakerEventHandler {
+
+    void startDocument(String title);
+
+    void startChapter(FrameMakerChapter chapter);
+
+    void startSection(FrameMakerSection section);
+
+    void paragraph(FrameMakerParagraph paragraph);
+
+    void image(String imageReference);
+
+    void table(FrameMakerParagraph table);
+
+    void endSection();
+
+    void endChapter();
+
+    void endDocument();
+}
@@ -0,0 +1,14 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.exception.FrameMakerParseException;
+
+import java.io.File;
+
+/**
+ * A FrameMakerParser that can also report the document as a stream of events
+ * instead of materializing the whole FrameMakerDocument.
+ */
+public interface FrameMakerEventParser extends FrameMakerParser {
+
+    void parse(File file, FrameMakerEventHandler handler) throws FrameMakerParseException;
+}
@@ -0,0 +1,166 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+
+/**
+ * Turns what a parser has read into a well-formed sequence of handler events.
+ * Chapter and section start events are deferred until the first content arrives
+ * so that their titles are known, and content outside an explicit chapter or
+ * section is placed into an implicit one.
+ */
+class FrameMakerEventSequencer {
+
+    private final FrameMakerEventHandler handler;
+
+    private String documentTitle;
+    private boolean documentStarted;
+    private FrameMakerChapter chapter;
+    private boolean chapterStarted;
+    private int chapterCount;
+    private FrameMakerSection section;
+    private boolean sectionStarted;
+
+    FrameMakerEventSequencer(FrameMakerEventHandler handler) {
+        this.handler = handler;
+    }
+
+    void documentTitle(String title) {
+        if (!documentStarted) {
+            documentTitle = title;
+        }
+    }
+
+    boolean hasDocumentTitle() {
+        return documentTitle != null;
+    }
+
+    boolean inChapter() {
+        return chapter != null;
+    }
+
+    void openChapter() {
+        closeChapter();
+        ensureDocumentStarted();
+        chapter = newChapter();
+    }
+
+    void chapterTitle(String title) {
+        if (chapter == null) {
+            openChapter();
+        }
+        if (!chapterStarted) {
+            chapter.setTitle(title);
+        }
+    }
+
+    void openSection() {
+        closeSection();
+        ensureChapterStarted();
+        section = new FrameMakerSection();
+        sectionStarted = false;
+    }
+
+    boolean hasUntitledSection() {
+        return section != null && !sectionStarted;
+    }
+
+    /**
+     * Titles a section that has not produced content yet, or starts a new one.
+     */
+    void heading(String title, int level) {
+        if (!hasUntitledSection()) {
+            openSection();
+        }
+        section.setTitle(title);
+        section.setLevel(level);
+        ensureSectionStarted();
+    }
+
+    void paragraph(FrameMakerParagraph paragraph) {
+        ensureSectionStarted();
+        handler.paragraph(paragraph);
+    }
+
+    void image(String imageReference) {
+        ensureSectionStarted();
+        handler.image(imageReference);
+    }
+
+    void table(FrameMakerParagraph table) {
+        ensureSectionStarted();
+        handler.table(table);
+    }
+
+    void closeSection() {
+        if (section != null) {
+            ensureSectionStarted();
+            handler.endSection();
+            section = null;
+            sectionStarted = false;
+        }
+    }
+
+    void closeChapter() {
+        if (chapter != null) {
+            closeSection();
+            ensureChapterStarted();
+            handler.endChapter();
+            chapter = null;
+            chapterStarted = false;
+        }
+    }
+
+    void finish() {
+        closeChapter();
+        ensureDocumentStarted();
+        handler.endDocument();
+    }
+
+    static boolean isHeading(String paragraphTag) {
+        return paragraphTag != null && paragraphTag.toLowerCase().startsWith("heading");
+    }
+
+    static int headingLevel(String paragraphTag) {
+        char last = paragraphTag.charAt(paragraphTag.length() - 1);
+        return Character.isDigit(last) ? Math.max(1, last - '0') : 1;
+    }
+
+    private FrameMakerChapter newChapter() {
+        FrameMakerChapter newChapter = new FrameMakerChapter();
+        newChapter.setChapterNumber(String.valueOf(++chapterCount));
+        chapterStarted = false;
+        return newChapter;
+    }
+
+    private void ensureDocumentStarted() {
+        if (!documentStarted) {
+            handler.startDocument(documentTitle);
+            documentStarted = true;
+        }
+    }
+
+    private void ensureChapterStarted() {
+        if (chapter == null) {
+            ensureDocumentStarted();
+            chapter = newChapter();
+        }
+        if (!chapterStarted) {
+            handler.startChapter(chapter);
+            chapterStarted = true;
+        }
+    }
+
+    private void ensureSectionStarted() {
+        if (section == null) {
+            ensureChapterStarted();
+            section = new FrameMakerSection();
+        }
+        if (!sectionStarted) {
+            ensureChapterStarted();
+            handler.startSection(section);
+            sectionStarted = true;
+        }
+    }
+}
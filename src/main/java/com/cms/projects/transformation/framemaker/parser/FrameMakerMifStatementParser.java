@@ -0,0 +1,388 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.exception.FrameMakerParseException;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.parser.MifTokenizer.TokenType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parser for MIF files written in the native statement grammar, e.g.
+ * {@code <Para <PgfTag `Body'> <ParaLine <String `text'>>>}.
+ * Paragraph tags drive the structure: a Title paragraph names the document,
+ * Chapter* paragraphs open chapters and Heading* paragraphs open sections.
+ * Anchored tables ({@code ATbl}) and imported graphics ({@code AFrame}) are
+ * resolved against the Tbls and AFrames catalogs, which MIF writes before the text flows.
+ */
+public class FrameMakerMifStatementParser implements FrameMakerEventParser {
+
+    private static final int SNIFF_LENGTH = 64;
+
+    private static final byte[] TBLS = ascii("Tbls");
+    private static final byte[] TBL = ascii("Tbl");
+    private static final byte[] TBL_ID = ascii("TblID");
+    private static final byte[] CELL = ascii("Cell");
+    private static final byte[] AFRAMES = ascii("AFrames");
+    private static final byte[] FRAME = ascii("Frame");
+    private static final byte[] ID = ascii("ID");
+    private static final byte[] IMPORT_OB_FILE_DI = ascii("ImportObFileDI");
+    private static final byte[] IMPORT_OB_FILE = ascii("ImportObFile");
+    private static final byte[] TEXT_FLOW = ascii("TextFlow");
+    private static final byte[] TF_TAG = ascii("TFTag");
+    private static final byte[] PARA = ascii("Para");
+    private static final byte[] PGF_TAG = ascii("PgfTag");
+    private static final byte[] PARA_LINE = ascii("ParaLine");
+    private static final byte[] STRING = ascii("String");
+    private static final byte[] CHAR = ascii("Char");
+    private static final byte[] ATBL = ascii("ATbl");
+    private static final byte[] AFRAME = ascii("AFrame");
+    private static final byte[] TAB = ascii("Tab");
+    private static final byte[] HARD_SPACE = ascii("HardSpace");
+
+    @Override
+    public boolean supports(File file) {
+        if (file == null || !file.getName().toLowerCase().endsWith(".mif")) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            String prefix = new String(in.readNBytes(SNIFF_LENGTH), StandardCharsets.UTF_8).stripLeading();
+            return prefix.startsWith("<MIFFile ")
+                && prefix.length() > 9
+                && Character.isDigit(prefix.charAt(9));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public FrameMakerDocument parse(File file) throws FrameMakerParseException {
+        FrameMakerDocumentBuilder builder = new FrameMakerDocumentBuilder(file.getPath());
+        parse(file, builder);
+        return builder.getDocument();
+    }
+
+    @Override
+    public void parse(File file, FrameMakerEventHandler handler) throws FrameMakerParseException {
+        try (MifTokenizer tokenizer = new MifTokenizer(file.toPath())) {
+            new StatementReader(tokenizer, handler).run();
+        } catch (IOException e) {
+            throw new FrameMakerParseException("Error parsing MIF file: " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Converts a device-independent MIF path ({@code <c\>images<c\>figure.eps}) to a plain path.
+     */
+    static String toFilePath(String diPath) {
+        List<String> components = new ArrayList<>();
+        boolean absolute = false;
+        int i = diPath.indexOf('<');
+        while (i >= 0 && i + 2 < diPath.length() && diPath.charAt(i + 2) == '>') {
+            int next = diPath.indexOf('<', i + 3);
+            String component = diPath.substring(i + 3, next < 0 ? diPath.length() : next);
+            switch (diPath.charAt(i + 1)) {
+                case 'r' -> absolute = true;
+                case 'u' -> components.add("..");
+                case 'c' -> components.add(component);
+                default -> {
+                    // Volume and host names have no meaning outside the authoring machine
+                }
+            }
+            i = next;
+        }
+        if (components.isEmpty()) {
+            return diPath;
+        }
+        return (absolute ? "/" : "") + String.join("/", components);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Recursive-descent reader over the token stream. Each read* method is entered
+     * just after the START token of its statement and returns after the matching END.
+     */
+    private static class StatementReader {
+
+        private final MifTokenizer tokenizer;
+        private final FrameMakerEventSequencer sequencer;
+        private final Map<Integer, String> tables;
+        private final Map<Integer, String> frames;
+        private final StringBuilder text;
+
+        StatementReader(MifTokenizer tokenizer, FrameMakerEventHandler handler) {
+            this.tokenizer = tokenizer;
+            this.sequencer = new FrameMakerEventSequencer(handler);
+            this.tables = new HashMap<>();
+            this.frames = new HashMap<>();
+            this.text = new StringBuilder();
+        }
+
+        void run() throws IOException {
+            TokenType token;
+            while ((token = tokenizer.next()) != TokenType.EOF) {
+                if (token != TokenType.START) {
+                    continue;
+                }
+                if (tokenizer.is(TBLS)) {
+                    readCatalog(TBL);
+                } else if (tokenizer.is(AFRAMES)) {
+                    readCatalog(FRAME);
+                } else if (tokenizer.is(TEXT_FLOW)) {
+                    readTextFlow();
+                } else {
+                    tokenizer.skipStatement();
+                }
+            }
+            sequencer.finish();
+        }
+
+        private void readCatalog(byte[] entryTag) throws IOException {
+            int depth = 1;
+            while (depth > 0) {
+                TokenType token = tokenizer.next();
+                if (token == TokenType.START) {
+                    if (tokenizer.is(entryTag)) {
+                        if (entryTag == TBL) {
+                            readTable();
+                        } else {
+                            readFrame();
+                        }
+                    } else {
+                        tokenizer.skipStatement();
+                    }
+                } else if (token == TokenType.END) {
+                    depth--;
+                } else if (token == TokenType.EOF) {
+                    return;
+                }
+            }
+        }
+
+        private void readTable() throws IOException {
+            int id = -1;
+            List<String> cells = new ArrayList<>();
+            int depth = 1;
+            while (depth > 0) {
+                TokenType token = tokenizer.next();
+                if (token == TokenType.START) {
+                    if (depth == 1 && tokenizer.is(TBL_ID)) {
+                        id = readInt();
+                    } else if (tokenizer.is(CELL)) {
+                        text.setLength(0);
+                        readText();
+                        cells.add(text.toString().trim());
+                    } else {
+                        depth++;
+                    }
+                } else if (token == TokenType.END) {
+                    depth--;
+                } else if (token == TokenType.EOF) {
+                    break;
+                }
+            }
+            if (id >= 0) {
+                tables.put(id, String.join(" | ", cells));
+            }
+        }
+
+        private void readFrame() throws IOException {
+            int id = -1;
+            String path = null;
+            int depth = 1;
+            while (depth > 0) {
+                TokenType token = tokenizer.next();
+                if (token == TokenType.START) {
+                    if (depth == 1 && tokenizer.is(ID)) {
+                        id = readInt();
+                    } else if (tokenizer.is(IMPORT_OB_FILE_DI)) {
+                        path = toFilePath(readString());
+                    } else if (tokenizer.is(IMPORT_OB_FILE) && path == null) {
+                        path = readString();
+                    } else if (tokenizer.is(FRAME)) {
+                        readFrame();
+                    } else {
+                        depth++;
+                    }
+                } else if (token == TokenType.END) {
+                    depth--;
+                } else if (token == TokenType.EOF) {
+                    break;
+                }
+            }
+            if (id >= 0 && path != null && !path.isBlank()) {
+                frames.put(id, path);
+            }
+        }
+
+        private void readTextFlow() throws IOException {
+            int depth = 1;
+            while (depth > 0) {
+                TokenType token = tokenizer.next();
+                if (token == TokenType.START) {
+                    if (depth == 1 && tokenizer.is(TF_TAG)) {
+                        if (!"A".equals(readString())) {
+                            // Only the main body flow carries document content
+                            tokenizer.skipStatement();
+                            return;
+                        }
+                    } else if (tokenizer.is(PARA)) {
+                        readPara();
+                    } else {
+                        depth++;
+                    }
+                } else if (token == TokenType.END) {
+                    depth--;
+                } else if (token == TokenType.EOF) {
+                    return;
+                }
+            }
+        }
+
+        private void readPara() throws IOException {
+            String paragraphTag = null;
+            List<Integer> tableIds = new ArrayList<>();
+            List<Integer> frameIds = new ArrayList<>();
+            text.setLength(0);
+
+            int depth = 1;
+            while (depth > 0) {
+                TokenType token = tokenizer.next();
+                if (token == TokenType.START) {
+                    if (depth == 1 && tokenizer.is(PGF_TAG)) {
+                        paragraphTag = readString();
+                    } else if (tokenizer.is(PARA_LINE)) {
+                        readParaLine(tableIds, frameIds);
+                    } else {
+                        tokenizer.skipStatement();
+                    }
+                } else if (token == TokenType.END) {
+                    depth--;
+                } else if (token == TokenType.EOF) {
+                    break;
+                }
+            }
+
+            emit(paragraphTag, text.toString().trim(), tableIds, frameIds);
+        }
+
+        private void readParaLine(List<Integer> tableIds, List<Integer> frameIds) throws IOException {
+            int depth = 1;
+            while (depth > 0) {
+                TokenType token = tokenizer.next();
+                if (token == TokenType.START) {
+                    if (tokenizer.is(STRING)) {
+                        text.append(readString());
+                    } else if (tokenizer.is(CHAR)) {
+                        appendChar();
+                    } else if (tokenizer.is(ATBL)) {
+                        tableIds.add(readInt());
+                    } else if (tokenizer.is(AFRAME)) {
+                        frameIds.add(readInt());
+                    } else {
+                        tokenizer.skipStatement();
+                    }
+                } else if (token == TokenType.END) {
+                    depth--;
+                } else if (token == TokenType.EOF) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Appends the text of every String and Char inside the current statement.
+         */
+        private void readText() throws IOException {
+            int depth = 1;
+            while (depth > 0) {
+                TokenType token = tokenizer.next();
+                if (token == TokenType.START) {
+                    if (tokenizer.is(STRING)) {
+                        text.append(readString());
+                    } else if (tokenizer.is(CHAR)) {
+                        appendChar();
+                    } else {
+                        if (tokenizer.is(PARA) && text.length() > 0) {
+                            text.append(' ');
+                        }
+                        depth++;
+                    }
+                } else if (token == TokenType.END) {
+                    depth--;
+                } else if (token == TokenType.EOF) {
+                    return;
+                }
+            }
+        }
+
+        private void emit(String paragraphTag, String paragraphText, List<Integer> tableIds, List<Integer> frameIds) {
+            if (paragraphTag != null && paragraphTag.equalsIgnoreCase("Title")
+                    && !sequencer.inChapter() && !sequencer.hasDocumentTitle()) {
+                sequencer.documentTitle(paragraphText);
+            } else if (paragraphTag != null && paragraphTag.toLowerCase().startsWith("chapter")) {
+                sequencer.openChapter();
+                sequencer.chapterTitle(paragraphText);
+            } else if (FrameMakerEventSequencer.isHeading(paragraphTag)) {
+                sequencer.heading(paragraphText, FrameMakerEventSequencer.headingLevel(paragraphTag));
+            } else if (!paragraphText.isEmpty()) {
+                FrameMakerParagraph paragraph = new FrameMakerParagraph();
+                paragraph.setText(paragraphText);
+                sequencer.paragraph(paragraph);
+            }
+
+            for (Integer tableId : tableIds) {
+                FrameMakerParagraph table = new FrameMakerParagraph();
+                table.setTable(true);
+                table.setText(tables.getOrDefault(tableId, ""));
+                sequencer.table(table);
+            }
+            for (Integer frameId : frameIds) {
+                String imagePath = frames.get(frameId);
+                if (imagePath != null) {
+                    sequencer.image(imagePath);
+                }
+            }
+        }
+
+        private void appendChar() throws IOException {
+            if (tokenizer.next() == TokenType.ATOM) {
+                if (tokenizer.is(TAB)) {
+                    text.append('\t');
+                } else if (tokenizer.is(HARD_SPACE)) {
+                    text.append(' ');
+                }
+                tokenizer.skipStatement();
+            }
+        }
+
+        private String readString() throws IOException {
+            if (tokenizer.next() == TokenType.END) {
+                return "";
+            }
+            String value = tokenizer.text();
+            tokenizer.skipStatement();
+            return value;
+        }
+
+        private int readInt() throws IOException {
+            if (tokenizer.next() == TokenType.END) {
+                return -1;
+            }
+            int value = tokenizer.intValue();
+            tokenizer.skipStatement();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.exception.FrameMakerParseException;
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+import org.apache.commons.io.input.BoundedInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parses the chapters of an XML-flavoured MIF file concurrently.
+ * A byte-level pre-scan finds each chapter's range in the file; chapters are then
+ * parsed independently on a worker pool and their events are replayed to the
+ * handler in document order, so consumers see exactly the sequence a sequential
+ * parse would produce. Only a bounded window of parsed chapters is held at once.
+ * Files that cannot be split cleanly (one chapter, or content outside chapters)
+ * are parsed sequentially, and so is the rest of a file once a chapter range turns
+ * out not to hold exactly one chapter.
+ */
+public class FrameMakerParallelMifParser implements FrameMakerEventParser {
+
+    private final FrameMakerStreamingMifParser streamingParser;
+    private final MifChapterScanner scanner;
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    public FrameMakerParallelMifParser() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public FrameMakerParallelMifParser(int parallelism) {
+        this.streamingParser = new FrameMakerStreamingMifParser();
+        this.scanner = new MifChapterScanner();
+        this.parallelism = Math.max(1, parallelism);
+        this.pool = new ForkJoinPool(this.parallelism);
+    }
+
+    @Override
+    public boolean supports(File file) {
+        return streamingParser.supports(file);
+    }
+
+    @Override
+    public FrameMakerDocument parse(File file) throws FrameMakerParseException {
+        FrameMakerDocumentBuilder builder = new FrameMakerDocumentBuilder(file.getPath());
+        parse(file, builder);
+        return builder.getDocument();
+    }
+
+    @Override
+    public void parse(File file, FrameMakerEventHandler handler) throws FrameMakerParseException {
+        Path path = file.toPath();
+        MifChapterScanner.ChapterScan scan;
+        try {
+            scan = scanner.scan(path);
+        } catch (IOException e) {
+            throw new FrameMakerParseException("Error scanning MIF file: " + file.getName(), e);
+        }
+
+        if (parallelism < 2 || scan.chapters().size() < 2 || scan.looseContent()) {
+            streamingParser.parse(file, handler);
+            return;
+        }
+
+        try {
+            handler.startDocument(readDocumentTitle(path, scan.headerEnd()));
+            replayChapters(path, scan, handler);
+            handler.endDocument();
+        } catch (IOException e) {
+            throw new FrameMakerParseException("Error parsing MIF file: " + file.getName(), e);
+        }
+    }
+
+    private String readDocumentTitle(Path path, long headerEnd) throws IOException {
+        try (InputStream in = openRange(path, 0, headerEnd)) {
+            return streamingParser.readDocumentTitle(in);
+        }
+    }
+
+    /**
+     * Keeps up to twice the pool size of chapters in flight and replays each one
+     * as soon as it and every chapter before it have been parsed.
+     */
+    private void replayChapters(Path path, MifChapterScanner.ChapterScan scan,
+                                FrameMakerEventHandler handler) throws FrameMakerParseException {
+        List<MifChapterScanner.ChapterRange> chapters = scan.chapters();
+        Deque<Future<List<FrameMakerChapter>>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        int chapterNumber = 1;
+        try {
+            while (next < chapters.size() || !inFlight.isEmpty()) {
+                while (next < chapters.size() && inFlight.size() < parallelism * 2) {
+                    MifChapterScanner.ChapterRange range = chapters.get(next++);
+                    inFlight.add(pool.submit(() -> parseChapter(path, scan.prologEnd(), range)));
+                }
+                List<FrameMakerChapter> parsed = inFlight.poll().get();
+                if (parsed.size() != 1) {
+                    // The scan split the file where the parser does not; drop the split from here on
+                    inFlight.forEach(future -> future.cancel(true));
+                    streamingParser.parse(path.toFile(), new RemainingChapters(handler, chapterNumber - 1));
+                    return;
+                }
+                replayChapter(parsed.get(0), chapterNumber++, handler);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FrameMakerParseException("Interrupted while parsing MIF chapters", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new FrameMakerParseException("Error parsing MIF chapter: " + cause.getMessage(), cause);
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Parses one chapter as a document of its own, behind the file's XML declaration so
+     * that it is decoded with the declared encoding.
+     */
+    private List<FrameMakerChapter> parseChapter(Path path, long prologEnd, MifChapterScanner.ChapterRange range)
+            throws Exception {
+        FrameMakerDocumentBuilder builder = new FrameMakerDocumentBuilder(path.toString());
+        InputStream chapter = openRange(path, range.start(), range.end());
+        try (InputStream in = prologEnd > 0 ? new SequenceInputStream(openRange(path, 0, prologEnd), chapter) : chapter) {
+            streamingParser.parse(in, builder);
+        }
+        return builder.getDocument().getChapters();
+    }
+
+    private void replayChapter(FrameMakerChapter chapter, int chapterNumber, FrameMakerEventHandler handler) {
+        FrameMakerChapter header = new FrameMakerChapter();
+        header.setTitle(chapter.getTitle());
+        header.setChapterNumber(String.valueOf(chapterNumber));
+        handler.startChapter(header);
+
+        for (FrameMakerSection section : chapter.getSections()) {
+            FrameMakerSection sectionHeader = new FrameMakerSection();
+            sectionHeader.setTitle(section.getTitle());
+            sectionHeader.setLevel(section.getLevel());
+            handler.startSection(sectionHeader);
+
+            for (FrameMakerParagraph paragraph : section.getParagraphs()) {
+                if (paragraph.isTable()) {
+                    handler.table(paragraph);
+                } else if (isImageOnly(paragraph)) {
+                    handler.image(paragraph.getImageReferences().get(0));
+                } else {
+                    handler.paragraph(paragraph);
+                }
+            }
+            handler.endSection();
+        }
+        handler.endChapter();
+    }
+
+    private boolean isImageOnly(FrameMakerParagraph paragraph) {
+        return paragraph.getText() == null && paragraph.getImageReferences().size() == 1;
+    }
+
+    private InputStream openRange(Path path, long start, long end) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        channel.position(start);
+        return new BoundedInputStream(new BufferedInputStream(Channels.newInputStream(channel)), end - start);
+    }
+
+    /**
+     * Passes on the events of a sequential parse after its first {@code replayed} chapters,
+     * which have already been replayed, leaving out the document events.
+     */
+    private static final class RemainingChapters implements FrameMakerEventHandler {
+
+        private final FrameMakerEventHandler handler;
+        private int toSkip;
+        private boolean skipping;
+
+        RemainingChapters(FrameMakerEventHandler handler, int replayed) {
+            this.handler = handler;
+            this.toSkip = replayed;
+        }
+
+        @Override
+        public void startDocument(String title) {
+        }
+
+        @Override
+        public void startChapter(FrameMakerChapter chapter) {
+            if (toSkip > 0) {
+                toSkip--;
+                skipping = true;
+            } else {
+                handler.startChapter(chapter);
+            }
+        }
+
+        @Override
+        public void startSection(FrameMakerSection section) {
+            if (!skipping) {
+                handler.startSection(section);
+            }
+        }
+
+        @Override
+        public void paragraph(FrameMakerParagraph paragraph) {
+            if (!skipping) {
+                handler.paragraph(paragraph);
+            }
+        }
+
+        @Override
+        public void image(String imageReference) {
+            if (!skipping) {
+                handler.image(imageReference);
+            }
+        }
+
+        @Override
+        public void table(FrameMakerParagraph table) {
+            if (!skipping) {
+                handler.table(table);
+            }
+        }
+
+        @Override
+        public void endSection() {
+            if (!skipping) {
+                handler.endSection();
+            }
+        }
+
+        @Override
+        public void endChapter() {
+            if (skipping) {
+                skipping = false;
+            } else {
+                handler.endChapter();
+            }
+        }
+
+        @Override
+        public void endDocument() {
+        }
+    }
+}
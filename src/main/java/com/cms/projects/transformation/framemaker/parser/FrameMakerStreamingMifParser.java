@@ -0,0 +1,226 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.exception.FrameMakerParseException;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pull parser for XML-flavoured MIF files.
+ * Instead of building the whole document in memory it reports chapters,
+ * sections, paragraphs, images and tables to a FrameMakerEventHandler as they
+ * are read, so a consumer only has to hold the section it is working on.
+ */
+public class FrameMakerStreamingMifParser implements FrameMakerEventParser {
+
+    private static final int SNIFF_LENGTH = 64;
+
+    private final XMLInputFactory inputFactory;
+
+    public FrameMakerStreamingMifParser() {
+        this.inputFactory = XMLInputFactory.newInstance();
+        this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        this.inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    @Override
+    public boolean supports(File file) {
+        if (file == null || !file.getName().toLowerCase().endsWith(".mif")) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            byte[] head = in.readNBytes(SNIFF_LENGTH);
+            String prefix = new String(head, StandardCharsets.UTF_8).stripLeading();
+            if (prefix.startsWith("\uFEFF")) {
+                prefix = prefix.substring(1);
+            }
+            return prefix.startsWith("<?xml") || prefix.startsWith("<MIFFile Version=");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public FrameMakerDocument parse(File file) throws FrameMakerParseException {
+        FrameMakerDocumentBuilder builder = new FrameMakerDocumentBuilder(file.getPath());
+        parse(file, builder);
+        return builder.getDocument();
+    }
+
+    @Override
+    public void parse(File file, FrameMakerEventHandler handler) throws FrameMakerParseException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            parse(in, handler);
+        } catch (XMLStreamException | IOException e) {
+            throw new FrameMakerParseException("Error parsing MIF file: " + file.getName(), e);
+        }
+    }
+
+    void parse(InputStream in, FrameMakerEventHandler handler) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+        try {
+            new EventDispatcher(reader, handler).run();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the document title from the start of a file without parsing further.
+     * The input may be a truncated prefix of the document.
+     */
+    String readDocumentTitle(InputStream in) {
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        if ("Title".equals(reader.getLocalName())) {
+                            return reader.getElementText().trim();
+                        }
+                        if ("Chapter".equals(reader.getLocalName())) {
+                            return null;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            // A prefix ends inside open elements; whatever was read before that is all there is
+        }
+        return null;
+    }
+
+    /**
+     * Walks the StAX stream once and turns element boundaries into handler events.
+     */
+    private static class EventDispatcher {
+
+        private final XMLStreamReader reader;
+        private final FrameMakerEventSequencer sequencer;
+
+        EventDispatcher(XMLStreamReader reader, FrameMakerEventHandler handler) {
+            this.reader = reader;
+            this.sequencer = new FrameMakerEventSequencer(handler);
+        }
+
+        void run() throws XMLStreamException {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    startElement(reader.getLocalName());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    endElement(reader.getLocalName());
+                }
+            }
+            sequencer.finish();
+        }
+
+        private void startElement(String name) throws XMLStreamException {
+            switch (name) {
+                case "Title" -> {
+                    String text = readElementText();
+                    if (!sequencer.inChapter()) {
+                        sequencer.documentTitle(text);
+                    }
+                }
+                case "Chapter" -> sequencer.openChapter();
+                case "ChapterTitle" -> sequencer.chapterTitle(readElementText());
+                case "Section" -> sequencer.openSection();
+                case "Para" -> {
+                    String format = reader.getAttributeValue(null, "Format");
+                    String text = readElementText();
+                    if (sequencer.hasUntitledSection() && isHeading(format)) {
+                        sequencer.heading(text, headingLevel(format));
+                    } else {
+                        FrameMakerParagraph paragraph = new FrameMakerParagraph();
+                        paragraph.setText(text);
+                        sequencer.paragraph(paragraph);
+                    }
+                }
+                case "Image" -> {
+                    String imageFile = reader.getAttributeValue(null, "ImageFile");
+                    if (imageFile != null && !imageFile.isBlank()) {
+                        sequencer.image(imageFile);
+                    }
+                }
+                case "Table" -> sequencer.table(readTable());
+                default -> {
+                    // Structural wrappers (MIFFile, Document, ...) carry no content of their own
+                }
+            }
+        }
+
+        private void endElement(String name) {
+            if ("Section".equals(name)) {
+                sequencer.closeSection();
+            } else if ("Chapter".equals(name)) {
+                sequencer.closeChapter();
+            }
+        }
+
+        /**
+         * Reads the text content of the current element, skipping nested markup.
+         */
+        private String readElementText() throws XMLStreamException {
+            StringBuilder text = new StringBuilder();
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    text.append(reader.getText());
+                }
+            }
+            return text.toString().trim();
+        }
+
+        private FrameMakerParagraph readTable() throws XMLStreamException {
+            List<String> cells = new ArrayList<>();
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if ("Cell".equals(reader.getLocalName())) {
+                        cells.add(readElementText());
+                    } else {
+                        depth++;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+
+            FrameMakerParagraph table = new FrameMakerParagraph();
+            table.setTable(true);
+            table.setText(String.join(" | ", cells));
+            return table;
+        }
+
+        private boolean isHeading(String format) {
+            return FrameMakerEventSequencer.isHeading(format);
+        }
+
+        private int headingLevel(String format) {
+            return FrameMakerEventSequencer.headingLevel(format);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Byte-level pre-scan of an XML-flavoured MIF file that finds where each
+ * {@code <Chapter>} element starts and ends, without building any XML events.
+ * Comments, CDATA sections, processing instructions and declarations are skipped,
+ * so markup quoted inside them is not mistaken for a chapter.
+ */
+class MifChapterScanner {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_NAME_LENGTH = 16;
+
+    private static final byte[] CHAPTER = "Chapter".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHAPTER_END = "/Chapter".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] XML_TARGET = "xml".getBytes(StandardCharsets.US_ASCII);
+    private static final int UTF8_BOM_LENGTH = 3;
+    private static final List<byte[]> CONTENT_TAGS = List.of(
+        "Section".getBytes(StandardCharsets.US_ASCII),
+        "Para".getBytes(StandardCharsets.US_ASCII),
+        "Image".getBytes(StandardCharsets.US_ASCII),
+        "Table".getBytes(StandardCharsets.US_ASCII)
+    );
+
+    /**
+     * Byte range [start, end) of one chapter element.
+     */
+    record ChapterRange(long start, long end) {
+    }
+
+    /**
+     * Result of a scan. Content outside any chapter cannot be parsed per chapter,
+     * so callers fall back to a sequential parse when {@code looseContent} is set.
+     * {@code prologEnd} is the end of the XML declaration (and byte order mark) at the
+     * start of the file, or 0 if there is none; chapters are parsed behind it so they
+     * are decoded with the file's declared encoding.
+     */
+    record ChapterScan(List<ChapterRange> chapters, boolean looseContent, long prologEnd) {
+        long headerEnd() {
+            return chapters.isEmpty() ? 0 : chapters.get(0).start();
+        }
+    }
+
+    ChapterScan scan(Path file) throws IOException {
+        List<ChapterRange> chapters = new ArrayList<>();
+        boolean looseContent = false;
+        long chapterStart = -1;
+        long prologEnd = 0;
+
+        byte[] name = new byte[MAX_NAME_LENGTH];
+
+        try (CountingInput in = new CountingInput(Files.newInputStream(file))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '<') {
+                    continue;
+                }
+                long tagStart = in.offset - 1;
+                int first = in.read();
+                if (first == '?') {
+                    // Only the XML declaration may come before anything else, a byte order mark aside
+                    boolean declaration = skipProcessingInstruction(in);
+                    if (declaration && tagStart <= UTF8_BOM_LENGTH) {
+                        prologEnd = in.offset;
+                    }
+                    continue;
+                }
+                if (first == '!') {
+                    skipDeclaration(in);
+                    continue;
+                }
+
+                // The whole name is read, so <Chapter1> or <Chapter-x> is not taken for <Chapter>
+                int nameLength = 0;
+                int next = first;
+                if (next == '/') {
+                    name[nameLength++] = (byte) next;
+                    next = in.read();
+                }
+                while (next != -1 && isNameByte(next)) {
+                    if (nameLength < name.length) {
+                        name[nameLength] = (byte) next;
+                    }
+                    nameLength++;
+                    next = in.read();
+                }
+                // Longer names than the buffer holds match none of the tags looked for
+                byte[] tag = nameLength <= name.length ? Arrays.copyOf(name, nameLength) : new byte[0];
+                if (chapterStart < 0 && Arrays.equals(tag, CHAPTER)) {
+                    chapterStart = tagStart;
+                } else if (chapterStart >= 0 && Arrays.equals(tag, CHAPTER_END) && next == '>') {
+                    chapters.add(new ChapterRange(chapterStart, in.offset));
+                    chapterStart = -1;
+                } else if (chapterStart < 0 && isContentTag(tag)) {
+                    looseContent = true;
+                }
+            }
+        }
+
+        if (chapterStart >= 0) {
+            // Unterminated chapter: let the sequential parser report the error
+            looseContent = true;
+        }
+        return new ChapterScan(chapters, looseContent, prologEnd);
+    }
+
+    /**
+     * Skips a processing instruction whose {@code <?} has just been read.
+     *
+     * @return Whether it was the XML declaration
+     */
+    private boolean skipProcessingInstruction(CountingInput in) throws IOException {
+        byte[] target = new byte[XML_TARGET.length + 1];
+        int targetLength = 0;
+        int next;
+        while ((next = in.read()) != -1 && isNameByte(next) && targetLength < target.length) {
+            target[targetLength++] = (byte) next;
+        }
+        // The byte after the target may already be the '?' of "?>"
+        skipPast(in, "?>", next == '?' ? 1 : 0);
+        return Arrays.equals(target, 0, targetLength, XML_TARGET, 0, XML_TARGET.length)
+            && (next == '?' || Character.isWhitespace(next));
+    }
+
+    /**
+     * Skips a comment, CDATA section or declaration whose {@code <!} has just been read.
+     */
+    private void skipDeclaration(CountingInput in) throws IOException {
+        int next = in.read();
+        if (next == '-') {
+            skipPast(in, "-->", 0);
+        } else if (next == '[') {
+            skipPast(in, "]]>", 0);
+        } else if (next != '>') {
+            skipPast(in, ">", 0);
+        }
+    }
+
+    private void skipPast(CountingInput in, String terminator, int matched) throws IOException {
+        byte[] end = terminator.getBytes(StandardCharsets.US_ASCII);
+        int b;
+        while (matched < end.length && (b = in.read()) != -1) {
+            if (b == end[matched]) {
+                matched++;
+            } else if (b != end[0]) {
+                matched = 0;
+            } else if (matched == 0 || end[matched - 1] != end[0]) {
+                // Only a run of the first byte ("--->", "]]]>") keeps a longer partial match
+                matched = 1;
+            }
+        }
+    }
+
+    private boolean isContentTag(byte[] tag) {
+        for (byte[] contentTag : CONTENT_TAGS) {
+            if (Arrays.equals(tag, contentTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a byte may be part of an XML name. Bytes of multi-byte characters all count,
+     * so that a name is never cut short in the middle.
+     */
+    private static boolean isNameByte(int b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9')
+            || b == '_' || b == '-' || b == '.' || b == ':' || b >= 0x80;
+    }
+
+    /**
+     * Buffered input that tracks the offset of the next byte.
+     */
+    private static final class CountingInput implements AutoCloseable {
+
+        private final InputStream in;
+        private long offset;
+
+        CountingInput(InputStream in) {
+            this.in = new BufferedInputStream(in, BUFFER_SIZE);
+        }
+
+        int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                offset++;
+            }
+            return b;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Byte-level tokenizer for the MIF statement grammar ({@code <Tag value ...>}).
+ * The file is read through a memory-mapped window that slides forward as tokens
+ * are consumed, so files larger than 2 GB are walked one mapped segment at a time.
+ * Tokens are exposed as offset/length slices of the mapping; nothing is allocated
+ * per token unless the caller asks for a decoded value.
+ */
+public class MifTokenizer implements Closeable {
+
+    public enum TokenType {
+        /** {@code <Tag}: the slice is the tag name */
+        START,
+        /** {@code >} closing the innermost statement */
+        END,
+        /** {@code `text'}: the slice is the raw text between the quotes */
+        STRING,
+        /** Any other unquoted value (numbers, keywords, units) */
+        ATOM,
+        EOF
+    }
+
+    static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+    private int position;
+    private boolean atLineStart;
+    private int unitStart;
+    private boolean unitAtLineStart;
+
+    private TokenType type;
+    private int tokenOffset;
+    private int tokenLength;
+    private byte[] scratch;
+
+    public MifTokenizer(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.READ), DEFAULT_WINDOW_SIZE);
+    }
+
+    MifTokenizer(FileChannel channel, int windowSize) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+        this.scratch = new byte[256];
+        this.atLineStart = true;
+        map(0);
+    }
+
+    /**
+     * Advances to the next token. The previous token's slice is invalid afterwards.
+     */
+    public TokenType next() throws IOException {
+        while (true) {
+            TokenType scanned = scan();
+            if (scanned != null) {
+                type = scanned;
+                return scanned;
+            }
+            // The window ended inside a token or comment: remap so it starts at the window origin
+            long absoluteStart = windowStart + unitStart;
+            if (windowStart + windowLimit >= fileSize) {
+                throw new IOException("Unexpected end of MIF file at offset " + absoluteStart);
+            }
+            if (unitStart == 0) {
+                throw new IOException("MIF token at offset " + absoluteStart + " exceeds the mapping window");
+            }
+            map(absoluteStart);
+            atLineStart = unitAtLineStart;
+        }
+    }
+
+    public TokenType type() {
+        return type;
+    }
+
+    /** Absolute file offset of the current token slice. */
+    public long offset() {
+        return windowStart + tokenOffset;
+    }
+
+    public int length() {
+        return tokenLength;
+    }
+
+    /** Compares the current slice with an ASCII name without decoding it. */
+    public boolean is(byte[] name) {
+        if (name.length != tokenLength) {
+            return false;
+        }
+        for (int i = 0; i < tokenLength; i++) {
+            if (window.get(tokenOffset + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isStart(byte[] tag) {
+        return type == TokenType.START && is(tag);
+    }
+
+    /** Parses the current slice as a (possibly signed) integer; trailing units are ignored. */
+    public int intValue() {
+        int value = 0;
+        int i = 0;
+        boolean negative = false;
+        if (tokenLength > 0 && window.get(tokenOffset) == '-') {
+            negative = true;
+            i++;
+        }
+        for (; i < tokenLength; i++) {
+            byte b = window.get(tokenOffset + i);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /** Decodes the current slice as UTF-8 text, resolving MIF string escapes. */
+    public String text() {
+        int length = 0;
+        for (int i = 0; i < tokenLength; i++) {
+            byte b = window.get(tokenOffset + i);
+            if (b == '\\' && type == TokenType.STRING && i + 1 < tokenLength) {
+                byte escaped = window.get(tokenOffset + ++i);
+                switch (escaped) {
+                    case 't' -> length = append(length, (byte) '\t');
+                    case 'q' -> length = append(length, (byte) '\'');
+                    case 'Q' -> length = append(length, (byte) '`');
+                    case 'x' -> {
+                        // A FrameRoman code, not a Unicode code point; capped so a run of digits can't overflow
+                        int code = 0;
+                        while (i + 1 < tokenLength && isHexDigit(window.get(tokenOffset + i + 1))) {
+                            code = Math.min(code * 16 + Character.digit(window.get(tokenOffset + ++i), 16), 0x10000);
+                        }
+                        if (i + 1 < tokenLength && window.get(tokenOffset + i + 1) == ' ') {
+                            i++;
+                        }
+                        int codePoint = FrameRoman.toUnicode(code);
+                        if (codePoint != FrameRoman.NONE) {
+                            length = appendCodePoint(length, codePoint);
+                        }
+                    }
+                    default -> length = append(length, escaped);
+                }
+            } else {
+                length = append(length, b);
+            }
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /** Skips the rest of the statement whose START token was just read. */
+    public void skipStatement() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            TokenType next = next();
+            if (next == TokenType.START) {
+                depth++;
+            } else if (next == TokenType.END) {
+                depth--;
+            } else if (next == TokenType.EOF) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Scans one token from the current position.
+     * Returns null if the window ends before the token does.
+     */
+    private TokenType scan() {
+        while (true) {
+            unitStart = position;
+            unitAtLineStart = atLineStart;
+            if (position >= windowLimit) {
+                return windowStart + windowLimit >= fileSize ? TokenType.EOF : null;
+            }
+            byte b = window.get(position);
+            if (b == '\n' || b == '\r') {
+                position++;
+                atLineStart = true;
+            } else if (b == ' ' || b == '\t') {
+                position++;
+            } else if (b == '#' || (atLineStart && (b == '=' || b == '&'))) {
+                // Comments and inset facet lines run to the end of the line
+                int end = indexOf((byte) '\n', position);
+                if (end < 0) {
+                    if (windowStart + windowLimit < fileSize) {
+                        return null;
+                    }
+                    position = windowLimit;
+                } else {
+                    position = end;
+                }
+            } else {
+                break;
+            }
+        }
+
+        atLineStart = false;
+        int start = position;
+        byte b = window.get(start);
+        if (b == '<') {
+            int end = start + 1;
+            while (end < windowLimit && isTagByte(window.get(end))) {
+                end++;
+            }
+            if (end >= windowLimit && windowStart + windowLimit < fileSize) {
+                return null;
+            }
+            return token(TokenType.START, start + 1, end, end);
+        }
+        if (b == '>') {
+            return token(TokenType.END, start, start, start + 1);
+        }
+        if (b == '`') {
+            int end = start + 1;
+            while (end < windowLimit) {
+                byte c = window.get(end);
+                if (c == '\\') {
+                    end += 2;
+                } else if (c == '\'') {
+                    return token(TokenType.STRING, start + 1, end, end + 1);
+                } else {
+                    end++;
+                }
+            }
+            return null;
+        }
+        int end = start;
+        while (end < windowLimit) {
+            byte c = window.get(end);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '>' || c == '<') {
+                break;
+            }
+            end++;
+        }
+        if (end >= windowLimit && windowStart + windowLimit < fileSize) {
+            return null;
+        }
+        return token(TokenType.ATOM, start, end, end);
+    }
+
+    private TokenType token(TokenType tokenType, int start, int end, int next) {
+        tokenOffset = start;
+        tokenLength = end - start;
+        position = next;
+        return tokenType;
+    }
+
+    private int indexOf(byte target, int from) {
+        for (int i = from; i < windowLimit; i++) {
+            if (window.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void map(long start) throws IOException {
+        long size = Math.min(windowSize, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+        windowLimit = (int) size;
+        position = 0;
+    }
+
+    private int append(int length, byte b) {
+        if (length == scratch.length) {
+            byte[] grown = new byte[scratch.length * 2];
+            System.arraycopy(scratch, 0, grown, 0, length);
+            scratch = grown;
+        }
+        scratch[length] = b;
+        return length + 1;
+    }
+
+    private int appendCodePoint(int length, int codePoint) {
+        byte[] encoded = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+        for (byte b : encoded) {
+            length = append(length, b);
+        }
+        return length;
+    }
+
+    private static boolean isTagByte(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    private static boolean isHexDigit(byte b) {
+        return Character.digit(b, 16) >= 0;
+    }
+}
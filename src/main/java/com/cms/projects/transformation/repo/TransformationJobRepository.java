@@ -1,7 +1,10 @@
 package com.cms.projects.transformation.repo;
 
+import com.cms.projects.transformation.dto.JobState;
 import com.cms.projects.transformation.entity.TransformationJob;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,5 +12,11 @@ import java.util.Optional;
 @Repository
 public interface TransformationJobRepository extends JpaRepository<TransformationJob, Long> {
     Optional<TransformationJob> findByJobId(String jobId);
+    
+    /**
+     * The job's status and the columns served with it, read without loading the entity.
+     */
+    @Query("select new com.cms.projects.transformation.dto.JobState(j.status, j.outputPath, j.errorMessage, j.createdAt) "
+         + "from TransformationJob j where j.jobId = :jobId")
+    Optional<JobState> findStateByJobId(@Param("jobId") String jobId);
 }
-
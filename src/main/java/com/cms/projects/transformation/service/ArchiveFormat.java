@@ -0,0 +1,46 @@
+package com.cms.projects.transformation.service;
+
+/**
+ * Formats a job's result can be downloaded in. ZIP is built once and served from disk;
+ * tar and tar.gz need no central directory, so they are written in a single pass while
+ * the output folder is walked.
+ */
+public enum ArchiveFormat {
+
+    ZIP("zip", "application/octet-stream"),
+    TAR("tar", "application/x-tar"),
+    TAR_GZ("tar.gz", "application/gzip");
+
+    private final String extension;
+    private final String mediaType;
+
+    ArchiveFormat(String extension, String mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The format named by a request parameter: zip, tar or tar.gz (tgz is accepted too).
+     *
+     * @throws IllegalArgumentException if the name is not a supported format
+     */
+    public static ArchiveFormat fromParameter(String name) {
+        for (ArchiveFormat format : values()) {
+            if (format.extension.equals(name)) {
+                return format;
+            }
+        }
+        if (name.equals("tgz")) {
+            return TAR_GZ;
+        }
+        throw new IllegalArgumentException("Unsupported archive format: " + name + ". Use zip, tar or tar.gz");
+    }
+}
@@ -1,19 +1,36 @@
 package com.cms.projects.transformation.service;
 
+import com.cms.projects.transformation.dto.StoredUpload;
+import com.cms.projects.transformation.exception.InvalidZipEntryException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.io.input.TeeInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
 
 @Service
@@ -34,11 +51,67 @@ public class FileStorageService {
         String fileName = jobId + "_" + file.getOriginalFilename();
         Path targetPath = inputDir.resolve(fileName);
         
-        Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+        // Moves the container's spooled copy into place when it can, rather than copying it
+        file.transferTo(targetPath.toFile());
         
         return targetPath.toString();
     }
     
+    /**
+     * Stores an upload read straight from the request, in one pass: the bytes are hashed and
+     * written to input-path as they arrive and, with {@code extractZip}, the ZIP entries are
+     * unpacked to the job's extraction folder at the same time, so the archive is never read back.
+     * 
+     * @param content The upload's bytes; read to the end but not closed
+     * @param originalFileName Name the client gave the file; any directory part is dropped
+     * @param jobId Job ID for the stored file name and the extraction folder
+     * @param maxSize Largest upload accepted, in bytes
+     * @param extractZip Whether to extract the upload as a ZIP archive while storing it
+     * @return Where the upload was stored and extracted, with its size and SHA-256
+     * @throws MaxUploadSizeExceededException if the upload is larger than {@code maxSize}
+     * @throws InvalidZipEntryException if the ZIP has an entry that cannot be extracted safely
+     * @throws ZipException if the upload is not a well-formed ZIP archive
+     * @throws IOException if storing or extraction fails; nothing is left behind either way
+     */
+    public StoredUpload storeStream(InputStream content, String originalFileName, String jobId,
+                                    long maxSize, boolean extractZip) throws IOException {
+        Path inputDir = Paths.get(inputPath);
+        Files.createDirectories(inputDir);
+        
+        String fileName = jobId + "_" + Paths.get(originalFileName).getFileName();
+        Path targetPath = inputDir.resolve(fileName);
+        Path extractDir = null;
+        
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        SizeLimitedInputStream limited = new SizeLimitedInputStream(content, maxSize);
+        try (OutputStream out = Files.newOutputStream(targetPath)) {
+            // Every byte the ZIP reader consumes is hashed and written on its way through
+            InputStream tee = new TeeInputStream(new DigestInputStream(limited, digest), out);
+            if (extractZip) {
+                extractDir = createTempDirectory(jobId + "_extracted");
+                extractEntries(new ZipInputStream(tee), extractDir, extracted -> { });
+            }
+            // The rest, e.g. the ZIP central directory, still belongs in the stored file
+            tee.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(targetPath);
+            if (extractDir != null) {
+                FileUtils.deleteQuietly(extractDir.toFile());
+            }
+            throw e;
+        }
+        
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        logger.info("Stored upload {} ({} bytes, sha256 {}){}", targetPath, limited.getCount(), sha256,
+                   extractDir != null ? ", extracted to " + extractDir : "");
+        return new StoredUpload(targetPath.toString(), limited.getCount(), sha256, extractDir);
+    }
+    
     public Path getOutputPath(String jobId) {
         String baseOutputPath = System.getProperty("user.home") + "/framemaker/output";
         return Paths.get(baseOutputPath, jobId);
@@ -67,30 +140,107 @@ public class FileStorageService {
     public Path extractZipFile(Path zipFile, String jobId) throws IOException {
         Path extractDir = createTempDirectory(jobId + "_extracted");
         
-        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipFile))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                Path entryPath = extractDir.resolve(entry.getName());
-                
-                // Security check: prevent zip slip vulnerability
-                if (!entryPath.normalize().startsWith(extractDir.normalize())) {
-                    throw new IOException("Invalid ZIP entry: " + entry.getName());
-                }
-                
-                if (entry.isDirectory()) {
-                    Files.createDirectories(entryPath);
-                } else {
-                    Files.createDirectories(entryPath.getParent());
-                    Files.copy(zis, entryPath, StandardCopyOption.REPLACE_EXISTING);
-                }
-                zis.closeEntry();
-            }
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            extractEntries(zip, extractDir, extracted -> { });
         }
         
         logger.info("Extracted ZIP file to: {}", extractDir);
         return extractDir;
     }
     
+    /**
+     * Extract a ZIP file into {@code extractDir}, reporting each file as soon as it is complete,
+     * so callers can start on the first files while later ones are still being extracted.
+     * @param zipFile The ZIP file to extract
+     * @param extractDir Directory to extract into
+     * @param onFileExtracted Called on the extracting thread with the normalized path of each extracted file
+     * @throws IOException if extraction fails
+     */
+    public void extractZipFile(Path zipFile, Path extractDir, Consumer<Path> onFileExtracted) throws IOException {
+        Files.createDirectories(extractDir);
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            extractEntries(zip, extractDir, onFileExtracted);
+        }
+        logger.info("Extracted ZIP file to: {}", extractDir);
+    }
+    
+    /**
+     * Extracts the entries listed in the archive's central directory, the same ones
+     * {@link FolderValidationService#validateZip} checks.
+     */
+    private void extractEntries(ZipFile zip, Path extractDir, Consumer<Path> onFileExtracted) throws IOException {
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            try (InputStream content = zip.getInputStream(entry)) {
+                extractEntry(entry, content, extractDir, onFileExtracted);
+            }
+        }
+    }
+    
+    /**
+     * Extracts entries as their local headers arrive, for a ZIP that is still being received
+     * and whose central directory isn't there yet.
+     */
+    private void extractEntries(ZipInputStream zis, Path extractDir, Consumer<Path> onFileExtracted) throws IOException {
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            extractEntry(entry, zis, extractDir, onFileExtracted);
+            zis.closeEntry();
+        }
+    }
+    
+    private void extractEntry(ZipEntry entry, InputStream content, Path extractDir,
+                              Consumer<Path> onFileExtracted) throws IOException {
+        Path entryPath;
+        try {
+            entryPath = extractDir.resolve(entry.getName()).normalize();
+        } catch (InvalidPathException e) {
+            throw new InvalidZipEntryException("Invalid ZIP entry: " + entry.getName(), e);
+        }
+        
+        // Security check: prevent zip slip vulnerability
+        if (!entryPath.startsWith(extractDir.normalize())) {
+            throw new InvalidZipEntryException("Invalid ZIP entry: " + entry.getName());
+        }
+        
+        if (entry.isDirectory()) {
+            Files.createDirectories(entryPath);
+        } else {
+            Files.createDirectories(entryPath.getParent());
+            Files.copy(content, entryPath, StandardCopyOption.REPLACE_EXISTING);
+            onFileExtracted.accept(entryPath);
+        }
+    }
+    
+    /**
+     * Counts the bytes read and fails as soon as there are more than allowed.
+     */
+    private static final class SizeLimitedInputStream extends ProxyInputStream {
+        
+        private final long maxSize;
+        private long count;
+        
+        SizeLimitedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+        
+        @Override
+        protected void afterRead(int n) {
+            if (n > 0) {
+                count += n;
+                if (count > maxSize) {
+                    throw new MaxUploadSizeExceededException(maxSize);
+                }
+            }
+        }
+        
+        long getCount() {
+            return count;
+        }
+    }
+    
     /**
      * Find all .fm and .mif files in a directory recursively
      * @param directory Directory to search
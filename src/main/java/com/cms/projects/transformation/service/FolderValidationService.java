@@ -7,9 +7,14 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Service for validating folder structure according to business rules:
@@ -40,9 +45,63 @@ public class FolderValidationService {
             return FolderValidationResult.invalid("Folder does not exist or is not a directory");
         }
         
-        List<Path> fmFiles = findFilesByExtension(folderPath, FM_EXTENSION);
-        List<Path> mifFiles = findFilesByExtension(folderPath, MIF_EXTENSION);
+        // One walk over the folder collects both kinds of file
+        List<Path> fmFiles = new ArrayList<>();
+        List<Path> mifFiles = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(folderPath)) {
+            paths.filter(Files::isRegularFile).forEach(path -> addFrameMakerFile(path, fmFiles, mifFiles));
+        }
+        
+        return classify(fmFiles, mifFiles, folderPath);
+    }
+    
+    /**
+     * Applies the same rules as {@link #validateFolder} to a ZIP archive without extracting it.
+     * Only the archive's central directory is read, in one pass. The files of the result are
+     * the entries' paths inside the archive; use {@link FolderValidationResult#resolve} once
+     * the archive has been extracted.
+     * 
+     * @param zipFile Path to the ZIP archive to validate
+     * @return FolderValidationResult containing validation status and details
+     * @throws IOException if the archive cannot be read
+     */
+    public FolderValidationResult validateZip(Path zipFile) throws IOException {
+        List<Path> fmFiles = new ArrayList<>();
+        List<Path> mifFiles = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                Path entryPath;
+                try {
+                    entryPath = Path.of(entry.getName()).normalize();
+                } catch (InvalidPathException e) {
+                    return FolderValidationResult.invalid("Invalid ZIP entry: " + entry.getName());
+                }
+                // Extraction refuses entries outside the target folder, so they make the upload invalid
+                if (entryPath.isAbsolute() || entryPath.startsWith("..")) {
+                    return FolderValidationResult.invalid("Invalid ZIP entry: " + entry.getName());
+                }
+                addFrameMakerFile(entryPath, fmFiles, mifFiles);
+            }
+        }
         
+        return classify(fmFiles, mifFiles, zipFile);
+    }
+    
+    private void addFrameMakerFile(Path path, List<Path> fmFiles, List<Path> mifFiles) {
+        String fileName = path.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(FM_EXTENSION)) {
+            fmFiles.add(path);
+        } else if (fileName.endsWith(MIF_EXTENSION)) {
+            mifFiles.add(path);
+        }
+    }
+    
+    private FolderValidationResult classify(List<Path> fmFiles, List<Path> mifFiles, Path folderPath) {
         int fmCount = fmFiles.size();
         int mifCount = mifFiles.size();
         
@@ -85,25 +144,5 @@ public class FolderValidationService {
         logger.warn("Validation failed: {}", errorMessage);
         return FolderValidationResult.invalid(errorMessage);
     }
-    
-    /**
-     * Recursively finds all files with the given extension
-     * 
-     * @param directory Directory to search
-     * @param extension File extension to search for (e.g., ".fm", ".mif")
-     * @return List of paths to files with the specified extension
-     * @throws IOException if directory access fails
-     */
-    private List<Path> findFilesByExtension(Path directory, String extension) throws IOException {
-        try (Stream<Path> paths = Files.walk(directory)) {
-            return paths
-                .filter(Files::isRegularFile)
-                .filter(path -> {
-                    String fileName = path.getFileName().toString().toLowerCase();
-                    return fileName.endsWith(extension.toLowerCase());
-                })
-                .toList();
-        }
-    }
 }
 
@@ -1,26 +1,88 @@
 package com.cms.projects.transformation.service;
 
+import com.cms.projects.transformation.config.ThreadPools;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.DefaultBackingStoreSupplier;
+import org.apache.commons.compress.archivers.zip.ScatterZipOutputStream;
+import org.apache.commons.compress.archivers.zip.StreamCompressor;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntryRequest;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.apache.commons.compress.parallel.ScatterGatherBackingStore;
+import org.apache.commons.compress.parallel.ScatterGatherBackingStoreSupplier;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
- * Service for creating ZIP files from folders
+ * Service for creating ZIP and tar archives from folders
  */
 @Service
 public class FolderZipService {
     
     private static final Logger logger = LoggerFactory.getLogger(FolderZipService.class);
     
+    // Formats that deflate can't shrink; storing them saves the CPU
+    private static final Set<String> STORED_EXTENSIONS = Set.of("png", "jpg", "jpeg", "gif");
+    
+    // Files compressed by one task; a chunk of the folder in path order goes into one scratch file
+    private static final int FILES_PER_CHUNK = 64;
+    
+    // Compresses the entries of every archive being built, so concurrent builds share the cores
+    private final ThreadPoolExecutor compressionExecutor = newCompressionPool(Runtime.getRuntime().availableProcessors());
+    
+    // Deflate level of archives built without an explicit level; -1 is the deflater's default (6)
+    @Value("${transformation.archive.compression-level:-1}")
+    private int defaultCompressionLevel = Deflater.DEFAULT_COMPRESSION;
+    
+    // Compressed entries are staged in scratch files under here before they are copied into the archive
+    @Value("${transformation.framemaker.temp-path:${user.home}/framemaker/temp}")
+    private String tempPath;
+    
+    // Threads compressing archive entries, shared by all archives; 0 means one per available processor
+    @Value("${transformation.archive.compression-threads:0}")
+    public void setCompressionThreads(int compressionThreads) {
+        ThreadPools.resize(compressionExecutor, compressionThreads);
+    }
+    
+    private static ThreadPoolExecutor newCompressionPool(int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("zip-compress-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), threadFactory);
+    }
+    
     /**
-     * Creates a ZIP file from a validated folder
+     * Creates a ZIP file from a validated folder at the configured compression level
      * 
      * @param folderPath Path to the folder to zip
      * @param outputZipPath Path where the ZIP file should be created
@@ -29,6 +91,21 @@ public class FolderZipService {
      * @throws IllegalArgumentException if folder does not exist or is not a directory
      */
     public Path zipFolder(Path folderPath, Path outputZipPath) throws IOException {
+        return zipFolder(folderPath, outputZipPath, defaultCompressionLevel);
+    }
+    
+    /**
+     * Creates a ZIP file from a validated folder
+     * 
+     * @param folderPath Path to the folder to zip
+     * @param outputZipPath Path where the ZIP file should be created
+     * @param compressionLevel Deflate level, 0-9, or -1 for the deflater's default
+     * @return Path to the created ZIP file
+     * @throws IOException if zipping fails
+     * @throws IllegalArgumentException if folder does not exist or is not a directory,
+     *         or the compression level is out of range
+     */
+    public Path zipFolder(Path folderPath, Path outputZipPath, int compressionLevel) throws IOException {
         if (!Files.exists(folderPath) || !Files.isDirectory(folderPath)) {
             throw new IllegalArgumentException("Folder does not exist or is not a directory: " + folderPath);
         }
@@ -39,39 +116,234 @@ public class FolderZipService {
         }
         
         long startTime = System.currentTimeMillis();
-        final int[] fileCount = {0};
+        int fileCount;
         
-        try (ZipOutputStream zos = new ZipOutputStream(
-                new FileOutputStream(outputZipPath.toFile()))) {
-            
-            Files.walk(folderPath)
-                .filter(path -> !Files.isDirectory(path))
-                .forEach(path -> {
-                    try {
-                        String relativePath = folderPath.relativize(path)
-                            .toString()
-                            .replace('\\', '/');
-                        
-                        ZipEntry zipEntry = new ZipEntry(relativePath);
-                        zos.putNextEntry(zipEntry);
-                        Files.copy(path, zos);
-                        zos.closeEntry();
-                        
-                        fileCount[0]++;
-                        logger.debug("Added to ZIP: {}", relativePath);
-                    } catch (IOException e) {
-                        throw new RuntimeException("Error adding file to ZIP: " + path, e);
-                    }
-                });
+        try (OutputStream out = Files.newOutputStream(outputZipPath)) {
+            fileCount = writeZip(folderPath, out, compressionLevel);
         }
         
         long duration = System.currentTimeMillis() - startTime;
         long zipSize = Files.size(outputZipPath);
         
         logger.info("Successfully created ZIP file: {} (size: {} bytes, files: {}, duration: {}ms)", 
-                   outputZipPath, zipSize, fileCount[0], duration);
+                   outputZipPath, zipSize, fileCount, duration);
         
         return outputZipPath;
     }
+    
+    /**
+     * Writes a ZIP of the folder to {@code out} at the configured compression level.
+     * {@code out} is not closed.
+     * 
+     * @return Number of files written
+     * @throws IOException if a file cannot be read or {@code out} cannot be written
+     */
+    public int writeZip(Path folderPath, OutputStream out) throws IOException {
+        return writeZip(folderPath, out, defaultCompressionLevel);
+    }
+    
+    /**
+     * Writes a ZIP of the folder to {@code out}, compressing entries on the shared compression
+     * threads. Images that are already compressed are stored as they are; everything else is
+     * deflated at {@code compressionLevel}. Entries are written in path order, so an unchanged
+     * folder always gives the same bytes. {@code out} is not closed.
+     * 
+     * @param compressionLevel Deflate level, 0-9, or -1 for the deflater's default
+     * @return Number of files written
+     * @throws IOException if a file cannot be read or {@code out} cannot be written
+     * @throws IllegalArgumentException if the compression level is out of range
+     */
+    public int writeZip(Path folderPath, OutputStream out, int compressionLevel) throws IOException {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between -1 and 9 (-1 = default)");
+        }
+        
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(folderPath)) {
+            files = paths.filter(path -> !Files.isDirectory(path)).sorted().toList();
+        }
+        Path scratchDir = Files.createDirectories(Paths.get(tempPath, "zip-scatter"));
+        ScatterGatherBackingStoreSupplier backingStores = new DefaultBackingStoreSupplier(scratchDir);
+        
+        // Chunks are compressed in parallel, each into its own scratch file, and copied into out in order
+        AtomicBoolean abandoned = new AtomicBoolean();
+        List<CompletableFuture<ScatterZipOutputStream>> chunks = new ArrayList<>();
+        for (int from = 0; from < files.size(); from += FILES_PER_CHUNK) {
+            List<Path> chunk = files.subList(from, Math.min(from + FILES_PER_CHUNK, files.size()));
+            chunks.add(CompletableFuture.supplyAsync(
+                () -> abandoned.get() ? null : compressChunk(folderPath, chunk, backingStores, compressionLevel),
+                compressionExecutor));
+        }
+        
+        int written = 0;
+        try {
+            // Closing the ZIP stream writes the central directory but leaves out open
+            try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(CloseShieldOutputStream.wrap(out))) {
+                for (; written < chunks.size(); written++) {
+                    try (ScatterZipOutputStream scatter = chunks.get(written).get()) {
+                        scatter.writeTo(zos);
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+            throw new IOException("Error compressing ZIP entry: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing ZIP", e);
+        } finally {
+            // After a failure, chunks not started yet are skipped and the rest drop their scratch files
+            abandoned.set(true);
+            for (CompletableFuture<ScatterZipOutputStream> chunk : chunks.subList(written, chunks.size())) {
+                chunk.thenAccept(FolderZipService::discardChunk);
+            }
+        }
+        return files.size();
+    }
+    
+    private ScatterZipOutputStream compressChunk(Path folderPath, List<Path> chunk,
+                                                 ScatterGatherBackingStoreSupplier backingStores,
+                                                 int compressionLevel) {
+        ScatterZipOutputStream scatter = null;
+        try {
+            ScatterGatherBackingStore backingStore = backingStores.get();
+            scatter = new ScatterZipOutputStream(backingStore, StreamCompressor.create(compressionLevel, backingStore));
+            for (Path path : chunk) {
+                String relativePath = folderPath.relativize(path)
+                    .toString()
+                    .replace('\\', '/');
+                
+                ZipArchiveEntry entry = new ZipArchiveEntry(relativePath);
+                entry.setMethod(isCompressed(relativePath) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+                entry.setTime(Files.getLastModifiedTime(path).toMillis());
+                scatter.addArchiveEntry(ZipArchiveEntryRequest.createZipArchiveEntryRequest(entry, () -> openEntry(path)));
+                
+                logger.debug("Added to ZIP: {}", relativePath);
+            }
+            return scatter;
+        } catch (IOException e) {
+            discardChunk(scatter);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            discardChunk(scatter);
+            throw e;
+        }
+    }
+    
+    private static void discardChunk(ScatterZipOutputStream scatter) {
+        if (scatter == null) {
+            return;
+        }
+        try {
+            scatter.close();
+        } catch (IOException e) {
+            logger.warn("Could not remove ZIP scratch file: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes a tar, or with {@code gzip} a tar.gz, of the folder to {@code out} in a single pass:
+     * each file is sent as soon as it is read and nothing is staged. Entries are written in
+     * path order with only name, size and modification time, so an unchanged folder always
+     * gives the same bytes. {@code out} is not closed.
+     * 
+     * @param compressionLevel Gzip level, 0-9, or -1 for the deflater's default; ignored for plain tar
+     * @return Number of files written
+     * @throws IOException if a file cannot be read or {@code out} cannot be written
+     */
+    public int writeTar(Path folderPath, OutputStream out, boolean gzip, int compressionLevel) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(folderPath)) {
+            files = paths.filter(path -> !Files.isDirectory(path)).sorted().toList();
+        }
+        
+        Iterator<List<Path>> batches = List.of(files).iterator();
+        return writeTar(folderPath, out, gzip, compressionLevel,
+            () -> batches.hasNext() ? batches.next() : List.of());
+    }
+    
+    /**
+     * Source of the files of a tar that is written while they are still being produced.
+     */
+    @FunctionalInterface
+    public interface FileBatches {
+        
+        /**
+         * The next files to append, waiting until there are some; an empty batch ends the archive.
+         */
+        List<Path> next() throws IOException, InterruptedException;
+    }
+    
+    /**
+     * Writes a tar, or with {@code gzip} a tar.gz, of files in the folder as they become
+     * available: each batch is appended and flushed to {@code out} as soon as it arrives.
+     * {@code out} is not closed.
+     * 
+     * @param compressionLevel Gzip level, 0-9, or -1 for the deflater's default; ignored for plain tar
+     * @return Number of files written
+     * @throws IOException if a file cannot be read, {@code out} cannot be written or the source fails
+     */
+    public int writeTar(Path folderPath, OutputStream out, boolean gzip, int compressionLevel,
+                        FileBatches batches) throws IOException {
+        int fileCount = 0;
+        OutputStream target = CloseShieldOutputStream.wrap(out);
+        if (gzip) {
+            GzipParameters parameters = new GzipParameters();
+            parameters.setCompressionLevel(compressionLevel);
+            target = new GzipCompressorOutputStream(target, parameters);
+        }
+        TarArchiveOutputStream tos = new TarArchiveOutputStream(target, StandardCharsets.UTF_8.name());
+        tos.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tos.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+        try {
+            List<Path> batch;
+            while (!(batch = batches.next()).isEmpty()) {
+                for (Path path : batch) {
+                    addTarEntry(tos, folderPath, path);
+                    fileCount++;
+                }
+                tos.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing tar", e);
+        }
+        // Only a complete archive gets its end-of-archive records (and gzip trailer), so a reader
+        // can tell a cut-short one apart; closing leaves out open
+        tos.close();
+        return fileCount;
+    }
+    
+    private void addTarEntry(TarArchiveOutputStream tos, Path folderPath, Path path) throws IOException {
+        String relativePath = folderPath.relativize(path)
+            .toString()
+            .replace('\\', '/');
+        
+        TarArchiveEntry entry = new TarArchiveEntry(relativePath);
+        entry.setSize(Files.size(path));
+        // Whole seconds fit the ustar header; finer times would add a PAX header to every entry
+        entry.setModTime(Files.getLastModifiedTime(path).to(TimeUnit.SECONDS) * 1000);
+        tos.putArchiveEntry(entry);
+        Files.copy(path, tos);
+        tos.closeArchiveEntry();
+        
+        logger.debug("Added to tar: {}", relativePath);
+    }
+    
+    public int getDefaultCompressionLevel() {
+        return defaultCompressionLevel;
+    }
+    
+    private static boolean isCompressed(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && STORED_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+    
+    private static InputStream openEntry(Path path) {
+        try {
+            return Files.newInputStream(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
-
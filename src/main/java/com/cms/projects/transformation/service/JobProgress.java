@@ -0,0 +1,148 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.entity.TransformationJob;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Status of a running job and the output files that are finished and can be sent, in the
+ * order they became ready. Readers keep their own position in the list, so any number of
+ * downloads can follow the same job; status changes are pushed to listeners.
+ */
+public class JobProgress {
+
+    private final List<Path> readyFiles = new ArrayList<>();
+    private final Set<Path> readySet = new HashSet<>();
+    private boolean finished;
+    private boolean succeeded;
+    private TransformationJob.TransformationStatus status = TransformationJob.TransformationStatus.PENDING;
+    // Counts status changes, so a listener can tell a late delivery of an older status
+    private long statusVersion;
+    // Removed without taking the lock, so a listener's owner can stop following from any thread
+    private final List<StatusFollower> statusFollowers = new CopyOnWriteArrayList<>();
+
+    synchronized void addReadyFiles(Collection<Path> files) {
+        for (Path file : files) {
+            if (readySet.add(file)) {
+                readyFiles.add(file);
+            }
+        }
+        notifyAll();
+    }
+
+    void setStatus(TransformationJob.TransformationStatus status) {
+        List<StatusFollower> followers;
+        long version;
+        synchronized (this) {
+            if (finished || status == this.status) {
+                return;
+            }
+            this.status = status;
+            version = ++statusVersion;
+            followers = List.copyOf(statusFollowers);
+        }
+        followers.forEach(follower -> follower.deliver(version, status));
+    }
+
+    /**
+     * Ends the job with its final status.
+     *
+     * @param outputComplete Whether every output file has been handed out
+     */
+    void finish(TransformationJob.TransformationStatus status, boolean outputComplete) {
+        List<StatusFollower> followers;
+        long version;
+        synchronized (this) {
+            this.finished = true;
+            this.succeeded = outputComplete;
+            this.status = status;
+            version = ++statusVersion;
+            followers = List.copyOf(statusFollowers);
+            statusFollowers.clear();
+            notifyAll();
+        }
+        followers.forEach(follower -> follower.deliver(version, status));
+    }
+
+    /**
+     * Calls the listener with the job's status now and again on every change, the last time
+     * with its final status. Listeners are called without the progress locked, e.g. on the
+     * job's worker thread, one call at a time and in order; a change that overtakes an older
+     * one is passed on and the older one dropped. They must not throw.
+     *
+     * @return Stops calling the listener
+     */
+    public Runnable followStatus(Consumer<TransformationJob.TransformationStatus> listener) {
+        StatusFollower follower = new StatusFollower(listener);
+        long version;
+        TransformationJob.TransformationStatus current;
+        synchronized (this) {
+            version = statusVersion;
+            current = status;
+            if (!finished) {
+                statusFollowers.add(follower);
+            }
+        }
+        follower.deliver(version, current);
+        return () -> statusFollowers.remove(follower);
+    }
+
+    public synchronized TransformationJob.TransformationStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * The files that became ready after the first {@code from}, waiting up to {@code timeout}
+     * until there are some. Empty if none arrived in time, or once the job has finished and
+     * every file has been handed out; {@link #isFinished} tells the two apart if checked first.
+     */
+    public synchronized List<Path> awaitReadyFiles(int from, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long remaining;
+        while (readyFiles.size() <= from && !finished && (remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return List.copyOf(readyFiles.subList(Math.min(from, readyFiles.size()), readyFiles.size()));
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Whether the job completed and all of its output was handed out; only meaningful once
+     * it has finished.
+     */
+    public synchronized boolean isSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * A status listener with the version of the last status it was given.
+     */
+    private static final class StatusFollower {
+
+        private final Consumer<TransformationJob.TransformationStatus> listener;
+        private long deliveredVersion = -1;
+
+        StatusFollower(Consumer<TransformationJob.TransformationStatus> listener) {
+            this.listener = listener;
+        }
+
+        synchronized void deliver(long version, TransformationJob.TransformationStatus status) {
+            if (version > deliveredVersion) {
+                deliveredVersion = version;
+                listener.accept(status);
+            }
+        }
+    }
+}
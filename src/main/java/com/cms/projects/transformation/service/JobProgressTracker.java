@@ -0,0 +1,87 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.entity.TransformationJob;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * In-process progress of jobs that have been submitted but not finished, so status changes
+ * can be pushed to clients and output downloaded while a job is still running. A job is
+ * tracked from submission until it completes or fails; after that its status and output are
+ * read from the database and disk as usual.
+ */
+@Component
+public class JobProgressTracker {
+
+    private final ConcurrentMap<String, JobProgress> activeJobs = new ConcurrentHashMap<>();
+
+    void start(String jobId) {
+        activeJobs.put(jobId, new JobProgress());
+    }
+
+    /**
+     * Progress of a job that is pending or running, or empty if it has finished or is unknown.
+     */
+    public Optional<JobProgress> find(String jobId) {
+        return Optional.ofNullable(activeJobs.get(jobId));
+    }
+
+    /**
+     * Records a status change of a running job, after it has been saved.
+     */
+    void setStatus(String jobId, TransformationJob.TransformationStatus status) {
+        JobProgress progress = activeJobs.get(jobId);
+        if (progress != null) {
+            progress.setStatus(status);
+        }
+    }
+
+    /**
+     * Marks output files of a running job as finished; they are not written again.
+     */
+    void addReadyFiles(String jobId, Collection<Path> files) {
+        JobProgress progress = activeJobs.get(jobId);
+        if (progress != null) {
+            progress.addReadyFiles(files);
+        }
+    }
+
+    /**
+     * Marks the rest of the job's output as ready and ends its progress as completed.
+     */
+    void complete(String jobId, Path outputDir) {
+        JobProgress progress = activeJobs.remove(jobId);
+        if (progress == null) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            files = paths.filter(path -> !Files.isDirectory(path)).sorted().toList();
+        } catch (IOException e) {
+            // Progressive downloads end short; the completed output is still served from disk
+            progress.finish(TransformationJob.TransformationStatus.COMPLETED, false);
+            return;
+        }
+        progress.addReadyFiles(files);
+        progress.finish(TransformationJob.TransformationStatus.COMPLETED, true);
+    }
+
+    /**
+     * Ends the progress of a job that failed or never ran.
+     */
+    void fail(String jobId) {
+        JobProgress progress = activeJobs.remove(jobId);
+        if (progress != null) {
+            progress.finish(TransformationJob.TransformationStatus.FAILED, false);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.dto.JobState;
+import com.cms.projects.transformation.entity.TransformationJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-memory copy of job state, so status and result lookups don't read the database.
+ * Jobs run by this instance are written through on every save. A running job's state is kept
+ * only briefly after each write, so a change that bypassed this cache is read from the database
+ * soon after; once a job has finished its state no longer changes and is kept for longer. State
+ * read from the database is cached only if the job has finished, since a running job may belong
+ * to another instance whose writes never reach this cache.
+ */
+@Component
+public class JobStateCache {
+
+    private final int maxEntries;
+    private final long runningTtlNanos;
+    private final long finishedTtlNanos;
+    private final LongSupplier nanoTime;
+
+    // Access-ordered, so the least recently used job is dropped first
+    private final LinkedHashMap<String, CachedState> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public JobStateCache(
+            @Value("${transformation.job-cache.max-entries:10000}") int maxEntries,
+            @Value("${transformation.job-cache.running-ttl:30s}") Duration runningTtl,
+            @Value("${transformation.job-cache.finished-ttl:10m}") Duration finishedTtl) {
+        this(maxEntries, runningTtl, finishedTtl, System::nanoTime);
+    }
+
+    JobStateCache(int maxEntries, Duration runningTtl, Duration finishedTtl, LongSupplier nanoTime) {
+        this.maxEntries = maxEntries;
+        this.runningTtlNanos = runningTtl.toNanos();
+        this.finishedTtlNanos = finishedTtl.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * The cached state of the job, or empty if it isn't cached or has expired.
+     */
+    public synchronized Optional<JobState> get(String jobId) {
+        CachedState cached = entries.get(jobId);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (nanoTime.getAsLong() - cached.expiresAt() >= 0) {
+            entries.remove(jobId);
+            return Optional.empty();
+        }
+        return Optional.of(cached.state());
+    }
+
+    /**
+     * Records the job as it has just been saved.
+     */
+    void write(TransformationJob job) {
+        put(job.getJobId(), JobState.of(job));
+    }
+
+    /**
+     * Caches state read from the database after a miss; ignored unless the job has finished.
+     */
+    void putLoaded(String jobId, JobState state) {
+        if (state.isFinished()) {
+            put(jobId, state);
+        }
+    }
+
+    /**
+     * Drops the job, e.g. after it has been deleted.
+     */
+    synchronized void invalidate(String jobId) {
+        entries.remove(jobId);
+    }
+
+    private synchronized void put(String jobId, JobState state) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long expiresAt = nanoTime.getAsLong() + (state.isFinished() ? finishedTtlNanos : runningTtlNanos);
+        entries.put(jobId, new CachedState(state, expiresAt));
+        while (entries.size() > maxEntries) {
+            String eldest = entries.keySet().iterator().next();
+            entries.remove(eldest);
+        }
+    }
+
+    /**
+     * A cached state and the {@link System#nanoTime} at which it expires.
+     */
+    private record CachedState(JobState state, long expiresAt) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.cms.projects.transformation.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * One kind of artifact derived from job output folders, e.g. result archives, stored next to
+ * each folder as {@code <folder>.<version>.<suffix>}. Builds for one folder are serialized
+ * under {@link #lockFor}; folders share a fixed set of locks. An artifact only appears under
+ * its name once it has been written completely.
+ */
+final class OutputArtifacts {
+
+    /**
+     * Writes an artifact's content to a file.
+     */
+    @FunctionalInterface
+    interface Content {
+
+        void writeTo(Path target) throws IOException;
+    }
+
+    private final String suffix;
+    private final Object[] buildLocks = Stream.generate(Object::new).limit(64).toArray();
+
+    /**
+     * @param suffix File name suffix of this kind of artifact, without the leading dot
+     */
+    OutputArtifacts(String suffix) {
+        this.suffix = suffix;
+    }
+
+    Object lockFor(Path outputDir) {
+        return buildLocks[Math.floorMod(outputDir.toAbsolutePath().normalize().hashCode(), buildLocks.length)];
+    }
+
+    Path path(Path outputDir, String version) {
+        return outputDir.resolveSibling(outputDir.getFileName() + "." + version + "." + suffix);
+    }
+
+    /**
+     * Writes the artifact to a partial file next to the output folder, then moves it to its
+     * name in one step, so readers never see it half-written.
+     *
+     * @return Where the artifact is
+     */
+    Path write(Path outputDir, String version, Content content) throws IOException {
+        Path target = path(outputDir, version);
+        Path partial = Files.createTempFile(outputDir.getParent(), outputDir.getFileName() + ".", "." + suffix + ".part");
+        try {
+            content.writeTo(partial);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        return target;
+    }
+
+    /**
+     * Deletes the folder's artifacts whose version {@code keep} rejects.
+     */
+    void deleteStale(Path outputDir, Predicate<String> keep) throws IOException {
+        String prefix = outputDir.getFileName() + ".";
+        String ending = "." + suffix;
+        List<Path> stale = new ArrayList<>();
+        try (DirectoryStream<Path> artifacts = Files.newDirectoryStream(outputDir.getParent(), prefix + "*" + ending)) {
+            for (Path artifact : artifacts) {
+                String name = artifact.getFileName().toString();
+                String version = name.substring(prefix.length(), name.length() - ending.length());
+                if (!keep.test(version)) {
+                    stale.add(artifact);
+                }
+            }
+        }
+        for (Path artifact : stale) {
+            Files.deleteIfExists(artifact);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.cms.projects.transformation.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Fingerprint of a job's output tree: a hash of each file's relative path, size and
+ * modification time. Only file metadata is read, so checking an unchanged tree costs
+ * a directory walk. Artifacts derived from the output are named after it.
+ */
+final class OutputFingerprint {
+
+    private OutputFingerprint() {
+    }
+
+    static String of(Path outputDir) throws IOException {
+        MessageDigest digest = sha256();
+
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            files = paths.filter(path -> !Files.isDirectory(path)).sorted().toList();
+        }
+        for (Path file : files) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            digest.update((relativePath(outputDir, file) + "\n" + attributes.size() + "\n"
+                + attributes.lastModifiedTime().toMillis() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        // 128 bits is plenty to tell versions of one folder apart and keeps file names short
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    /**
+     * Path of a file in the output tree as it appears in archives and manifests.
+     */
+    static String relativePath(Path outputDir, Path file) {
+        return outputDir.relativize(file).toString().replace('\\', '/');
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.dto.ResultArchive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.Deflater;
+
+/**
+ * Builds each job's result archive once and keeps it next to the output folder.
+ * An archive is named after a fingerprint of the output tree (relative paths, sizes and
+ * modification times) and its compression level, which together are its ETag: while the
+ * tree is unchanged the same bytes are served, and a changed tree gets a new archive
+ * under a new name.
+ */
+@Service
+public class ResultArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultArchiveService.class);
+
+    private final FolderZipService folderZipService;
+    private final OutputArtifacts archives = new OutputArtifacts("zip");
+
+    @Autowired
+    public ResultArchiveService(FolderZipService folderZipService) {
+        this.folderZipService = folderZipService;
+    }
+
+    /**
+     * The archive of the output folder as it is now, building it if the folder has changed
+     * since the last build or was never archived at this level.
+     *
+     * @param compressionLevel Deflate level, 0-9, or -1 for the deflater's default
+     * @throws IllegalArgumentException if the compression level is out of range
+     */
+    public ResultArchive getArchive(Path outputDir, int compressionLevel) throws IOException {
+        Optional<ResultArchive> current = findCurrentArchive(outputDir, compressionLevel);
+        return current.isPresent() ? current.get() : buildArchive(outputDir, compressionLevel);
+    }
+
+    /**
+     * Archives the output folder at the configured compression level, unless an archive of
+     * its current contents already exists.
+     */
+    public ResultArchive buildArchive(Path outputDir) throws IOException {
+        return buildArchive(outputDir, folderZipService.getDefaultCompressionLevel());
+    }
+
+    /**
+     * Archives the output folder unless an archive of its current contents at this level
+     * already exists. Archives of earlier contents are deleted.
+     */
+    public ResultArchive buildArchive(Path outputDir, int compressionLevel) throws IOException {
+        synchronized (archives.lockFor(outputDir)) {
+            String fingerprint = OutputFingerprint.of(outputDir);
+            String version = version(fingerprint, compressionLevel);
+            Path archivePath = archives.path(outputDir, version);
+            if (!Files.exists(archivePath)) {
+                long startTime = System.currentTimeMillis();
+                archives.write(outputDir, version, target -> {
+                    try (OutputStream out = Files.newOutputStream(target)) {
+                        folderZipService.writeZip(outputDir, out, compressionLevel);
+                    }
+                });
+                logger.info("Built result archive {} ({} bytes, {}ms)",
+                           archivePath, Files.size(archivePath), System.currentTimeMillis() - startTime);
+            }
+            // Archives of the current contents at other levels are kept
+            archives.deleteStale(outputDir, other -> other.startsWith(fingerprint + "."));
+            return new ResultArchive(archivePath, "\"" + version + "\"");
+        }
+    }
+
+    /**
+     * Strong ETag of a tar or tar.gz written now by {@link FolderZipService#writeTar}; those are
+     * streamed rather than stored, but write the same bytes while the output folder is unchanged.
+     */
+    public String getStreamedEtag(Path outputDir, ArchiveFormat format, int compressionLevel) throws IOException {
+        String fingerprint = OutputFingerprint.of(outputDir);
+        return switch (format) {
+            case TAR -> "\"" + fingerprint + ".tar\"";
+            case TAR_GZ -> "\"" + fingerprint + ".tgz" + normalizedLevel(compressionLevel) + "\"";
+            case ZIP -> throw new IllegalArgumentException("ZIP results are served from a stored archive");
+        };
+    }
+
+    private Optional<ResultArchive> findCurrentArchive(Path outputDir, int compressionLevel) throws IOException {
+        String version = version(OutputFingerprint.of(outputDir), compressionLevel);
+        Path archivePath = archives.path(outputDir, version);
+        return Files.exists(archivePath)
+            ? Optional.of(new ResultArchive(archivePath, "\"" + version + "\""))
+            : Optional.empty();
+    }
+
+    private String version(String fingerprint, int compressionLevel) {
+        return fingerprint + ".z" + normalizedLevel(compressionLevel);
+    }
+
+    // -1 and 6 produce the same bytes, so they share an archive and an ETag
+    private int normalizedLevel(int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between -1 and 9 (-1 = default)");
+        }
+        return compressionLevel == Deflater.DEFAULT_COMPRESSION ? 6 : compressionLevel;
+    }
+}
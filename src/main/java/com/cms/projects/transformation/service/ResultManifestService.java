@@ -0,0 +1,215 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.dto.ManifestEntry;
+import com.cms.projects.transformation.dto.ResultManifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Lists the files of a job's output with their sizes and SHA-256 checksums, so clients can
+ * fetch only the files that changed. A manifest is built once per version of the output
+ * tree (see {@link OutputFingerprint}) and stored next to the output folder; recently used
+ * manifests are also kept in memory, indexed by path, for single-file lookups.
+ */
+@Service
+public class ResultManifestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultManifestService.class);
+
+    private static final int MAX_CACHED_MANIFESTS = 64;
+
+    // Access-ordered, so the least recently used output is dropped first
+    private final LinkedHashMap<Path, IndexedManifest> cachedManifests = new LinkedHashMap<>(16, 0.75f, true);
+    private final OutputArtifacts manifests = new OutputArtifacts("manifest.tsv");
+
+    /**
+     * The manifest of the output folder as it is now, building it if the folder has changed
+     * since the last build or was never listed.
+     */
+    public ResultManifest getManifest(Path outputDir) throws IOException {
+        return getIndexedManifest(outputDir).manifest();
+    }
+
+    /**
+     * The manifest entry of one file of the output, or empty if the output has no such file.
+     * The entry is checked against the file's current size and modification time, so an
+     * unchanged output is answered without walking it.
+     *
+     * @param relativePath Path relative to the output folder, with '/' separators
+     */
+    public Optional<ManifestEntry> findEntry(Path outputDir, String relativePath) throws IOException {
+        Path root = outputDir.toAbsolutePath().normalize();
+        Path file = root.resolve(relativePath).normalize();
+        if (!file.startsWith(root) || file.equals(root) || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        String path = OutputFingerprint.relativePath(root, file);
+
+        IndexedManifest cached = getCached(root);
+        ManifestEntry entry = cached != null ? cached.entries().get(path) : null;
+        if (entry == null || !isCurrent(entry, file)) {
+            entry = getIndexedManifest(outputDir).entries().get(path);
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    private IndexedManifest getIndexedManifest(Path outputDir) throws IOException {
+        Path root = outputDir.toAbsolutePath().normalize();
+        String fingerprint = OutputFingerprint.of(root);
+        IndexedManifest cached = getCached(root);
+        if (cached != null && cached.manifest().getVersion().equals(fingerprint)) {
+            return cached;
+        }
+
+        synchronized (manifests.lockFor(root)) {
+            Path manifestPath = manifests.path(root, fingerprint);
+            ResultManifest manifest = Files.exists(manifestPath)
+                ? readManifest(manifestPath, fingerprint)
+                : buildManifest(root, fingerprint, manifestPath);
+            IndexedManifest indexed = IndexedManifest.of(manifest);
+            putCached(root, indexed);
+            return indexed;
+        }
+    }
+
+    private ResultManifest buildManifest(Path outputDir, String fingerprint, Path manifestPath) throws IOException {
+        long startTime = System.currentTimeMillis();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            files = paths.filter(path -> !Files.isDirectory(path)).sorted().toList();
+        }
+
+        List<ManifestEntry> entries = new ArrayList<>(files.size());
+        for (Path file : files) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            entries.add(new ManifestEntry(OutputFingerprint.relativePath(outputDir, file), attributes.size(),
+                attributes.lastModifiedTime().toMillis(), sha256(file)));
+        }
+        ResultManifest manifest = new ResultManifest(fingerprint, entries);
+
+        manifests.write(outputDir, fingerprint, target -> writeManifest(manifest, target));
+        manifests.deleteStale(outputDir, version -> version.equals(fingerprint));
+
+        logger.info("Built result manifest {} ({} files, {}ms)",
+                   manifestPath, entries.size(), System.currentTimeMillis() - startTime);
+        return manifest;
+    }
+
+    // One file per line: sha256, size, modification time and path, tab-separated; the path comes
+    // last, with backslashes, tabs and line breaks escaped as \\, \t, \n and \r
+    private void writeManifest(ResultManifest manifest, Path target) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            for (ManifestEntry entry : manifest.getFiles()) {
+                writer.write(entry.getSha256() + "\t" + entry.getSize() + "\t" + entry.getLastModified()
+                    + "\t" + escapeField(entry.getPath()));
+                writer.newLine();
+            }
+        }
+    }
+
+    private ResultManifest readManifest(Path manifestPath, String fingerprint) throws IOException {
+        List<ManifestEntry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t", 4);
+            if (fields.length != 4) {
+                throw new IOException("Malformed manifest line in " + manifestPath + ": " + line);
+            }
+            entries.add(new ManifestEntry(unescapeField(fields[3]), Long.parseLong(fields[1]),
+                Long.parseLong(fields[2]), fields[0]));
+        }
+        return new ResultManifest(fingerprint, entries);
+    }
+
+    private static String escapeField(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    // A backslash before anything else is kept as it is
+    private static String unescapeField(String value) {
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int escape = c == '\\' && i + 1 < value.length() ? "\\tnr".indexOf(value.charAt(i + 1)) : -1;
+            if (escape >= 0) {
+                unescaped.append("\\\t\n\r".charAt(escape));
+                i++;
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    private static boolean isCurrent(ManifestEntry entry, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return attributes.size() == entry.getSize()
+            && attributes.lastModifiedTime().toMillis() == entry.getLastModified();
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest = OutputFingerprint.sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private synchronized IndexedManifest getCached(Path outputDir) {
+        return cachedManifests.get(outputDir);
+    }
+
+    private synchronized void putCached(Path outputDir, IndexedManifest manifest) {
+        cachedManifests.put(outputDir, manifest);
+        while (cachedManifests.size() > MAX_CACHED_MANIFESTS) {
+            Path eldest = cachedManifests.keySet().iterator().next();
+            cachedManifests.remove(eldest);
+        }
+    }
+
+    /**
+     * A manifest with its entries indexed by path.
+     */
+    private record IndexedManifest(ResultManifest manifest, Map<String, ManifestEntry> entries) {
+
+        static IndexedManifest of(ResultManifest manifest) {
+            Map<String, ManifestEntry> entries = new HashMap<>();
+            for (ManifestEntry entry : manifest.getFiles()) {
+                entries.put(entry.getPath(), entry);
+            }
+            return new IndexedManifest(manifest, entries);
+        }
+    }
+}
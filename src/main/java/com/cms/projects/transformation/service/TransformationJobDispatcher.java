@@ -0,0 +1,68 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.dto.JobQueueStats;
+import com.cms.projects.transformation.exception.JobQueueFullException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands transformation jobs to the "transformationExecutor" pool so that request
+ * threads return as soon as the job is queued. When all workers are busy and the
+ * queue is full the job is refused with a {@link JobQueueFullException} instead of
+ * being run on the caller's thread.
+ */
+@Component
+public class TransformationJobDispatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TransformationJobDispatcher.class);
+    
+    private final ThreadPoolTaskExecutor executor;
+    private final Duration retryAfter;
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    
+    @Autowired
+    public TransformationJobDispatcher(
+            @Qualifier("transformationExecutor") ThreadPoolTaskExecutor executor,
+            @Value("${transformation.processing.retry-after:30s}") Duration retryAfter) {
+        this.executor = executor;
+        this.retryAfter = retryAfter;
+    }
+    
+    /**
+     * Queues a job. Exceptions thrown by the job are logged; jobs record their own
+     * failures on the job entity.
+     */
+    public void dispatch(String jobId, Runnable job) {
+        try {
+            executor.execute(() -> {
+                try {
+                    job.run();
+                } catch (RuntimeException e) {
+                    logger.error("Unhandled error in transformation job {}: {}", jobId, e.getMessage(), e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            rejectedJobs.incrementAndGet();
+            logger.warn("Transformation queue full, rejecting job {}", jobId);
+            throw new JobQueueFullException("Transformation queue is full, please retry later",
+                retryAfter.toSeconds(), e);
+        }
+    }
+    
+    public JobQueueStats getStats() {
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        int queueDepth = pool.getQueue().size();
+        return new JobQueueStats(queueDepth, queueDepth + pool.getQueue().remainingCapacity(), pool.getActiveCount(),
+            pool.getPoolSize(), pool.getMaximumPoolSize(), pool.getCompletedTaskCount(), rejectedJobs.get());
+    }
+}
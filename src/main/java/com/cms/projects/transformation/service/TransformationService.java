@@ -1,13 +1,39 @@
 package com.cms.projects.transformation.service;
 
 import com.cms.projects.transformation.dto.FolderTransformationResponse;
+import com.cms.projects.transformation.dto.FolderValidationResult;
+import com.cms.projects.transformation.dto.JobQueueStats;
+import com.cms.projects.transformation.dto.ParseCacheStats;
+import com.cms.projects.transformation.dto.PipelineStats;
 import com.cms.projects.transformation.dto.TransformationResponse;
 import com.cms.projects.transformation.entity.TransformationJob;
 
+import java.nio.file.Path;
+
 public interface TransformationService {
     TransformationResponse submitTransformation(String filePath, String fileName);
-    FolderTransformationResponse submitFolderTransformation(String zipFilePath, String zipFileName);
+    
+    /**
+     * Submits a folder job for a validated ZIP whose files are still archive paths. The job extracts
+     * the archive itself and starts transforming files while later entries are still being extracted.
+     */
+    FolderTransformationResponse submitFolderTransformation(String zipFilePath, String zipFileName,
+                                                            FolderValidationResult validationResult);
+    
+    /**
+     * Submits a folder job for an upload that has already been extracted and validated.
+     * Once this returns, the job owns {@code extractedDir} and deletes it when it finishes;
+     * if this throws, the directory still belongs to the caller.
+     */
+    FolderTransformationResponse submitFolderTransformation(String zipFilePath, String zipFileName,
+                                                            Path extractedDir, FolderValidationResult validationResult);
+    
     TransformationJob.TransformationStatus getJobStatus(String jobId);
     TransformationResponse getJobResult(String jobId);
+    ParseCacheStats getParseCacheStats();
+    
+    PipelineStats getPipelineStats();
+    
+    JobQueueStats getJobQueueStats();
 }
 
@@ -1,29 +1,54 @@
 package com.cms.projects.transformation.service;
 
+import com.cms.projects.transformation.config.ThreadPools;
+import com.cms.projects.transformation.dita.generator.DitaNamespaceAllocator;
+import com.cms.projects.transformation.dita.generator.DitaOutputNamespace;
 import com.cms.projects.transformation.dto.FolderTransformationResponse;
 import com.cms.projects.transformation.dto.FolderValidationResult;
+import com.cms.projects.transformation.dto.JobQueueStats;
+import com.cms.projects.transformation.dto.JobState;
+import com.cms.projects.transformation.dto.ParseCacheStats;
+import com.cms.projects.transformation.dto.PipelineStats;
 import com.cms.projects.transformation.dto.TransformationResponse;
 import com.cms.projects.transformation.entity.TransformationJob;
+import com.cms.projects.transformation.exception.JobQueueFullException;
 import com.cms.projects.transformation.repo.TransformationJobRepository;
+import com.cms.projects.transformation.framemaker.cache.FrameMakerParseCache;
 import com.cms.projects.transformation.framemaker.exception.FrameMakerUnsupportedFormatException;
+import com.cms.projects.transformation.transformer.DeferredImageExtractor;
 import com.cms.projects.transformation.transformer.FrameMakerToDitaTransformer;
+import com.cms.projects.transformation.transformer.ImageExtractor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 @Service
 public class TransformationServiceImpl implements TransformationService {
@@ -33,18 +58,47 @@ public class TransformationServiceImpl implements TransformationService {
     private final TransformationJobRepository jobRepository;
     private final FrameMakerToDitaTransformer transformer;
     private final FileStorageService fileStorageService;
-    private final FolderValidationService folderValidationService;
+    private final FrameMakerParseCache parseCache;
+    private final TransformationJobDispatcher jobDispatcher;
+    private final ResultArchiveService resultArchiveService;
+    private final ResultManifestService resultManifestService;
+    private final JobProgressTracker jobProgressTracker;
+    private final JobStateCache jobStateCache;
+    // Transforms the files of all folder jobs; bounded, since every job would otherwise start its own threads
+    private final ThreadPoolExecutor fileExecutor = newFilePool(Runtime.getRuntime().availableProcessors());
+    // One extraction per running folder job, so bounded by the job workers
+    private final ExecutorService extractionExecutor = Executors.newCachedThreadPool(daemonThreads("folder-extract-"));
+    
+    // Files of one folder job transformed at the same time; 0 means one per available processor
+    @Value("${transformation.processing.folder-parallelism:0}")
+    private int folderParallelism;
+    
+    // Threads transforming folder-job files, shared by all jobs; 0 means one per available processor
+    @Value("${transformation.processing.file-threads:0}")
+    public void setFileThreads(int fileThreads) {
+        ThreadPools.resize(fileExecutor, fileThreads);
+    }
     
     @Autowired
     public TransformationServiceImpl(
             TransformationJobRepository jobRepository,
             FrameMakerToDitaTransformer transformer,
             FileStorageService fileStorageService,
-            FolderValidationService folderValidationService) {
+            FrameMakerParseCache parseCache,
+            TransformationJobDispatcher jobDispatcher,
+            ResultArchiveService resultArchiveService,
+            ResultManifestService resultManifestService,
+            JobProgressTracker jobProgressTracker,
+            JobStateCache jobStateCache) {
         this.jobRepository = jobRepository;
         this.transformer = transformer;
         this.fileStorageService = fileStorageService;
-        this.folderValidationService = folderValidationService;
+        this.parseCache = parseCache;
+        this.jobDispatcher = jobDispatcher;
+        this.resultArchiveService = resultArchiveService;
+        this.resultManifestService = resultManifestService;
+        this.jobProgressTracker = jobProgressTracker;
+        this.jobStateCache = jobStateCache;
     }
     
     @Override
@@ -57,10 +111,10 @@ public class TransformationServiceImpl implements TransformationService {
         job.setInputFilePath(filePath);
         job.setStatus(TransformationJob.TransformationStatus.PENDING);
         
-        jobRepository.save(job);
+        saveJob(job);
         
-        // Start async processing
-        processTransformation(jobId, filePath);
+        // Queue for a transformation worker; the request thread returns right away
+        dispatch(job, () -> processTransformation(jobId, filePath));
         
         TransformationResponse response = new TransformationResponse();
         response.setJobId(jobId);
@@ -71,16 +125,37 @@ public class TransformationServiceImpl implements TransformationService {
         return response;
     }
     
-    @Async
+    // Every write of a job goes through here, so the state cache always matches the database
+    private void saveJob(TransformationJob job) {
+        jobRepository.save(job);
+        jobStateCache.write(job);
+    }
+    
+    private void dispatch(TransformationJob job, Runnable work) {
+        // Tracked from now on, so a progressive download can be opened while the job is queued
+        jobProgressTracker.start(job.getJobId());
+        try {
+            jobDispatcher.dispatch(job.getJobId(), work);
+        } catch (JobQueueFullException e) {
+            // Never started; don't leave a PENDING job behind
+            jobProgressTracker.fail(job.getJobId());
+            jobRepository.delete(job);
+            jobStateCache.invalidate(job.getJobId());
+            throw e;
+        }
+    }
+    
     public void processTransformation(String jobId, String filePath) {
         Optional<TransformationJob> jobOpt = jobRepository.findByJobId(jobId);
         if (jobOpt.isEmpty()) {
+            jobProgressTracker.fail(jobId);
             return;
         }
         
         TransformationJob job = jobOpt.get();
         job.setStatus(TransformationJob.TransformationStatus.PROCESSING);
-        jobRepository.save(job);
+        saveJob(job);
+        jobProgressTracker.setStatus(jobId, TransformationJob.TransformationStatus.PROCESSING);
         
         try {
             File inputFile = new File(filePath);
@@ -93,39 +168,63 @@ public class TransformationServiceImpl implements TransformationService {
             
             // Perform transformation
             transformer.transform(inputFile, outputDir);
+            prepareResultDownloads(jobId, outputDir);
             
             // Update job status
             job.setStatus(TransformationJob.TransformationStatus.COMPLETED);
             job.setOutputPath(outputDir.toString());
             job.setCompletedAt(LocalDateTime.now());
-            jobRepository.save(job);
+            saveJob(job);
+            jobProgressTracker.complete(jobId, outputDir);
             
         } catch (FrameMakerUnsupportedFormatException e) {
             job.setStatus(TransformationJob.TransformationStatus.FAILED);
             job.setErrorMessage(e.getMessage());
             job.setCompletedAt(LocalDateTime.now());
-            jobRepository.save(job);
+            saveJob(job);
         } catch (Exception e) {
             job.setStatus(TransformationJob.TransformationStatus.FAILED);
             job.setErrorMessage(e.getMessage());
             job.setCompletedAt(LocalDateTime.now());
-            jobRepository.save(job);
+            saveJob(job);
+        } finally {
+            // No-op once completed; ends progressive downloads of a failed job
+            jobProgressTracker.fail(jobId);
         }
     }
     
     @Override
     public TransformationJob.TransformationStatus getJobStatus(String jobId) {
-        Optional<TransformationJob> jobOpt = jobRepository.findByJobId(jobId);
-        if (jobOpt.isEmpty()) {
-            return null;
+        return findJobState(jobId).map(JobState::getStatus).orElse(null);
+    }
+    
+    /**
+     * The job's state from the cache, or from a projection query that doesn't load the entity.
+     */
+    private Optional<JobState> findJobState(String jobId) {
+        Optional<JobState> cached = jobStateCache.get(jobId);
+        if (cached.isPresent()) {
+            return cached;
         }
-        
-        TransformationJob job = jobOpt.get();
-        return job.getStatus();
+        Optional<JobState> loaded = jobRepository.findStateByJobId(jobId);
+        loaded.ifPresent(state -> jobStateCache.putLoaded(jobId, state));
+        return loaded;
     }
     
     @Override
-    public FolderTransformationResponse submitFolderTransformation(String zipFilePath, String zipFileName) {
+    public FolderTransformationResponse submitFolderTransformation(String zipFilePath, String zipFileName,
+                                                                   FolderValidationResult validationResult) {
+        return submitFolderJob(zipFilePath, zipFileName, Paths.get(zipFilePath), null, validationResult);
+    }
+    
+    @Override
+    public FolderTransformationResponse submitFolderTransformation(String zipFilePath, String zipFileName,
+                                                                   Path extractedDir, FolderValidationResult validationResult) {
+        return submitFolderJob(zipFilePath, zipFileName, null, extractedDir, validationResult);
+    }
+    
+    private FolderTransformationResponse submitFolderJob(String zipFilePath, String zipFileName, Path zipToExtract,
+                                                         Path extractedDir, FolderValidationResult validationResult) {
         String jobId = UUID.randomUUID().toString();
         
         TransformationJob job = new TransformationJob();
@@ -134,10 +233,10 @@ public class TransformationServiceImpl implements TransformationService {
         job.setInputFilePath(zipFilePath);
         job.setStatus(TransformationJob.TransformationStatus.PENDING);
         
-        jobRepository.save(job);
+        saveJob(job);
         
-        // Start async processing
-        processFolderTransformation(jobId, zipFilePath);
+        // Queue for a transformation worker; the request thread returns right away
+        dispatch(job, () -> processFolderTransformation(jobId, zipToExtract, extractedDir, validationResult));
         
         FolderTransformationResponse response = new FolderTransformationResponse();
         response.setJobId(jobId);
@@ -148,44 +247,49 @@ public class TransformationServiceImpl implements TransformationService {
         return response;
     }
     
-    @Async
-    public void processFolderTransformation(String jobId, String zipFilePath) {
+    /**
+     * Transforms the files of a validated upload. With a {@code zipFile}, the job extracts it itself
+     * and each file is transformed as soon as it is on disk, while the rest of the archive is still
+     * being extracted; otherwise {@code extractedDir} holds the upload, extracted at submission.
+     * Either way the upload is extracted once and never walked again, and the extracted folder
+     * is deleted here however the job ends.
+     */
+    public void processFolderTransformation(String jobId, Path zipFile, Path extractedDir,
+                                            FolderValidationResult validationResult) {
         Optional<TransformationJob> jobOpt = jobRepository.findByJobId(jobId);
         if (jobOpt.isEmpty()) {
             logger.error("Job not found: {}", jobId);
+            jobProgressTracker.fail(jobId);
+            deleteExtractedDirectory(extractedDir);
             return;
         }
         
         TransformationJob job = jobOpt.get();
         job.setStatus(TransformationJob.TransformationStatus.PROCESSING);
-        jobRepository.save(job);
+        saveJob(job);
+        jobProgressTracker.setStatus(jobId, TransformationJob.TransformationStatus.PROCESSING);
         
-        Path extractedDir = null;
         Path outputDir = null;
+        CompletableFuture<Void> extraction = CompletableFuture.completedFuture(null);
         
         try {
-            // Extract ZIP file
-            Path zipFile = Paths.get(zipFilePath);
-            if (!Files.exists(zipFile)) {
-                throw new IOException("ZIP file not found: " + zipFilePath);
-            }
-            
-            extractedDir = fileStorageService.extractZipFile(zipFile, jobId);
-            
-            // Validate folder structure before processing
-            FolderValidationResult validationResult = folderValidationService.validateFolder(extractedDir);
-            
-            if (!validationResult.isValid()) {
-                throw new IllegalArgumentException(validationResult.getMessage());
+            // Files found when the upload was validated, and when each of them is on disk
+            List<Path> fmFiles;
+            Map<Path, CompletableFuture<Void>> extractedFiles = new HashMap<>();
+            if (zipFile != null) {
+                extractedDir = fileStorageService.createTempDirectory(jobId + "_extracted");
+                fmFiles = validationResult.resolve(extractedDir).getFiles();
+                for (Path fmFile : fmFiles) {
+                    extractedFiles.put(fmFile.normalize(), new CompletableFuture<>());
+                }
+                extraction = startExtraction(zipFile, extractedDir, extractedFiles);
+            } else {
+                if (!Files.isDirectory(extractedDir)) {
+                    throw new IOException("Extracted folder not found: " + extractedDir);
+                }
+                fmFiles = validationResult.getFiles();
             }
             
-            logger.info("Folder validation passed: {} {} files found", 
-                       validationResult.getFileCount(),
-                       validationResult.getFileType() == FolderValidationResult.FileType.FM ? ".fm" : ".mif");
-            
-            // Get validated files
-            List<Path> fmFiles = validationResult.getFiles();
-            
             // Create main output directory
             outputDir = fileStorageService.getOutputPath(jobId);
             Files.createDirectories(outputDir);
@@ -203,42 +307,49 @@ public class TransformationServiceImpl implements TransformationService {
             
             List<String> processedFiles = new ArrayList<>();
             List<String> failedFiles = new ArrayList<>();
-            int topicCounter = 1;
-            int chapterCounter = 1;
             
-            // Process each FrameMaker file
-            for (Path fmFile : fmFiles) {
-                try {
-                    logger.info("Processing file: {}", fmFile.getFileName());
-                    
-                    // Create temporary output for this file
-                    Path tempOutputDir = fileStorageService.createTempDirectory(jobId + "_" + fmFile.getFileName());
-                    
-                    // Transform the file
-                    transformer.transform(fmFile.toFile(), tempOutputDir);
-                    
-                    // Merge results into main output structure
-                    mergeTransformationResults(tempOutputDir, outputDir, fmFile.getFileName().toString(), 
-                                             topicCounter, chapterCounter);
-                    
-                    // Update counters based on generated files
-                    topicCounter += countFilesInDirectory(tempOutputDir.resolve("xml"));
-                    chapterCounter += countFilesInDirectory(tempOutputDir.resolve("chapters"));
-                    
-                    processedFiles.add(fmFile.getFileName().toString());
-                    
-                    // Cleanup temp directory
-                    deleteDirectory(tempOutputDir);
+            // Each file writes straight into the output tree under its own namespace. Namespaces are
+            // allocated in file order, so the names don't depend on which file finishes first
+            DitaNamespaceAllocator namespaceAllocator = new DitaNamespaceAllocator();
+            // A file's images may come later in the archive; they are copied in file order once it is all extracted
+            DeferredImageExtractor deferredImages = new DeferredImageExtractor();
+            int parallelism = folderParallelism > 0 ? folderParallelism : Runtime.getRuntime().availableProcessors();
+            // Files start as soon as any running file finishes; they are committed in file order
+            List<FileTransformation> started = new ArrayList<>();
+            BlockingQueue<FileTransformation> finished = new LinkedBlockingQueue<>();
+            int running = 0;
+            int committed = 0;
+            try {
+                while (committed < fmFiles.size()) {
+                    while (started.size() < fmFiles.size() && running < parallelism) {
+                        Path fmFile = fmFiles.get(started.size());
+                        DitaOutputNamespace namespace = namespaceAllocator.allocate(fmFile.getFileName().toString());
+                        CompletableFuture<Void> extracted =
+                            extractedFiles.getOrDefault(fmFile.normalize(), CompletableFuture.completedFuture(null));
+                        FileTransformation fileTransformation =
+                            startFileTransformation(fmFile, extracted, outputDir, namespace, deferredImages.forFile(started.size()));
+                        fileTransformation.result().whenComplete((ignored, e) -> finished.add(fileTransformation));
+                        started.add(fileTransformation);
+                        running++;
+                    }
                     
-                } catch (FrameMakerUnsupportedFormatException e) {
-                    logger.warn("Unsupported format for file {}: {}", fmFile.getFileName(), e.getMessage());
-                    failedFiles.add(fmFile.getFileName().toString() + " - " + e.getMessage());
-                } catch (Exception e) {
-                    logger.error("Error processing file {}: {}", fmFile.getFileName(), e.getMessage(), e);
-                    failedFiles.add(fmFile.getFileName().toString() + " - " + e.getMessage());
+                    finished.take();
+                    running--;
+                    while (committed < started.size() && started.get(committed).result().isDone()) {
+                        commitFileTransformation(jobId, outputDir, started.get(committed++), processedFiles, failedFiles);
+                    }
+                }
+            } finally {
+                // Only unfinished if the job itself failed; don't leave transformations running
+                for (FileTransformation abandoned : started) {
+                    abandoned.result().cancel(true);
                 }
             }
             
+            // Everything below needs the whole archive on disk
+            awaitExtraction(extraction);
+            deferredImages.extractDeferred();
+            
             // Copy additional folders (Images, logo, etc.)
             List<String> additionalFolders = Arrays.asList("Images", "images", "logo", "Logo", "logos", "Logos");
             fileStorageService.copyAdditionalFolders(extractedDir, outputDir, additionalFolders);
@@ -248,143 +359,202 @@ public class TransformationServiceImpl implements TransformationService {
             
             // Generate or merge main.ditamap if needed
             ensureMainDitamap(outputDir);
+            prepareResultDownloads(jobId, outputDir);
             
             // Update job status
             job.setStatus(TransformationJob.TransformationStatus.COMPLETED);
             job.setOutputPath(outputDir.toString());
             job.setCompletedAt(LocalDateTime.now());
-            jobRepository.save(job);
+            saveJob(job);
+            jobProgressTracker.complete(jobId, outputDir);
             
             logger.info("Folder transformation completed. Processed: {}, Failed: {}", 
                        processedFiles.size(), failedFiles.size());
+            if (parseCache != null) {
+                ParseCacheStats cacheStats = parseCache.getStats();
+                logger.info("Parse cache: {} hits, {} misses, {} entries on disk", 
+                           cacheStats.getHits(), cacheStats.getMisses(), cacheStats.getDiskEntries());
+            }
             
         } catch (Exception e) {
             logger.error("Error in folder transformation: {}", e.getMessage(), e);
             job.setStatus(TransformationJob.TransformationStatus.FAILED);
             job.setErrorMessage("Folder transformation failed: " + e.getMessage());
             job.setCompletedAt(LocalDateTime.now());
-            jobRepository.save(job);
+            saveJob(job);
         } finally {
-            // Cleanup extracted directory
-            if (extractedDir != null && Files.exists(extractedDir)) {
-                try {
-                    deleteDirectory(extractedDir);
-                } catch (Exception e) {
-                    logger.warn("Error cleaning up extracted directory: {}", e.getMessage());
-                }
-            }
+            // No-op once completed; ends progressive downloads of a failed job
+            jobProgressTracker.fail(jobId);
+            // Don't delete files the extraction is still writing
+            extraction.exceptionally(e -> null).join();
+            deleteExtractedDirectory(extractedDir);
         }
     }
     
-    private void mergeTransformationResults(Path sourceDir, Path targetDir, String sourceFileName, 
-                                           int topicStartIndex, int chapterStartIndex) throws IOException {
-        // Merge XML files
-        Path sourceXmlDir = sourceDir.resolve("xml");
-        Path targetXmlDir = targetDir.resolve("xml");
-        if (Files.exists(sourceXmlDir)) {
-            Files.list(sourceXmlDir)
-                .filter(Files::isRegularFile)
-                .forEach(sourceFile -> {
-                    try {
-                        String fileName = sourceFile.getFileName().toString();
-                        Path targetFile = targetXmlDir.resolve(fileName);
-                        // If file exists, append with source filename prefix
-                        if (Files.exists(targetFile)) {
-                            String prefix = sourceFileName.replaceAll("[^a-zA-Z0-9]", "_");
-                            String newName = prefix + "_" + fileName;
-                            targetFile = targetXmlDir.resolve(newName);
-                        }
-                        Files.copy(sourceFile, targetFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
-                        logger.error("Error merging XML file: {}", e.getMessage());
-                    }
-                });
+    /**
+     * Builds the archive and manifest served for the job's result, so the first download doesn't
+     * pay for them. A failure here doesn't fail the job; they are then built on first request.
+     */
+    private void prepareResultDownloads(String jobId, Path outputDir) {
+        try {
+            resultArchiveService.buildArchive(outputDir);
+            resultManifestService.getManifest(outputDir);
+        } catch (IOException e) {
+            logger.warn("Could not prepare result downloads for job {}: {}", jobId, e.getMessage());
         }
-        
-        // Merge images
-        Path sourceImagesDir = sourceDir.resolve("images");
-        Path targetImagesDir = targetDir.resolve("images");
-        if (Files.exists(sourceImagesDir)) {
-            Files.list(sourceImagesDir)
-                .filter(Files::isRegularFile)
-                .forEach(sourceFile -> {
-                    try {
-                        String fileName = sourceFile.getFileName().toString();
-                        Path targetFile = targetImagesDir.resolve(fileName);
-                        // If file exists, append with source filename prefix
-                        if (Files.exists(targetFile)) {
-                            String prefix = sourceFileName.replaceAll("[^a-zA-Z0-9]", "_");
-                            String newName = prefix + "_" + fileName;
-                            targetFile = targetImagesDir.resolve(newName);
-                        }
-                        Files.copy(sourceFile, targetFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
-                        logger.error("Error merging image file: {}", e.getMessage());
+    }
+    
+    /**
+     * Extracts the archive in the background, completing each file's future once the file is on disk.
+     * Files the archive turns out not to contain are failed when the extraction ends.
+     */
+    private CompletableFuture<Void> startExtraction(Path zipFile, Path extractedDir,
+                                                    Map<Path, CompletableFuture<Void>> extractedFiles) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                fileStorageService.extractZipFile(zipFile, extractedDir, file -> {
+                    CompletableFuture<Void> extracted = extractedFiles.get(file);
+                    if (extracted != null) {
+                        extracted.complete(null);
                     }
                 });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                IOException notExtracted = new IOException("File was not extracted from the archive");
+                extractedFiles.values().forEach(extracted -> extracted.completeExceptionally(notExtracted));
+            }
+        }, extractionExecutor);
+    }
+    
+    private void awaitExtraction(CompletableFuture<Void> extraction) throws IOException, InterruptedException {
+        try {
+            extraction.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+            throw new IOException("Error extracting ZIP file: " + cause.getMessage(), cause);
         }
-        
-        // Merge chapters
-        Path sourceChaptersDir = sourceDir.resolve("chapters");
-        Path targetChaptersDir = targetDir.resolve("chapters");
-        if (Files.exists(sourceChaptersDir)) {
-            Files.list(sourceChaptersDir)
-                .filter(Files::isRegularFile)
-                .forEach(sourceFile -> {
-                    try {
-                        String fileName = sourceFile.getFileName().toString();
-                        Path targetFile = targetChaptersDir.resolve(fileName);
-                        // If file exists, append with source filename prefix
-                        if (Files.exists(targetFile)) {
-                            String prefix = sourceFileName.replaceAll("[^a-zA-Z0-9]", "_");
-                            String newName = prefix + "_" + fileName;
-                            targetFile = targetChaptersDir.resolve(newName);
-                        }
-                        Files.copy(sourceFile, targetFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
-                        logger.error("Error merging chapter file: {}", e.getMessage());
-                    }
-                });
+    }
+    
+    private void deleteExtractedDirectory(Path extractedDir) {
+        if (extractedDir != null && Files.exists(extractedDir)) {
+            try {
+                deleteDirectory(extractedDir);
+            } catch (Exception e) {
+                logger.warn("Error cleaning up extracted directory: {}", e.getMessage());
+            }
         }
-        
-        // Merge table of contents
-        Path sourceTocDir = sourceDir.resolve("table-of-contents");
-        Path targetTocDir = targetDir.resolve("table-of-contents");
-        if (Files.exists(sourceTocDir)) {
-            Files.list(sourceTocDir)
-                .filter(Files::isRegularFile)
-                .forEach(sourceFile -> {
-                    try {
-                        String fileName = sourceFile.getFileName().toString();
-                        Path targetFile = targetTocDir.resolve(fileName);
-                        // If file exists, append with source filename prefix
-                        if (Files.exists(targetFile)) {
-                            String prefix = sourceFileName.replaceAll("[^a-zA-Z0-9]", "_");
-                            String newName = prefix + "_" + fileName;
-                            targetFile = targetTocDir.resolve(newName);
-                        }
-                        Files.copy(sourceFile, targetFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
-                        logger.error("Error merging TOC file: {}", e.getMessage());
-                    }
-                });
+    }
+    
+    private static ThreadPoolExecutor newFilePool(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), daemonThreads("folder-file-"));
+    }
+    
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+    
+    /**
+     * A file being transformed into the job's output tree.
+     */
+    private record FileTransformation(Path file, DitaOutputNamespace namespace, CompletableFuture<Void> result) {
+    }
+    
+    /**
+     * Queues the file on the shared file pool once it has been extracted, so a file still
+     * waiting for the archive doesn't hold a pool thread. Cancelling the result interrupts
+     * the transformation.
+     */
+    private FileTransformation startFileTransformation(Path fmFile, CompletableFuture<Void> extracted, Path outputDir,
+                                                       DitaOutputNamespace namespace, ImageExtractor images) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        extracted.whenComplete((ignored, extractionError) -> {
+            if (extractionError != null) {
+                result.completeExceptionally(new IOException(
+                    "Error extracting ZIP file: " + extractionError.getMessage(), extractionError));
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            Future<?> task = fileExecutor.submit(() -> {
+                try {
+                    logger.info("Processing file: {}", fmFile.getFileName());
+                    // Transform the file; unchanged files are not parsed again
+                    transformer.transform(fmFile.toFile(), outputDir, parseCache, namespace, images);
+                    result.complete(null);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            result.whenComplete((done, e) -> {
+                if (result.isCancelled()) {
+                    task.cancel(true);
+                }
+            });
+        });
+        return new FileTransformation(fmFile, namespace, result);
+    }
+    
+    /**
+     * Records the outcome of a finished file. Called in file order, so the file lists and
+     * progressive downloads don't depend on which file finished first.
+     */
+    private void commitFileTransformation(String jobId, Path outputDir, FileTransformation fileTransformation,
+                                          List<String> processedFiles, List<String> failedFiles)
+            throws IOException, InterruptedException {
+        Path fmFile = fileTransformation.file();
+        try {
+            fileTransformation.result().get();
+            processedFiles.add(fmFile.getFileName().toString());
+            // Its topics, maps and TOC are final; progressive downloads can send them now
+            jobProgressTracker.addReadyFiles(jobId, namespaceOutputFiles(outputDir, fileTransformation.namespace()));
+            
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof FrameMakerUnsupportedFormatException) {
+                logger.warn("Unsupported format for file {}: {}", fmFile.getFileName(), cause.getMessage());
+            } else {
+                logger.error("Error processing file {}: {}", fmFile.getFileName(), cause.getMessage(), cause);
+            }
+            failedFiles.add(fmFile.getFileName().toString() + " - " + cause.getMessage());
+            // Don't leave a partial document behind in the output
+            deleteNamespaceOutput(outputDir, fileTransformation.namespace());
         }
     }
     
-    private int countFilesInDirectory(Path directory) {
+    private void deleteNamespaceOutput(Path outputDir, DitaOutputNamespace namespace) {
         try {
-            if (!Files.exists(directory) || !Files.isDirectory(directory)) {
-                return 0;
+            for (Path file : namespaceOutputFiles(outputDir, namespace)) {
+                Files.deleteIfExists(file);
             }
-            return (int) Files.list(directory)
-                .filter(Files::isRegularFile)
-                .count();
         } catch (IOException e) {
-            logger.warn("Error counting files in directory: {}", e.getMessage());
-            return 0;
+            logger.warn("Error removing partial output in {}: {}", outputDir, e.getMessage());
         }
     }
     
+    /**
+     * Topics, chapter maps and TOC written into the output tree under the namespace.
+     */
+    private List<Path> namespaceOutputFiles(Path outputDir, DitaOutputNamespace namespace) throws IOException {
+        List<Path> owned = new ArrayList<>();
+        for (String subdir : Arrays.asList("xml", "chapters", "table-of-contents")) {
+            Path dir = outputDir.resolve(subdir);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(dir)) {
+                files.filter(file -> namespace.owns(file.getFileName().toString()))
+                    .sorted()
+                    .forEach(owned::add);
+            }
+        }
+        return owned;
+    }
+    
     private void ensureMainDitamap(Path outputDir) throws IOException {
         Path mainMap = outputDir.resolve("main.ditamap");
         if (!Files.exists(mainMap)) {
@@ -459,22 +629,37 @@ public class TransformationServiceImpl implements TransformationService {
         logger.info("Image files copied to: {}", imagesDir);
     }
     
+    @Override
+    public ParseCacheStats getParseCacheStats() {
+        return parseCache != null ? parseCache.getStats() : null;
+    }
+    
+    @Override
+    public PipelineStats getPipelineStats() {
+        return transformer.getPipelineStats();
+    }
+    
+    @Override
+    public JobQueueStats getJobQueueStats() {
+        return jobDispatcher.getStats();
+    }
+    
     @Override
     public TransformationResponse getJobResult(String jobId) {
-        Optional<TransformationJob> jobOpt = jobRepository.findByJobId(jobId);
-        if (jobOpt.isEmpty()) {
+        Optional<JobState> stateOpt = findJobState(jobId);
+        if (stateOpt.isEmpty()) {
             return null;
         }
         
-        TransformationJob job = jobOpt.get();
+        JobState state = stateOpt.get();
         TransformationResponse response = new TransformationResponse();
         response.setJobId(jobId);
-        response.setStatus(job.getStatus());
-        response.setCreatedAt(job.getCreatedAt());
-        response.setOutputPath(job.getOutputPath());
+        response.setStatus(state.getStatus());
+        response.setCreatedAt(state.getCreatedAt());
+        response.setOutputPath(state.getOutputPath());
         
-        if (job.getErrorMessage() != null) {
-            response.setMessage(job.getErrorMessage());
+        if (state.getErrorMessage() != null) {
+            response.setMessage(state.getErrorMessage());
         }
         
         return response;
@@ -1,6 +1,7 @@
 package com.cms.projects.transformation.transformer;
 
 import com.cms.projects.transformation.dita.model.DitaElement;
+import com.cms.projects.transformation.dita.model.DitaElementKind;
 import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
 
 import java.util.ArrayList;
@@ -25,9 +26,9 @@ public class ContentMapper {
         DitaElement element = new DitaElement();
         
         if (paragraph.isTable()) {
-            element.setType("simpletable");
+            element.setKind(DitaElementKind.SIMPLETABLE);
         } else {
-            element.setType("p");
+            element.setKind(DitaElementKind.P);
         }
         
         if (paragraph.getText() != null) {
@@ -38,7 +39,7 @@ public class ContentMapper {
         if (!paragraph.getImageReferences().isEmpty()) {
             for (String imageRef : paragraph.getImageReferences()) {
                 DitaElement imageElement = new DitaElement();
-                imageElement.setType("image");
+                imageElement.setKind(DitaElementKind.IMAGE);
                 String imagePath = "../images/" + extractImageFileName(imageRef);
                 imageElement.setHref(imagePath);
                 element.addChild(imageElement);
@@ -0,0 +1,70 @@
+package com.cms.projects.transformation.transformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Records what images the files of a folder transformation reference, for use while the
+ * images may not be on disk yet, e.g. while the rest of the archive is still being extracted;
+ * {@link #extractDeferred()} copies them once they are. Requests are kept per file index and
+ * replayed in file order with each file's references sorted, so colliding image names are
+ * resolved the same way however the transformations were scheduled. Safe to share between
+ * transformations running at the same time.
+ */
+public class DeferredImageExtractor {
+
+    private record Target(File sourceFile, Path outputImagesDir) {
+    }
+
+    private final ImageExtractor extractor = new ImageExtractor();
+
+    // File index -> where the images go -> the references to copy there
+    private final SortedMap<Integer, Map<Target, SortedSet<String>>> requests = new TreeMap<>();
+
+    /**
+     * An extractor that records the images of the file at {@code fileIndex} instead of copying them.
+     */
+    public ImageExtractor forFile(int fileIndex) {
+        return new ImageExtractor() {
+            @Override
+            public List<String> extractImages(List<String> imageReferences, File sourceFile, Path outputImagesDir) {
+                if (imageReferences != null && !imageReferences.isEmpty()) {
+                    record(fileIndex, new Target(sourceFile, outputImagesDir), imageReferences);
+                }
+                return List.of();
+            }
+        };
+    }
+
+    private synchronized void record(int fileIndex, Target target, List<String> imageReferences) {
+        requests.computeIfAbsent(fileIndex, index -> new LinkedHashMap<>())
+            .computeIfAbsent(target, t -> new TreeSet<>())
+            .addAll(imageReferences);
+    }
+
+    /**
+     * Extracts every recorded image, in file order.
+     */
+    public void extractDeferred() throws IOException {
+        List<Map<Target, SortedSet<String>>> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(requests.values());
+            requests.clear();
+        }
+        for (Map<Target, SortedSet<String>> fileRequests : pending) {
+            for (Map.Entry<Target, SortedSet<String>> request : fileRequests.entrySet()) {
+                Target target = request.getKey();
+                extractor.extractImages(new ArrayList<>(request.getValue()), target.sourceFile(), target.outputImagesDir());
+            }
+        }
+    }
+}
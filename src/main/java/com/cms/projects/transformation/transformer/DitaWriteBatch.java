@@ -0,0 +1,125 @@
+package com.cms.projects.transformation.transformer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.OptionalLong;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the output file writes of one transformation on a shared executor.
+ * At most {@code maxInFlight} writes are queued or running at once; {@link #submit}
+ * blocks until a slot frees up, so a fast producer cannot pile up topics in memory.
+ * File names are decided by the caller before submitting, which keeps the output
+ * the same whatever order the writes finish in. The first failure is kept and
+ * rethrown from {@link #submit} or {@link #await}.
+ */
+final class DitaWriteBatch implements AutoCloseable {
+
+    @FunctionalInterface
+    interface WriteTask {
+        void write() throws IOException;
+    }
+
+    private final Executor executor;
+    private final int maxInFlight;
+    private final Semaphore slots;
+    private final PipelineMetrics.StageCounter counter;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong firstWriteNanos = new AtomicLong();
+
+    DitaWriteBatch(Executor executor, int maxInFlight) {
+        this(executor, maxInFlight, new PipelineMetrics.StageCounter());
+    }
+
+    DitaWriteBatch(Executor executor, int maxInFlight, PipelineMetrics.StageCounter counter) {
+        this.executor = executor;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.slots = new Semaphore(this.maxInFlight);
+        this.counter = counter;
+    }
+
+    void submit(WriteTask task) throws IOException {
+        rethrowFailure();
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to write output");
+        }
+        counter.enqueued();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.write();
+                    firstWriteNanos.compareAndSet(0, System.nanoTime());
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    counter.dequeued();
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            counter.dropped();
+            slots.release();
+            throw new IOException("Output writer rejected task", e);
+        }
+    }
+
+    /**
+     * {@link System#nanoTime()} when the first write completed, or empty if none has yet.
+     */
+    OptionalLong getFirstWriteNanos() {
+        long nanos = firstWriteNanos.get();
+        return nanos != 0 ? OptionalLong.of(nanos) : OptionalLong.empty();
+    }
+
+    /**
+     * Waits for every submitted write to finish and rethrows the first failure, if any.
+     */
+    void await() throws IOException {
+        try {
+            slots.acquire(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for output writes");
+        }
+        slots.release(maxInFlight);
+        rethrowFailure();
+    }
+
+    /**
+     * Waits for outstanding writes without reporting failures, so nothing is still
+     * writing into the output directory once the transformation has returned.
+     */
+    @Override
+    public void close() {
+        slots.acquireUninterruptibly(maxInFlight);
+        slots.release(maxInFlight);
+    }
+
+    private void rethrowFailure() throws IOException {
+        Throwable t = failure.get();
+        if (t == null) {
+            return;
+        }
+        if (t instanceof UncheckedIOException unchecked) {
+            t = unchecked.getCause();
+        }
+        if (t instanceof IOException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (t instanceof RuntimeException e) {
+            throw e;
+        }
+        if (t instanceof Error e) {
+            throw e;
+        }
+        throw new IOException(t);
+    }
+}
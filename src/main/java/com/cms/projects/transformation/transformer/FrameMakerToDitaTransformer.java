@@ -1,50 +1,147 @@
 package com.cms.projects.transformation.transformer;
 
+import com.cms.projects.transformation.config.ThreadPools;
 import com.cms.projects.transformation.dita.generator.*;
 import com.cms.projects.transformation.dita.model.*;
 import com.cms.projects.transformation.dita.writer.*;
+import com.cms.projects.transformation.dto.PipelineStats;
+import com.cms.projects.transformation.framemaker.cache.FrameMakerParseCache;
 import com.cms.projects.transformation.framemaker.exception.FrameMakerParseException;
 import com.cms.projects.transformation.framemaker.exception.FrameMakerUnsupportedFormatException;
 import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
 import com.cms.projects.transformation.framemaker.parser.FrameMakerMifParser;
 import com.cms.projects.transformation.framemaker.parser.FrameMakerParser;
 import com.cms.projects.transformation.framemaker.parser.FrameMakerBinaryParser;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerEventHandler;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerEventParser;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerMifStatementParser;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerParallelMifParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class FrameMakerToDitaTransformer {
     
+    private static final Logger logger = LoggerFactory.getLogger(FrameMakerToDitaTransformer.class);
+    
     private final FrameMakerMifParser mifParser;
     private final FrameMakerBinaryParser binaryParser;
+    private final FrameMakerEventParser largeFileParser;
+    private final FrameMakerMifStatementParser statementParser;
     private final DitaStructureBuilder structureBuilder;
     private final DitaTopicWriter topicWriter;
     private final DitaMapWriter mapWriter;
-    private final TableOfContentsGenerator tocGenerator;
     private final TableOfContentsWriter tocWriter;
     private final ImageExtractor imageExtractor;
     private final TableExtractor tableExtractor;
+    private final ThreadPoolExecutor writerExecutor;
+    private final ExecutorService parseExecutor;
+    private final PipelineMetrics pipelineMetrics;
+    
+    // MIF files at least this large are parsed as events and written section by section
+    @Value("${transformation.framemaker.streaming-threshold:32MB}")
+    private DataSize streamingThreshold = DataSize.ofMegabytes(32);
+    
+    // Parsed sections that may wait for the mapping stage before the parser blocks
+    @Value("${transformation.pipeline.section-queue-capacity:32}")
+    private int sectionQueueCapacity = 32;
+    
+    // Write topics without indentation or line breaks
+    @Value("${transformation.dita.compact-output:false}")
+    public void setCompactOutput(boolean compactOutput) {
+        topicWriter.setCompact(compactOutput);
+    }
+    
+    // Threads writing topic, map and TOC files; 0 means one per available processor
+    @Value("${transformation.dita.writer-threads:0}")
+    public void setWriterThreads(int writerThreads) {
+        ThreadPools.resize(writerExecutor, writerThreads);
+    }
     
     public FrameMakerToDitaTransformer() {
         this.mifParser = new FrameMakerMifParser();
         this.binaryParser = new FrameMakerBinaryParser();
+        this.largeFileParser = new FrameMakerParallelMifParser();
+        this.statementParser = new FrameMakerMifStatementParser();
         this.structureBuilder = new DitaStructureBuilder();
         this.topicWriter = new DitaTopicWriter();
         this.mapWriter = new DitaMapWriter();
-        this.tocGenerator = new TableOfContentsGenerator();
         this.tocWriter = new TableOfContentsWriter();
         this.imageExtractor = new ImageExtractor();
         this.tableExtractor = new TableExtractor();
+        this.writerExecutor = createWriterExecutor(Runtime.getRuntime().availableProcessors());
+        this.parseExecutor = Executors.newCachedThreadPool(daemonThreadFactory("dita-parser-"));
+        this.pipelineMetrics = new PipelineMetrics();
     }
     
     public void transform(File inputFile, Path outputDir) 
             throws FrameMakerParseException, FrameMakerUnsupportedFormatException, IOException {
+        transform(inputFile, outputDir, null);
+    }
+    
+    /**
+     * Transforms a file, reusing an earlier parse of identical content from the cache when there is one.
+     * A miss parses as usual and records the result under the file's content hash.
+     */
+    public void transform(File inputFile, Path outputDir, FrameMakerParseCache parseCache) 
+            throws FrameMakerParseException, FrameMakerUnsupportedFormatException, IOException {
+        transform(inputFile, outputDir, parseCache, DitaOutputNamespace.DEFAULT);
+    }
+    
+    /**
+     * Transforms a file into an output tree that other transformations may be writing into at the
+     * same time. Every file written is named within {@code namespace}, and only those files are validated.
+     */
+    public void transform(File inputFile, Path outputDir, FrameMakerParseCache parseCache, DitaOutputNamespace namespace) 
+            throws FrameMakerParseException, FrameMakerUnsupportedFormatException, IOException {
+        transform(inputFile, outputDir, parseCache, namespace, imageExtractor);
+    }
+    
+    /**
+     * Transforms a file with its images copied by {@code images}, e.g. one from {@link DeferredImageExtractor#forFile}
+     * when the images may not all be on disk yet.
+     */
+    public void transform(File inputFile, Path outputDir, FrameMakerParseCache parseCache, DitaOutputNamespace namespace,
+                          ImageExtractor images) 
+            throws FrameMakerParseException, FrameMakerUnsupportedFormatException, IOException {
+        
+        long startNanos = System.nanoTime();
+        pipelineMetrics.transformationStarted();
+        try {
+            transformFile(inputFile, outputDir, parseCache, namespace, images, startNanos);
+        } finally {
+            pipelineMetrics.transformationFinished();
+        }
+    }
+    
+    /**
+     * Current and peak queue depths of the parse, map and write stages.
+     */
+    public PipelineStats getPipelineStats() {
+        return pipelineMetrics.snapshot(sectionQueueCapacity, writeQueueCapacity());
+    }
+    
+    private void transformFile(File inputFile, Path outputDir, FrameMakerParseCache parseCache,
+                               DitaOutputNamespace namespace, ImageExtractor images, long startNanos)
+            throws FrameMakerParseException, FrameMakerUnsupportedFormatException, IOException {
         
         // Create output directory structure
         Path xmlDir = outputDir.resolve("xml");
@@ -57,60 +154,141 @@ public class FrameMakerToDitaTransformer {
         Files.createDirectories(chaptersDir);
         Files.createDirectories(tocDir);
         
-        // Parse FrameMaker file
-        FrameMakerDocument document = parseFrameMakerFile(inputFile);
+        String cacheKey = null;
+        if (parseCache != null && parseCache.isEnabled() && !binaryParser.supports(inputFile)) {
+            cacheKey = parseCache.key(inputFile);
+        }
         
-        // Extract images
-        List<String> imageReferences = document.getAllImageReferences();
-        if (!imageReferences.isEmpty()) {
-            imageExtractor.extractImages(imageReferences, inputFile, imagesDir);
+        // Every write below is independent; file names are fixed before each write is submitted
+        try (DitaWriteBatch writeBatch = new DitaWriteBatch(writerExecutor, writeQueueCapacity(), pipelineMetrics.writes())) {
+            writeOutput(inputFile, outputDir, parseCache, cacheKey, namespace, images, writeBatch);
+            writeBatch.await();
+            OptionalLong firstWriteNanos = writeBatch.getFirstWriteNanos();
+            if (firstWriteNanos.isPresent()) {
+                logger.debug("Wrote output of {}: first file after {} ms, all files after {} ms", inputFile.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(firstWriteNanos.getAsLong() - startNanos),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            } else {
+                logger.debug("Wrote no output files for {} after {} ms", inputFile.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
         }
         
-        // Build DITA topics
-        List<DitaTopic> topics = structureBuilder.buildTopics(document);
+        // Validate output
+        validateOutput(outputDir, namespace);
+    }
+    
+    private void writeOutput(File inputFile, Path outputDir, FrameMakerParseCache parseCache, String cacheKey,
+                             DitaOutputNamespace namespace, ImageExtractor images, DitaWriteBatch writeBatch)
+            throws FrameMakerParseException, FrameMakerUnsupportedFormatException, IOException {
         
-        // Write topics to xml/
-        List<String> allTopicPaths = new ArrayList<>();
-        for (DitaTopic topic : topics) {
-            Path topicPath = xmlDir.resolve(topic.getFileName());
-            topicWriter.write(topic, topicPath);
-            allTopicPaths.add(topic.getFileName());
-        }
+        Path xmlDir = outputDir.resolve("xml");
+        Path imagesDir = outputDir.resolve("images");
+        Path chaptersDir = outputDir.resolve("chapters");
+        Path tocDir = outputDir.resolve("table-of-contents");
+        
+        DitaStructure structure;
         
-        // Build chapter maps
-        List<List<String>> topicPathsPerChapter = new ArrayList<>();
-        int topicIndex = 0;
-        for (var chapter : document.getChapters()) {
-            List<String> chapterTopics = new ArrayList<>();
-            int sectionCount = chapter.getSections().size();
-            for (int i = 0; i < sectionCount && topicIndex < allTopicPaths.size(); i++) {
-                chapterTopics.add(allTopicPaths.get(topicIndex++));
+        FrameMakerEventParser eventParser = findStreamingParser(inputFile);
+        if (eventParser != null) {
+            // Pipeline: the parser thread queues finished sections, this thread maps them to topics,
+            // and the writer threads write them, so output starts while later chapters are parsed
+            StreamingDitaWriter streamingWriter = new StreamingDitaWriter(
+                structureBuilder, namespace, topicWriter, writeBatch, images, inputFile, xmlDir, imagesDir);
+            SectionPipeline pipeline = new SectionPipeline(sectionQueueCapacity, pipelineMetrics.sections());
+            try {
+                pipeline.run(parseExecutor,
+                    handler -> parseEvents(eventParser, inputFile, parseCache, cacheKey, handler), streamingWriter);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            structure = streamingWriter.getStructure();
+        } else {
+            // Parse FrameMaker file, unless identical content has been parsed before
+            FrameMakerDocument document = cacheKey != null ? parseCache.get(cacheKey, inputFile.getPath()) : null;
+            if (document == null) {
+                document = parseFrameMakerFile(inputFile);
+                if (cacheKey != null) {
+                    parseCache.put(cacheKey, document);
+                }
+            }
+            
+            // Extract images
+            List<String> imageReferences = document.getAllImageReferences();
+            if (!imageReferences.isEmpty()) {
+                images.extractImages(imageReferences, inputFile, imagesDir);
+            }
+            
+            // Build topics, maps and TOC in one pass over the document
+            structure = structureBuilder.build(document, namespace);
+            
+            // Write topics to xml/
+            for (DitaTopic topic : structure.getTopics()) {
+                Path topicPath = xmlDir.resolve(topic.getFileName());
+                writeBatch.submit(() -> topicWriter.write(topic, topicPath));
             }
-            topicPathsPerChapter.add(chapterTopics);
         }
         
-        List<DitaMap> chapterMaps = structureBuilder.buildChapterMaps(document, topicPathsPerChapter);
-        
         // Write chapter maps to chapters/
-        List<String> chapterMapPaths = new ArrayList<>();
-        for (DitaMap chapterMap : chapterMaps) {
+        for (DitaMap chapterMap : structure.getChapterMaps()) {
             Path chapterMapPath = chaptersDir.resolve(chapterMap.getFileName());
-            mapWriter.write(chapterMap, chapterMapPath);
-            chapterMapPaths.add(chapterMap.getFileName());
+            writeBatch.submit(() -> mapWriter.write(chapterMap, chapterMapPath));
         }
         
-        // Generate and write main map
-        DitaMap mainMap = structureBuilder.buildMainMap(document, chapterMapPaths);
-        Path mainMapPath = outputDir.resolve(mainMap.getFileName());
-        mapWriter.write(mainMap, mainMapPath);
-        
-        // Generate and write table of contents
-        List<TocEntry> tocEntries = tocGenerator.generateToc(document);
-        Path tocPath = tocDir.resolve("toc.xml");
-        tocWriter.write(tocEntries, tocPath);
+        // Write main map
+        if (namespace.writesMainMap()) {
+            DitaMap mainMap = structure.getMainMap();
+            Path mainMapPath = outputDir.resolve(mainMap.getFileName());
+            writeBatch.submit(() -> mapWriter.write(mainMap, mainMapPath));
+        }
         
-        // Validate output
-        validateOutput(outputDir);
+        // Write table of contents
+        List<TocEntry> tocEntries = structure.getTocEntries();
+        Path tocPath = tocDir.resolve(namespace.tocFileName());
+        writeBatch.submit(() -> tocWriter.write(tocEntries, tocPath));
+    }
+    
+    private void parseEvents(FrameMakerEventParser eventParser, File inputFile, FrameMakerParseCache parseCache,
+                             String cacheKey, FrameMakerEventHandler handler)
+            throws FrameMakerParseException, IOException {
+        if (cacheKey == null) {
+            eventParser.parse(inputFile, handler);
+        } else if (!parseCache.replay(cacheKey, handler)) {
+            try (FrameMakerParseCache.Recorder recorder = parseCache.record(cacheKey, handler)) {
+                eventParser.parse(inputFile, recorder);
+                recorder.commit();
+            }
+        }
+    }
+    
+    private int writeQueueCapacity() {
+        return writerExecutor.getMaximumPoolSize() * 4;
+    }
+    
+    private static ThreadPoolExecutor createWriterExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), daemonThreadFactory("dita-writer-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private FrameMakerEventParser findStreamingParser(File file) {
+        if (binaryParser.supports(file) || file.length() < streamingThreshold.toBytes()) {
+            return null;
+        }
+        if (statementParser.supports(file)) {
+            return statementParser;
+        }
+        return largeFileParser.supports(file) ? largeFileParser : null;
     }
     
     private FrameMakerDocument parseFrameMakerFile(File file) 
@@ -121,6 +299,9 @@ public class FrameMakerToDitaTransformer {
             throw new FrameMakerUnsupportedFormatException(
                 "Binary FrameMaker (.fm) files are not supported. Please use MIF format."
             );
+        } else if (statementParser.supports(file)) {
+            // Native MIF statement syntax; the legacy parser only reads the XML flavour
+            parser = statementParser;
         } else if (mifParser.supports(file)) {
             parser = mifParser;
         } else {
@@ -132,29 +313,30 @@ public class FrameMakerToDitaTransformer {
         return parser.parse(file);
     }
     
-    private void validateOutput(Path outputDir) throws IOException {
+    private void validateOutput(Path outputDir, DitaOutputNamespace namespace) throws IOException {
         // Check that main.ditamap exists
-        Path mainMap = outputDir.resolve("main.ditamap");
-        if (!Files.exists(mainMap)) {
+        Path mainMap = outputDir.resolve(DitaNaming.MAIN_MAP_FILE_NAME);
+        if (namespace.writesMainMap() && !Files.exists(mainMap)) {
             throw new IOException("Main DITA map not generated");
         }
         
         // Check that toc.xml exists
-        Path tocFile = outputDir.resolve("table-of-contents").resolve("toc.xml");
+        Path tocFile = outputDir.resolve("table-of-contents").resolve(namespace.tocFileName());
         if (!Files.exists(tocFile)) {
             throw new IOException("Table of contents not generated");
         }
         
         // Validate XML files are well-formed (basic check)
-        validateXmlFiles(outputDir);
+        validateXmlFiles(outputDir, namespace);
     }
     
-    private void validateXmlFiles(Path outputDir) throws IOException {
+    private void validateXmlFiles(Path outputDir, DitaOutputNamespace namespace) throws IOException {
         // Basic validation - check that files exist and are not empty
         Path xmlDir = outputDir.resolve("xml");
         if (Files.exists(xmlDir)) {
             Files.list(xmlDir)
-                .filter(path -> path.toString().endsWith(".xml"))
+                // Topics of other namespaces may still be being written
+                .filter(path -> path.toString().endsWith(".xml") && namespace.owns(path.getFileName().toString()))
                 .forEach(path -> {
                     try {
                         if (Files.size(path) == 0) {
@@ -6,11 +6,16 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class ImageExtractor {
     
+    // Striped, so images going to different directories are placed without waiting on each other
+    private static final Object[] DIRECTORY_LOCKS = Stream.generate(Object::new).limit(64).toArray();
+    
     public List<String> extractImages(List<String> imageReferences, File sourceFile, Path outputImagesDir) throws IOException {
         List<String> extractedImages = new ArrayList<>();
         
@@ -34,8 +39,17 @@ public class ImageExtractor {
                 if (imageFile != null && imageFile.exists()) {
                     // Copy to output directory
                     String fileName = extractFileName(imageRef);
-                    Path targetPath = outputImagesDir.resolve(fileName);
-                    FileUtils.copyFile(imageFile, targetPath.toFile());
+                    // Other documents may copy into this directory at the same time, so the copy
+                    // only becomes visible under its final name once it is complete
+                    Path partialPath = Files.createTempFile(outputImagesDir, fileName, ".part");
+                    try {
+                        FileUtils.copyFile(imageFile, partialPath.toFile());
+                        synchronized (directoryLock(outputImagesDir)) {
+                            fileName = placeImage(partialPath, outputImagesDir, fileName, sourceFile);
+                        }
+                    } finally {
+                        Files.deleteIfExists(partialPath);
+                    }
                     extractedImages.add(fileName);
                 } else {
                     // If file not found, create a placeholder note
@@ -49,6 +63,31 @@ public class ImageExtractor {
         return extractedImages;
     }
     
+    /**
+     * Moves a copied image to its name in the images directory and returns that name. An
+     * identical image already there is reused; a different one keeps its name, and this one
+     * is renamed with the source file name as a prefix, plus a counter if that is taken too.
+     */
+    private String placeImage(Path partialPath, Path outputImagesDir, String fileName, File sourceFile) throws IOException {
+        String prefix = sourceFile.getName().replaceAll("[^a-zA-Z0-9]", "_");
+        String candidate = fileName;
+        for (int n = 2; ; n++) {
+            Path targetPath = outputImagesDir.resolve(candidate);
+            if (!Files.exists(targetPath)) {
+                Files.move(partialPath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+                return candidate;
+            }
+            if (Files.mismatch(partialPath, targetPath) == -1) {
+                return candidate;
+            }
+            candidate = n == 2 ? prefix + "_" + fileName : prefix + "_" + n + "_" + fileName;
+        }
+    }
+    
+    private static Object directoryLock(Path directory) {
+        return DIRECTORY_LOCKS[Math.floorMod(directory.toAbsolutePath().normalize().hashCode(), DIRECTORY_LOCKS.length)];
+    }
+    
     private File findImageFile(String imageRef, File sourceDir, File sourceFile) {
         // Clean up the image reference
         String cleanRef = imageRef.trim();
@@ -0,0 +1,64 @@
+package com.cms.projects.transformation.transformer;
+
+import com.cms.projects.transformation.dto.PipelineStats;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue depth counters for the stages of {@link FrameMakerToDitaTransformer}: parsed
+ * sections waiting to be mapped to topics, and output files waiting to be written.
+ */
+final class PipelineMetrics {
+
+    /**
+     * Items currently queued for one stage, the highest depth seen, and items taken off so far.
+     * An item counts from the moment its producer tries to queue it, so a producer blocked on
+     * a full queue shows up as one item over capacity.
+     */
+    static final class StageCounter {
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicInteger peakDepth = new AtomicInteger();
+        private final AtomicLong processed = new AtomicLong();
+
+        void enqueued() {
+            peakDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+        }
+
+        void dequeued() {
+            depth.decrementAndGet();
+            processed.incrementAndGet();
+        }
+
+        // Taken off the queue without being processed
+        void dropped() {
+            depth.decrementAndGet();
+        }
+    }
+
+    private final StageCounter sections = new StageCounter();
+    private final StageCounter writes = new StageCounter();
+    private final AtomicInteger activeTransformations = new AtomicInteger();
+
+    StageCounter sections() {
+        return sections;
+    }
+
+    StageCounter writes() {
+        return writes;
+    }
+
+    void transformationStarted() {
+        activeTransformations.incrementAndGet();
+    }
+
+    void transformationFinished() {
+        activeTransformations.decrementAndGet();
+    }
+
+    PipelineStats snapshot(int sectionQueueCapacity, int writeQueueCapacity) {
+        return new PipelineStats(activeTransformations.get(),
+            sectionQueueCapacity, sections.depth.get(), sections.peakDepth.get(), sections.processed.get(),
+            writeQueueCapacity, writes.depth.get(), writes.peakDepth.get(), writes.processed.get());
+    }
+}
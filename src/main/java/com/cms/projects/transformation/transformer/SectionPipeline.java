@@ -0,0 +1,213 @@
+package com.cms.projects.transformation.transformer;
+
+import com.cms.projects.transformation.framemaker.exception.FrameMakerParseException;
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerEventHandler;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * Connects the parse stage to the mapping stage through a bounded queue.
+ * The parser runs on its own thread and hands over each section once it is
+ * complete, together with the chapter and document events around it; the calling
+ * thread replays them, in document order, to the mapping handler. When the queue is
+ * full the parser waits, so at most {@code capacity} parsed sections are held at once.
+ */
+final class SectionPipeline implements FrameMakerEventHandler {
+
+    @FunctionalInterface
+    interface ParseStage {
+        void parse(FrameMakerEventHandler handler) throws FrameMakerParseException, IOException;
+    }
+
+    private static final Consumer<FrameMakerEventHandler> END = handler -> { };
+
+    private final BlockingQueue<Consumer<FrameMakerEventHandler>> queue;
+    private final PipelineMetrics.StageCounter counter;
+    private volatile boolean cancelled;
+
+    // Parser thread only: events of the section being read
+    private List<Consumer<FrameMakerEventHandler>> sectionEvents;
+
+    SectionPipeline(int capacity, PipelineMetrics.StageCounter counter) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.counter = counter;
+    }
+
+    /**
+     * Runs {@code parseStage} on {@code parseExecutor} and feeds its events to {@code mapper}
+     * on the calling thread. Returns when the document has been fully mapped; a failure in
+     * either stage stops the other and is rethrown here.
+     */
+    void run(Executor parseExecutor, ParseStage parseStage, FrameMakerEventHandler mapper)
+            throws FrameMakerParseException, IOException {
+        FutureTask<Void> parseTask = new FutureTask<>(() -> {
+            try {
+                parseStage.parse(this);
+            } finally {
+                if (!cancelled) {
+                    putEnd();
+                }
+            }
+            return null;
+        });
+        parseExecutor.execute(parseTask);
+
+        try {
+            Consumer<FrameMakerEventHandler> item;
+            while ((item = queue.take()) != END) {
+                counter.dequeued();
+                item.accept(mapper);
+            }
+        } catch (InterruptedException e) {
+            cancel(parseTask);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while mapping parsed sections");
+        } catch (RuntimeException | Error e) {
+            cancel(parseTask);
+            throw e;
+        }
+
+        try {
+            parseTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the parser");
+        } catch (ExecutionException e) {
+            rethrowParseFailure(e.getCause());
+        }
+    }
+
+    @Override
+    public void startDocument(String title) {
+        put(handler -> handler.startDocument(title));
+    }
+
+    @Override
+    public void startChapter(FrameMakerChapter chapter) {
+        put(handler -> handler.startChapter(chapter));
+    }
+
+    @Override
+    public void startSection(FrameMakerSection section) {
+        sectionEvents = new ArrayList<>();
+        sectionEvents.add(handler -> handler.startSection(section));
+    }
+
+    @Override
+    public void paragraph(FrameMakerParagraph paragraph) {
+        event(handler -> handler.paragraph(paragraph));
+    }
+
+    @Override
+    public void image(String imageReference) {
+        event(handler -> handler.image(imageReference));
+    }
+
+    @Override
+    public void table(FrameMakerParagraph table) {
+        event(handler -> handler.table(table));
+    }
+
+    @Override
+    public void endSection() {
+        List<Consumer<FrameMakerEventHandler>> events = sectionEvents;
+        sectionEvents = null;
+        if (events == null) {
+            put(FrameMakerEventHandler::endSection);
+            return;
+        }
+        events.add(FrameMakerEventHandler::endSection);
+        put(handler -> events.forEach(event -> event.accept(handler)));
+    }
+
+    @Override
+    public void endChapter() {
+        put(FrameMakerEventHandler::endChapter);
+    }
+
+    @Override
+    public void endDocument() {
+        put(FrameMakerEventHandler::endDocument);
+    }
+
+    private void event(Consumer<FrameMakerEventHandler> event) {
+        if (sectionEvents != null) {
+            sectionEvents.add(event);
+        } else {
+            put(event);
+        }
+    }
+
+    private void put(Consumer<FrameMakerEventHandler> item) {
+        if (cancelled) {
+            throw new IllegalStateException("Transformation pipeline was cancelled");
+        }
+        counter.enqueued();
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            counter.dropped();
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while queueing parsed sections"));
+        }
+    }
+
+    private void putEnd() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(END);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void cancel(FutureTask<Void> parseTask) {
+        cancelled = true;
+        parseTask.cancel(true);
+        List<Consumer<FrameMakerEventHandler>> dropped = new ArrayList<>();
+        queue.drainTo(dropped);
+        for (Consumer<FrameMakerEventHandler> item : dropped) {
+            if (item != END) {
+                counter.dropped();
+            }
+        }
+    }
+
+    private static void rethrowParseFailure(Throwable cause) throws FrameMakerParseException, IOException {
+        if (cause instanceof UncheckedIOException unchecked) {
+            cause = unchecked.getCause();
+        }
+        if (cause instanceof FrameMakerParseException e) {
+            throw e;
+        }
+        if (cause instanceof IOException e) {
+            throw e;
+        }
+        if (cause instanceof RuntimeException e) {
+            throw e;
+        }
+        if (cause instanceof Error e) {
+            throw e;
+        }
+        throw new IOException(cause);
+    }
+}
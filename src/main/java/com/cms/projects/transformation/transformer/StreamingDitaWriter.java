@@ -0,0 +1,126 @@
+package com.cms.projects.transformation.transformer;
+
+import com.cms.projects.transformation.dita.generator.DitaDocumentVisitor;
+import com.cms.projects.transformation.dita.generator.DitaOutputNamespace;
+import com.cms.projects.transformation.dita.generator.DitaStructureBuilder;
+import com.cms.projects.transformation.dita.model.DitaStructure;
+import com.cms.projects.transformation.dita.model.DitaTopic;
+import com.cms.projects.transformation.dita.writer.DitaTopicWriter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerEventHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes parser events and writes each section's topic as soon as the section ends.
+ * Sections are fed to a {@link DitaDocumentVisitor}, which numbers them and keeps only
+ * the chapter map references and TOC entries; paragraphs are dropped once the topic
+ * has been written. Topic writes go to a {@link DitaWriteBatch}; the topic's file name
+ * is fixed here, in document order, before the write is handed off.
+ */
+class StreamingDitaWriter implements FrameMakerEventHandler {
+
+    private final DitaDocumentVisitor visitor;
+    private final DitaTopicWriter topicWriter;
+    private final DitaWriteBatch writeBatch;
+    private final ImageExtractor imageExtractor;
+    private final File inputFile;
+    private final Path xmlDir;
+    private final Path imagesDir;
+
+    private FrameMakerChapter currentChapter;
+    private FrameMakerSection currentSection;
+    private int tableCount;
+    private DitaStructure structure;
+
+    StreamingDitaWriter(DitaStructureBuilder structureBuilder, DitaOutputNamespace namespace,
+                        DitaTopicWriter topicWriter, DitaWriteBatch writeBatch,
+                        ImageExtractor imageExtractor, File inputFile, Path xmlDir, Path imagesDir) {
+        this.visitor = structureBuilder.newVisitor(namespace);
+        this.topicWriter = topicWriter;
+        this.writeBatch = writeBatch;
+        this.imageExtractor = imageExtractor;
+        this.inputFile = inputFile;
+        this.xmlDir = xmlDir;
+        this.imagesDir = imagesDir;
+    }
+
+    @Override
+    public void startDocument(String title) {
+        visitor.startDocument(title);
+    }
+
+    @Override
+    public void startChapter(FrameMakerChapter chapter) {
+        currentChapter = chapter;
+        visitor.startChapter();
+    }
+
+    @Override
+    public void startSection(FrameMakerSection section) {
+        currentSection = section;
+    }
+
+    @Override
+    public void paragraph(FrameMakerParagraph paragraph) {
+        currentSection.addParagraph(paragraph);
+    }
+
+    @Override
+    public void image(String imageReference) {
+        FrameMakerParagraph paragraph = new FrameMakerParagraph();
+        paragraph.addImageReference(imageReference);
+        currentSection.addParagraph(paragraph);
+    }
+
+    @Override
+    public void table(FrameMakerParagraph table) {
+        currentSection.addParagraph(table);
+        visitor.visitTableReference("table_" + (++tableCount));
+    }
+
+    @Override
+    public void endSection() {
+        try {
+            List<String> imageReferences = new ArrayList<>();
+            for (FrameMakerParagraph paragraph : currentSection.getParagraphs()) {
+                imageReferences.addAll(paragraph.getImageReferences());
+            }
+            if (!imageReferences.isEmpty()) {
+                imageExtractor.extractImages(imageReferences, inputFile, imagesDir);
+            }
+
+            DitaTopic topic = visitor.visitSection(currentSection);
+            Path topicPath = xmlDir.resolve(topic.getFileName());
+            writeBatch.submit(() -> topicWriter.write(topic, topicPath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing topic for section: " + currentSection.getTitle(), e);
+        }
+        currentSection = null;
+    }
+
+    @Override
+    public void endChapter() {
+        visitor.endChapter(currentChapter);
+        currentChapter = null;
+    }
+
+    @Override
+    public void endDocument() {
+        structure = visitor.endDocument();
+    }
+
+    /**
+     * Chapter maps, main map and TOC of the document; available once the document has ended.
+     */
+    DitaStructure getStructure() {
+        return structure;
+    }
+}
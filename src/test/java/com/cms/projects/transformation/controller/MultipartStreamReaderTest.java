@@ -0,0 +1,95 @@
+package com.cms.projects.transformation.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamReaderTest {
+    
+    private static final String BOUNDARY = "----form7MA4YWxkTrZu0gW";
+    
+    @Test
+    void testReadsPartsInOrder() throws IOException {
+        // Large enough that the delimiter falls across buffer refills
+        byte[] zipBytes = new byte[200_000];
+        new Random(42).nextBytes(zipBytes);
+        
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("preamble\r\n--" + BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"comment\"\r\n\r\n"
+            + "hello\r\n--" + BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"zipFile\"; filename=\"book.zip\"\r\n"
+            + "Content-Type: application/zip\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(zipBytes);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        
+        MultipartStreamReader reader = new MultipartStreamReader(
+            new TrickleInputStream(body.toByteArray()), BOUNDARY);
+        
+        MultipartStreamReader.Part comment = reader.nextPart();
+        assertEquals("comment", comment.getName());
+        assertNull(comment.getFileName());
+        assertEquals("hello", new String(comment.getContent().readAllBytes(), StandardCharsets.UTF_8));
+        
+        MultipartStreamReader.Part zipFile = reader.nextPart();
+        assertEquals("zipFile", zipFile.getName());
+        assertEquals("book.zip", zipFile.getFileName());
+        assertEquals("application/zip", zipFile.getHeader("content-type"));
+        assertArrayEquals(zipBytes, zipFile.getContent().readAllBytes());
+        
+        assertNull(reader.nextPart());
+    }
+    
+    @Test
+    void testSkipsUnreadPartsAndRejectsTruncatedBodies() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"a\"\r\n\r\n"
+            + "not read\r\n--" + BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"b\"\r\n\r\n"
+            + "cut off";
+        MultipartStreamReader reader = new MultipartStreamReader(
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), BOUNDARY);
+        
+        assertEquals("a", reader.nextPart().getName());
+        MultipartStreamReader.Part b = reader.nextPart();
+        assertEquals("b", b.getName());
+        assertThrows(IOException.class, () -> b.getContent().readAllBytes());
+    }
+    
+    @Test
+    void testBoundaryFromContentType() {
+        assertEquals(BOUNDARY, MultipartStreamReader.boundary("multipart/form-data; boundary=" + BOUNDARY));
+        assertEquals("a b", MultipartStreamReader.boundary("multipart/form-data; charset=UTF-8; boundary=\"a b\""));
+        assertNull(MultipartStreamReader.boundary("application/zip"));
+        assertNull(MultipartStreamReader.boundary(null));
+    }
+    
+    /**
+     * Returns at most a few hundred bytes per read, like a slow network connection.
+     */
+    private static class TrickleInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+        private final Random random = new Random(7);
+        
+        TrickleInputStream(byte[] bytes) {
+            this.in = new ByteArrayInputStream(bytes);
+        }
+        
+        @Override
+        public int read() {
+            return in.read();
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, Math.min(len, 1 + random.nextInt(700)));
+        }
+    }
+}
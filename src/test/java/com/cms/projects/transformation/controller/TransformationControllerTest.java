@@ -1,21 +1,48 @@
 package com.cms.projects.transformation.controller;
 
+import com.cms.projects.transformation.dto.FolderValidationResult;
+import com.cms.projects.transformation.dto.StoredUpload;
 import com.cms.projects.transformation.dto.TransformationResponse;
 import com.cms.projects.transformation.entity.TransformationJob;
+import com.cms.projects.transformation.exception.InvalidZipEntryException;
+import com.cms.projects.transformation.exception.JobQueueFullException;
 import com.cms.projects.transformation.service.FileStorageService;
+import com.cms.projects.transformation.service.FolderValidationService;
+import com.cms.projects.transformation.service.FolderZipService;
+import com.cms.projects.transformation.service.JobProgress;
+import com.cms.projects.transformation.service.JobProgressTracker;
+import com.cms.projects.transformation.service.ResultArchiveService;
+import com.cms.projects.transformation.service.ResultManifestService;
 import com.cms.projects.transformation.service.TransformationService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.ZipException;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -32,6 +59,21 @@ class TransformationControllerTest {
     @MockBean
     private FileStorageService fileStorageService;
     
+    @MockBean
+    private FolderValidationService folderValidationService;
+    
+    @MockBean
+    private FolderZipService folderZipService;
+    
+    @MockBean
+    private ResultArchiveService resultArchiveService;
+    
+    @MockBean
+    private ResultManifestService resultManifestService;
+    
+    @MockBean
+    private JobProgressTracker jobProgressTracker;
+    
     @Test
     void testTransformFile() throws Exception {
         TransformationResponse response = new TransformationResponse();
@@ -55,6 +97,135 @@ class TransformationControllerTest {
                 .andExpect(jsonPath("$.status").value("PENDING"));
     }
     
+    @Test
+    void testTransformFileWhenQueueIsFull() throws Exception {
+        when(fileStorageService.storeFile(any(), anyString())).thenReturn("/path/to/file.mif");
+        when(transformationService.submitTransformation(anyString(), anyString()))
+            .thenThrow(new JobQueueFullException("Transformation queue is full, please retry later", 30, null));
+        
+        MockMultipartFile file = new MockMultipartFile(
+            "file", "test.mif", "application/xml", "test content".getBytes()
+        );
+        
+        mockMvc.perform(multipart("/api/transform/framemaker-to-dita")
+                .file(file))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "30"))
+                .andExpect(jsonPath("$.message").value("Transformation queue is full, please retry later"));
+        verify(fileStorageService).deleteFile("/path/to/file.mif");
+    }
+    
+    @Test
+    void testStreamedFolderUploadRemovesEmptyUpload(@TempDir Path tempDir) throws Exception {
+        Path storedZip = Files.createFile(tempDir.resolve("job_book.zip"));
+        Path extractedDir = Files.createDirectory(tempDir.resolve("job_extracted"));
+        when(fileStorageService.storeStream(any(), eq("book.zip"), anyString(), anyLong(), eq(true)))
+            .thenReturn(new StoredUpload(storedZip.toString(), 0, "sha", extractedDir));
+        
+        mockMvc.perform(streamedFolderUpload("book.zip", new byte[0]))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("ZIP file cannot be empty"));
+        
+        assertFalse(Files.exists(storedZip));
+        assertFalse(Files.exists(extractedDir));
+    }
+    
+    @Test
+    void testStreamedFolderUploadWithUnsafeEntryIsBadRequest() throws Exception {
+        when(fileStorageService.storeStream(any(), eq("book.zip"), anyString(), anyLong(), eq(true)))
+            .thenThrow(new InvalidZipEntryException("Invalid ZIP entry: ../escaped.mif"));
+        
+        mockMvc.perform(streamedFolderUpload("book.zip", "zip".getBytes()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid ZIP file: Invalid ZIP entry: ../escaped.mif"));
+    }
+    
+    @Test
+    void testFolderUploadThatIsNotAZipIsBadRequest() throws Exception {
+        when(fileStorageService.storeFile(any(), anyString())).thenReturn("/path/to/book.zip");
+        when(folderValidationService.validateZip(any())).thenThrow(new ZipException("zip END header not found"));
+        MockMultipartFile zipFile = new MockMultipartFile("zipFile", "book.zip", "application/zip", "zip".getBytes());
+        
+        for (String endpoint : List.of("/api/transform/folder-to-dita", "/api/transform/validate-folder",
+                "/api/transform/validate-and-zip")) {
+            mockMvc.perform(multipart(endpoint).file(zipFile))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Invalid ZIP file: zip END header not found"));
+        }
+    }
+    
+    @Test
+    void testValidateAndZipWithUnsafeEntryIsBadRequest() throws Exception {
+        when(fileStorageService.storeFile(any(), anyString())).thenReturn("/path/to/book.zip");
+        when(folderValidationService.validateZip(any())).thenReturn(
+            FolderValidationResult.valid(FolderValidationResult.FileType.MIF, List.of(Path.of("a.mif")), 1));
+        when(fileStorageService.extractZipFile(any(Path.class), anyString()))
+            .thenThrow(new InvalidZipEntryException("Invalid ZIP entry: ../escaped.mif"));
+        
+        mockMvc.perform(multipart("/api/transform/validate-and-zip")
+                .file(new MockMultipartFile("zipFile", "book.zip", "application/zip", "zip".getBytes())))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid ZIP file: Invalid ZIP entry: ../escaped.mif"));
+    }
+    
+    @Test
+    void testRejectedFolderUploadIsRemoved(@TempDir Path tempDir) throws Exception {
+        when(folderValidationService.validateZip(any()))
+            .thenReturn(FolderValidationResult.invalid("Mixed .fm and .mif files"));
+        MockMultipartFile zipFile = new MockMultipartFile("zipFile", "book.zip", "application/zip", "zip".getBytes());
+        
+        for (String endpoint : List.of("/api/transform/folder-to-dita", "/api/transform/validate-and-zip")) {
+            Path storedZip = Files.createTempFile(tempDir, "job_", "_book.zip");
+            when(fileStorageService.storeFile(any(), anyString())).thenReturn(storedZip.toString());
+            
+            mockMvc.perform(multipart(endpoint).file(zipFile))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Mixed .fm and .mif files"));
+            
+            assertFalse(Files.exists(storedZip), endpoint);
+        }
+    }
+    
+    @Test
+    void testFolderUploadIsRemovedWhenTheQueueIsFull(@TempDir Path tempDir) throws Exception {
+        Path storedZip = Files.createFile(tempDir.resolve("job_book.zip"));
+        when(fileStorageService.storeFile(any(), anyString())).thenReturn(storedZip.toString());
+        when(folderValidationService.validateZip(any())).thenReturn(
+            FolderValidationResult.valid(FolderValidationResult.FileType.MIF, List.of(Path.of("a.mif")), 1));
+        when(transformationService.submitFolderTransformation(anyString(), anyString(), any()))
+            .thenThrow(new JobQueueFullException("Transformation queue is full, please retry later", 30, null));
+        
+        mockMvc.perform(multipart("/api/transform/folder-to-dita")
+                .file(new MockMultipartFile("zipFile", "book.zip", "application/zip", "zip".getBytes())))
+                .andExpect(status().isTooManyRequests());
+        
+        assertFalse(Files.exists(storedZip));
+    }
+    
+    @Test
+    void testValidateAndZipRejectsUnknownCompressionLevel() throws Exception {
+        mockMvc.perform(multipart("/api/transform/validate-and-zip")
+                .file(new MockMultipartFile("zipFile", "book.zip", "application/zip", "zip".getBytes()))
+                .param("compressionLevel", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Compression level must be between -1 and 9 (-1 = default)"));
+    }
+    
+    private MockHttpServletRequestBuilder streamedFolderUpload(String fileName, byte[] content) {
+        String boundary = "test-boundary";
+        byte[] head = ("--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"zipFile\"; filename=\"" + fileName + "\"\r\n"
+            + "Content-Type: application/zip\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] body = new byte[head.length + content.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(content, 0, body, head.length, content.length);
+        System.arraycopy(tail, 0, body, head.length + content.length, tail.length);
+        return post("/api/transform/folder-to-dita/stream")
+            .contentType("multipart/form-data; boundary=" + boundary)
+            .content(body);
+    }
+    
     @Test
     void testGetStatus() throws Exception {
         when(transformationService.getJobStatus("test-job-id"))
@@ -65,5 +236,94 @@ class TransformationControllerTest {
                 .andExpect(content().contentType(MediaType.TEXT_PLAIN))
                 .andExpect(content().string("PROCESSING"));
     }
+    
+    @Test
+    void testPollStatusAnswersWhenTheStatusChanges() throws Exception {
+        JobProgress progress = mock(JobProgress.class);
+        AtomicReference<Consumer<TransformationJob.TransformationStatus>> listener = new AtomicReference<>();
+        when(progress.followStatus(any())).thenAnswer(invocation -> {
+            listener.set(invocation.getArgument(0));
+            listener.get().accept(TransformationJob.TransformationStatus.PENDING);
+            return (Runnable) () -> { };
+        });
+        when(jobProgressTracker.find("test-job-id")).thenReturn(Optional.of(progress));
+        
+        MvcResult pending = mockMvc.perform(get("/api/transform/test-job-id/status/poll")
+                .param("since", "PENDING").param("timeout", "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Pushed from the worker
+        listener.get().accept(TransformationJob.TransformationStatus.PROCESSING);
+        
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(content().string("PROCESSING"));
+    }
+    
+    @Test
+    void testPollStatusOfAFinishedJobAnswersRightAway() throws Exception {
+        when(jobProgressTracker.find("test-job-id")).thenReturn(Optional.empty());
+        when(transformationService.getJobStatus("test-job-id"))
+            .thenReturn(TransformationJob.TransformationStatus.COMPLETED);
+        
+        MvcResult finished = mockMvc.perform(get("/api/transform/test-job-id/status/poll").param("since", "PENDING"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        mockMvc.perform(asyncDispatch(finished))
+                .andExpect(status().isOk())
+                .andExpect(content().string("COMPLETED"));
+    }
+    
+    @Test
+    void testPollStatusRejectsTooLongATimeout() throws Exception {
+        mockMvc.perform(get("/api/transform/test-job-id/status/poll").param("timeout", "61"))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    void testStatusStreamSendsEveryChangeUntilTheJobFinishes() throws Exception {
+        JobProgress progress = mock(JobProgress.class);
+        AtomicReference<Consumer<TransformationJob.TransformationStatus>> listener = new AtomicReference<>();
+        when(progress.followStatus(any())).thenAnswer(invocation -> {
+            listener.set(invocation.getArgument(0));
+            listener.get().accept(TransformationJob.TransformationStatus.PENDING);
+            return (Runnable) () -> { };
+        });
+        when(jobProgressTracker.find("test-job-id")).thenReturn(Optional.of(progress));
+        
+        MvcResult stream = mockMvc.perform(get("/api/transform/test-job-id/status/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        listener.get().accept(TransformationJob.TransformationStatus.PROCESSING);
+        listener.get().accept(TransformationJob.TransformationStatus.COMPLETED);
+        
+        assertEquals("event:status\ndata:PENDING\n\n"
+            + "event:status\ndata:PROCESSING\n\n"
+            + "event:status\ndata:COMPLETED\n\n", stream.getResponse().getContentAsString());
+        // Completed by the final status
+        mockMvc.perform(asyncDispatch(stream))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    void testStatusStreamOfAFinishedJobSendsItsFinalStatus() throws Exception {
+        when(jobProgressTracker.find("test-job-id")).thenReturn(Optional.empty());
+        when(transformationService.getJobStatus("test-job-id"))
+            .thenReturn(TransformationJob.TransformationStatus.FAILED);
+        
+        MvcResult stream = mockMvc.perform(get("/api/transform/test-job-id/status/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        assertEquals("event:status\ndata:FAILED\n\n", stream.getResponse().getContentAsString());
+    }
+    
+    @Test
+    void testStatusStreamOfAnUnknownJobIsNotFound() throws Exception {
+        when(jobProgressTracker.find("test-job-id")).thenReturn(Optional.empty());
+        
+        mockMvc.perform(get("/api/transform/test-job-id/status/stream"))
+                .andExpect(status().isNotFound());
+    }
 }
-
@@ -0,0 +1,76 @@
+package com.cms.projects.transformation.dita.generator;
+
+import com.cms.projects.transformation.dita.model.DitaMap;
+import com.cms.projects.transformation.dita.model.DitaStructure;
+import com.cms.projects.transformation.dita.model.TocEntry;
+import com.cms.projects.transformation.framemaker.model.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DitaStructureBuilderTest {
+    
+    @Test
+    void testTopicsMapsAndTocShareNumbering() {
+        FrameMakerDocument document = new FrameMakerDocument();
+        document.setTitle("Manual");
+        for (int c = 1; c <= 2; c++) {
+            FrameMakerChapter chapter = new FrameMakerChapter();
+            chapter.setTitle("Chapter " + c);
+            for (int s = 1; s <= 2; s++) {
+                FrameMakerSection section = new FrameMakerSection();
+                section.setTitle("Section " + c + "." + s);
+                chapter.addSection(section);
+            }
+            document.addChapter(chapter);
+        }
+        document.addTableReference("table_1");
+        
+        DitaStructure structure = new DitaStructureBuilder().build(document);
+        
+        assertEquals(4, structure.getTopics().size());
+        assertEquals("topic_004.xml", structure.getTopics().get(3).getFileName());
+        
+        DitaMap secondChapter = structure.getChapterMaps().get(1);
+        assertEquals("chapter_02.ditamap", secondChapter.getFileName());
+        assertEquals("../xml/topic_003.xml", secondChapter.getReferences().get(0).getHref());
+        
+        DitaMap mainMap = structure.getMainMap();
+        assertEquals("Manual", mainMap.getTitle());
+        assertEquals("chapters/chapter_02.ditamap", mainMap.getReferences().get(1).getHref());
+        
+        TocEntry secondChapterEntry = structure.getTocEntries().get(1);
+        assertEquals("../xml/topic_004.xml", secondChapterEntry.getChildren().get(1).getHref());
+        assertEquals("Table: table_1", structure.getTocEntries().get(2).getTitle());
+    }
+    
+    @Test
+    void testNamespacedNamesAreUsedForFilesAndHrefs() {
+        DitaNamespaceAllocator allocator = new DitaNamespaceAllocator();
+        assertEquals("", allocator.allocate("intro.fm").getPrefix());
+        DitaOutputNamespace namespace = allocator.allocate("guide.fm");
+        assertEquals("guide_fm_", namespace.getPrefix());
+        assertEquals("guide_fm_2_", allocator.allocate("guide.fm").getPrefix());
+        
+        FrameMakerDocument document = new FrameMakerDocument();
+        FrameMakerChapter chapter = new FrameMakerChapter();
+        FrameMakerSection section = new FrameMakerSection();
+        section.setTitle("Section");
+        chapter.addSection(section);
+        document.addChapter(chapter);
+        
+        DitaStructure structure = new DitaStructureBuilder().build(document, namespace);
+        
+        assertEquals("guide_fm_topic_001.xml", structure.getTopics().get(0).getFileName());
+        assertEquals("topic_001", structure.getTopics().get(0).getId());
+        DitaMap chapterMap = structure.getChapterMaps().get(0);
+        assertEquals("guide_fm_chapter_01.ditamap", chapterMap.getFileName());
+        assertEquals("../xml/guide_fm_topic_001.xml", chapterMap.getReferences().get(0).getHref());
+        assertEquals("chapters/guide_fm_chapter_01.ditamap", structure.getMainMap().getReferences().get(0).getHref());
+        assertEquals("chapters/guide_fm_chapter_01.ditamap", structure.getTocEntries().get(0).getHref());
+        
+        assertTrue(namespace.owns("guide_fm_toc.xml"));
+        assertFalse(namespace.owns("topic_001.xml"));
+        assertFalse(namespace.owns("guide_fm_2_topic_001.xml"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.cms.projects.transformation.dita.writer;
+
+import com.cms.projects.transformation.dita.model.DitaElement;
+import com.cms.projects.transformation.dita.model.DitaTopic;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DitaTopicWriterTest {
+
+    @TempDir
+    Path outputDir;
+
+    @Test
+    void testWriteMatchesPrettyPrintLayout() throws Exception {
+        Path topicPath = outputDir.resolve("xml").resolve("topic_001.xml");
+        new DitaTopicWriter().write(sampleTopic(), topicPath);
+
+        String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "\n"
+            + "<topic xmlns=\"http://docs.oasis-open.org/dita/v1.3/ns/200603/topic.dtd\" id=\"topic_001\">\n"
+            + "  <title>Café &amp; Bar</title>\n"
+            + "  <body>\n"
+            + "    <p>Text with extra spaces &lt;here&gt;</p>\n"
+            + "    <p>Figure\n"
+            + "      <image href=\"../images/a&quot;b.eps\"/>\n"
+            + "    </p>\n"
+            + "    <simpletable/>\n"
+            + "  </body>\n"
+            + "</topic>\n";
+        assertEquals(expected, Files.readString(topicPath, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testCompactWriteHasNoIndentation() throws Exception {
+        Path topicPath = outputDir.resolve("topic_001.xml");
+        DitaTopicWriter writer = new DitaTopicWriter();
+        writer.setCompact(true);
+        writer.write(sampleTopic(), topicPath);
+
+        String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<topic xmlns=\"http://docs.oasis-open.org/dita/v1.3/ns/200603/topic.dtd\" id=\"topic_001\">"
+            + "<title>Café &amp; Bar</title><body>"
+            + "<p>Text with extra spaces &lt;here&gt;</p>"
+            + "<p>Figure<image href=\"../images/a&quot;b.eps\"/></p>"
+            + "<simpletable/></body></topic>";
+        assertEquals(expected, Files.readString(topicPath, StandardCharsets.UTF_8));
+    }
+
+    private DitaTopic sampleTopic() {
+        DitaTopic topic = new DitaTopic();
+        topic.setId("topic_001");
+        topic.setTitle("Café & Bar");
+
+        DitaElement text = new DitaElement();
+        text.setType("p");
+        text.setContent("  Text with\textra   spaces <here>\n");
+        topic.addContent(text);
+
+        DitaElement figure = new DitaElement();
+        figure.setType("p");
+        figure.setContent("Figure");
+        DitaElement image = new DitaElement();
+        image.setType("image");
+        image.setHref("../images/a\"b.eps");
+        figure.addChild(image);
+        topic.addContent(figure);
+
+        DitaElement table = new DitaElement();
+        table.setType("simpletable");
+        topic.addContent(table);
+        return topic;
+    }
+}
@@ -0,0 +1,88 @@
+package com.cms.projects.transformation.framemaker.cache;
+
+import com.cms.projects.transformation.dto.ParseCacheStats;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerDocumentBuilder;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerStreamingMifParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameMakerParseCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void testRecordedParseIsReplayedFromCache() throws Exception {
+        File sample = new File(getClass().getResource("/samples/sample.mif").toURI());
+        FrameMakerParseCache cache = new FrameMakerParseCache(cacheDir, 1024 * 1024, 1024 * 1024);
+        String key = cache.key(sample);
+
+        assertNull(cache.get(key, sample.getPath()));
+
+        FrameMakerDocumentBuilder parsed = new FrameMakerDocumentBuilder(sample.getPath());
+        try (FrameMakerParseCache.Recorder recorder = cache.record(key, parsed)) {
+            new FrameMakerStreamingMifParser().parse(sample, recorder);
+            recorder.commit();
+        }
+
+        FrameMakerDocument cached = cache.get(key, sample.getPath());
+        assertNotNull(cached);
+        assertEquals(parsed.getDocument().getTitle(), cached.getTitle());
+        assertEquals(parsed.getDocument().getChapters().size(), cached.getChapters().size());
+        assertEquals(parsed.getDocument().getAllImageReferences(), cached.getAllImageReferences());
+        assertEquals(parsed.getDocument().getTableReferences().size(), cached.getTableReferences().size());
+
+        ParseCacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void testDiskEntriesSurviveRestartAndAreEvictedLeastRecentlyUsedFirst() throws Exception {
+        FrameMakerDocument document = new FrameMakerDocument();
+        document.setTitle("Cached");
+
+        FrameMakerParseCache cache = new FrameMakerParseCache(cacheDir, 0, 1024 * 1024);
+        cache.put("a", document);
+        long entrySize;
+        try (var files = Files.list(cacheDir)) {
+            entrySize = Files.size(files.findFirst().orElseThrow());
+        }
+
+        // Room for exactly two entries
+        FrameMakerParseCache bounded = new FrameMakerParseCache(cacheDir, 0, entrySize * 2);
+        assertEquals("Cached", bounded.get("a", "a.mif").getTitle());
+        bounded.put("b", document);
+        bounded.put("c", document);
+
+        assertNull(bounded.get("a", "a.mif"));
+        assertNotNull(bounded.get("c", "c.mif"));
+        assertEquals(2, bounded.getStats().getDiskEntries());
+        assertEquals(1, bounded.getStats().getEvictions());
+    }
+
+    @Test
+    void testCorruptEntryIsDroppedAsAMiss() throws Exception {
+        Files.write(cacheDir.resolve("garbage.fmpc"), "not a parse cache entry".getBytes());
+        Files.write(cacheDir.resolve("truncated.fmpc"), new byte[] {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 0});
+        FrameMakerParseCache cache = new FrameMakerParseCache(cacheDir, 1024 * 1024, 1024 * 1024);
+
+        FrameMakerDocumentBuilder builder = new FrameMakerDocumentBuilder("garbage.mif");
+        assertFalse(cache.replay("garbage", builder));
+        assertNull(cache.get("truncated", "truncated.mif"));
+
+        assertFalse(Files.exists(cacheDir.resolve("garbage.fmpc")));
+        assertFalse(Files.exists(cacheDir.resolve("truncated.fmpc")));
+        ParseCacheStats stats = cache.getStats();
+        assertEquals(0, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(0, stats.getDiskEntries());
+    }
+}
@@ -0,0 +1,105 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameMakerMifStatementParserTest {
+    
+    private FrameMakerMifStatementParser parser;
+    private File sampleFile;
+    
+    @BeforeEach
+    void setUp() throws URISyntaxException {
+        parser = new FrameMakerMifStatementParser();
+        sampleFile = new File(getClass().getResource("/samples/sample_statement.mif").toURI());
+    }
+    
+    @Test
+    void testSupportsOnlyStatementSyntax() throws URISyntaxException {
+        File xmlFlavoured = new File(getClass().getResource("/samples/sample.mif").toURI());
+        
+        assertTrue(parser.supports(sampleFile));
+        assertFalse(parser.supports(xmlFlavoured));
+        assertFalse(new FrameMakerStreamingMifParser().supports(sampleFile));
+    }
+    
+    @Test
+    void testParseStatementSyntax() throws Exception {
+        FrameMakerDocument document = parser.parse(sampleFile);
+        
+        assertEquals("Statement Sample Document", document.getTitle());
+        assertEquals(1, document.getChapters().size());
+        assertEquals("Getting Started", document.getChapters().get(0).getTitle());
+        
+        List<FrameMakerSection> sections = document.getChapters().get(0).getSections();
+        assertEquals(2, sections.size());
+        assertEquals("Installation", sections.get(0).getTitle());
+        assertEquals("Options", sections.get(1).getTitle());
+        assertEquals(2, sections.get(1).getLevel());
+        
+        List<FrameMakerParagraph> installation = sections.get(0).getParagraphs();
+        assertEquals("Run the installer \tand press `Next' > continue.", installation.get(0).getText());
+        assertEquals(List.of("images/install_screenshot.eps"), document.getAllImageReferences());
+        
+        List<FrameMakerParagraph> options = sections.get(1).getParagraphs();
+        assertEquals("Café mode", options.get(0).getText());
+        assertTrue(options.get(1).isTable());
+        assertEquals("Feature | Description | Themes | Custom colours", options.get(1).getText());
+    }
+    
+    @Test
+    void testTokenizerRemapsAcrossSmallWindows(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("window.mif");
+        Files.writeString(file, "<MIFFile 2015> # comment\n<Para <PgfTag `Body'>\n <ParaLine <String `a longer string'>>>\n",
+            StandardCharsets.UTF_8);
+        
+        List<String> tokens = new ArrayList<>();
+        try (MifTokenizer tokenizer = new MifTokenizer(FileChannel.open(file, StandardOpenOption.READ), 20)) {
+            MifTokenizer.TokenType type;
+            while ((type = tokenizer.next()) != MifTokenizer.TokenType.EOF) {
+                tokens.add(type == MifTokenizer.TokenType.END ? ">" : type + ":" + tokenizer.text());
+            }
+        }
+        
+        assertEquals(List.of(
+            "START:MIFFile", "ATOM:2015", ">",
+            "START:Para", "START:PgfTag", "STRING:Body", ">",
+            "START:ParaLine", "START:String", "STRING:a longer string", ">", ">", ">"), tokens);
+    }
+    
+    @Test
+    void testHexEscapesAreFrameRomanCodes(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("escapes.mif");
+        Files.writeString(file, "<String `it\\xd5 s \\xd2 quoted\\xd3 \\x11 x\\x1fffff end'>\n",
+            StandardCharsets.UTF_8);
+        
+        try (MifTokenizer tokenizer = new MifTokenizer(FileChannel.open(file, StandardOpenOption.READ), 1024)) {
+            assertEquals(MifTokenizer.TokenType.START, tokenizer.next());
+            assertEquals(MifTokenizer.TokenType.STRING, tokenizer.next());
+            assertEquals("it\u2019s \u201Cquoted\u201D\u00A0x\uFFFDend", tokenizer.text());
+        }
+    }
+    
+    @Test
+    void testDevicePathConversion() {
+        assertEquals("images/figure.eps", FrameMakerMifStatementParser.toFilePath("<c>images<c>figure.eps"));
+        assertEquals("/art/logo.png", FrameMakerMifStatementParser.toFilePath("<r><c>art<c>logo.png"));
+        assertEquals("../shared/a.eps", FrameMakerMifStatementParser.toFilePath("<u><c>shared<c>a.eps"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameMakerParallelMifParserTest {
+
+    @Test
+    void testChaptersAreFoundByScan() throws Exception {
+        MifChapterScanner.ChapterScan scan = new MifChapterScanner().scan(sample("sample.mif").toPath());
+
+        assertEquals(2, scan.chapters().size());
+        assertFalse(scan.looseContent());
+        assertTrue(scan.headerEnd() > 0);
+    }
+
+    @Test
+    void testEventsMatchSequentialParse() throws Exception {
+        for (String name : List.of("sample.mif", "sample_complex.mif")) {
+            File file = sample(name);
+
+            List<String> sequential = new ArrayList<>();
+            new FrameMakerStreamingMifParser().parse(file, recorder(sequential));
+            List<String> parallel = new ArrayList<>();
+            new FrameMakerParallelMifParser(2).parse(file, recorder(parallel));
+
+            assertEquals(sequential, parallel, name);
+        }
+    }
+
+    @Test
+    void testScanSkipsChaptersQuotedInCommentsAndCdata(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("quoted.mif");
+        Files.writeString(file, "<?xml version=\"1.0\"?>\n<MIFFile><Document>\n"
+            + "<!-- <Chapter> was split here -->\n"
+            + "<Chapter><Section><Para><![CDATA[<Chapter> and ]]]></Chapter>]]></Para></Section></Chapter>\n"
+            + "<Chapter><Section><Para>Two</Para></Section></Chapter>\n"
+            + "</Document></MIFFile>\n", StandardCharsets.UTF_8);
+
+        MifChapterScanner.ChapterScan scan = new MifChapterScanner().scan(file);
+
+        assertEquals(2, scan.chapters().size());
+        assertFalse(scan.looseContent());
+        assertEquals("<?xml version=\"1.0\"?>".length(), scan.prologEnd());
+    }
+
+    @Test
+    void testScanReadsWholeElementNames(@TempDir Path tempDir) throws Exception {
+        String first = "<Chapter><Section><Para>One</Para></Section><Chapter2/></Chapter>";
+        String second = "<Chapter><Section><Para>Two</Para></Section></Chapter>";
+        String content = "<?xml version=\"1.0\"?>\n<MIFFile><Document>\n"
+            + first + "\n<Chapter_x/><Chapter-x></Chapter-x><Chapter1></Chapter1>\n" + second + "\n"
+            + "</Document></MIFFile>\n";
+        Path file = tempDir.resolve("siblings.mif");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        MifChapterScanner.ChapterScan scan = new MifChapterScanner().scan(file);
+
+        assertEquals(List.of(
+            new MifChapterScanner.ChapterRange(content.indexOf(first), content.indexOf(first) + first.length()),
+            new MifChapterScanner.ChapterRange(content.indexOf(second), content.indexOf(second) + second.length())),
+            scan.chapters());
+        assertFalse(scan.looseContent());
+
+        List<String> sequential = new ArrayList<>();
+        new FrameMakerStreamingMifParser().parse(file.toFile(), recorder(sequential));
+        List<String> parallel = new ArrayList<>();
+        new FrameMakerParallelMifParser(2).parse(file.toFile(), recorder(parallel));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void testChaptersKeepTheDeclaredEncoding(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("latin1.mif");
+        Files.writeString(file, "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n<MIFFile><Document>\n"
+            + "<Chapter><ChapterTitle>Caf\u00e9</ChapterTitle><Section><Para>na\u00efve</Para></Section></Chapter>\n"
+            + "<Chapter><ChapterTitle>Men\u00fc</ChapterTitle><Section><Para>\u00fcber</Para></Section></Chapter>\n"
+            + "</Document></MIFFile>\n", StandardCharsets.ISO_8859_1);
+
+        List<String> sequential = new ArrayList<>();
+        new FrameMakerStreamingMifParser().parse(file.toFile(), recorder(sequential));
+        List<String> parallel = new ArrayList<>();
+        new FrameMakerParallelMifParser(2).parse(file.toFile(), recorder(parallel));
+
+        assertTrue(sequential.contains("chapter:1:Caf\u00e9"));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void testRangeHoldingSeveralChaptersFallsBackToSequentialParse(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("nested.mif");
+        Files.writeString(file, "<?xml version=\"1.0\"?>\n<MIFFile><Document>\n"
+            + "<Chapter><ChapterTitle>One</ChapterTitle><Section><Para>1</Para></Section></Chapter>\n"
+            + "<Chapter><ChapterTitle>Two</ChapterTitle><Section><Para>2</Para></Section>"
+            + "<m:Chapter xmlns:m=\"urn:m\"><ChapterTitle>Three</ChapterTitle><Section><Para>3</Para></Section></m:Chapter>"
+            + "</Chapter>\n"
+            + "<Chapter><ChapterTitle>Four</ChapterTitle><Section><Para>4</Para></Section></Chapter>\n"
+            + "</Document></MIFFile>\n", StandardCharsets.UTF_8);
+
+        List<String> sequential = new ArrayList<>();
+        new FrameMakerStreamingMifParser().parse(file.toFile(), recorder(sequential));
+        List<String> parallel = new ArrayList<>();
+        new FrameMakerParallelMifParser(2).parse(file.toFile(), recorder(parallel));
+
+        assertEquals(3, new MifChapterScanner().scan(file).chapters().size());
+        assertTrue(sequential.contains("chapter:3:Three"));
+        assertEquals(sequential, parallel);
+    }
+
+    private File sample(String name) throws Exception {
+        return new File(getClass().getResource("/samples/" + name).toURI());
+    }
+
+    private FrameMakerEventHandler recorder(List<String> events) {
+        return new FrameMakerEventHandler() {
+            public void startDocument(String title) { events.add("document:" + title); }
+            public void startChapter(FrameMakerChapter chapter) {
+                events.add("chapter:" + chapter.getChapterNumber() + ":" + chapter.getTitle());
+            }
+            public void startSection(FrameMakerSection section) {
+                events.add("section:" + section.getLevel() + ":" + section.getTitle());
+            }
+            public void paragraph(FrameMakerParagraph paragraph) { events.add("p:" + paragraph.getText()); }
+            public void image(String imageReference) { events.add("image:" + imageReference); }
+            public void table(FrameMakerParagraph table) { events.add("table:" + table.getText()); }
+            public void endSection() { events.add("/section"); }
+            public void endChapter() { events.add("/chapter"); }
+            public void endDocument() { events.add("/document"); }
+        };
+    }
+}
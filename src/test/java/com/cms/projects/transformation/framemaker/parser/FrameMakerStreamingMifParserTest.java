@@ -0,0 +1,73 @@
+package com.cms.projects.transformation.framemaker.parser;
+
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameMakerStreamingMifParserTest {
+    
+    private FrameMakerStreamingMifParser parser;
+    private File sampleFile;
+    
+    @BeforeEach
+    void setUp() throws URISyntaxException {
+        parser = new FrameMakerStreamingMifParser();
+        sampleFile = new File(getClass().getResource("/samples/sample.mif").toURI());
+    }
+    
+    @Test
+    void testParseBuildsDocument() throws Exception {
+        assertTrue(parser.supports(sampleFile));
+        
+        FrameMakerDocument document = parser.parse(sampleFile);
+        
+        assertEquals("Sample FrameMaker Document", document.getTitle());
+        assertEquals(2, document.getChapters().size());
+        
+        FrameMakerChapter intro = document.getChapters().get(0);
+        assertEquals("Introduction", intro.getTitle());
+        assertEquals(2, intro.getSections().size());
+        assertEquals("Overview", intro.getSections().get(0).getTitle());
+        assertEquals(2, intro.getSections().get(1).getLevel());
+        assertEquals(List.of("sample_image.eps"), document.getAllImageReferences());
+        assertEquals(1, document.getTableReferences().size());
+    }
+    
+    @Test
+    void testEventsArriveInDocumentOrder() throws Exception {
+        List<String> events = new ArrayList<>();
+        
+        parser.parse(sampleFile, new FrameMakerEventHandler() {
+            public void startDocument(String title) { events.add("document"); }
+            public void startChapter(FrameMakerChapter chapter) { events.add("chapter:" + chapter.getTitle()); }
+            public void startSection(FrameMakerSection section) { events.add("section:" + section.getTitle()); }
+            public void paragraph(FrameMakerParagraph paragraph) { events.add("p"); }
+            public void image(String imageReference) { events.add("image"); }
+            public void table(FrameMakerParagraph table) { events.add("table"); }
+            public void endSection() { events.add("/section"); }
+            public void endChapter() { events.add("/chapter"); }
+            public void endDocument() { events.add("/document"); }
+        });
+        
+        assertEquals(List.of(
+            "document",
+            "chapter:Introduction",
+            "section:Overview", "p", "p", "/section",
+            "section:Purpose", "p", "image", "/section",
+            "/chapter",
+            "chapter:Main Content",
+            "section:Chapter Content", "p", "table", "/section",
+            "/chapter",
+            "/document"), events);
+    }
+}
@@ -0,0 +1,82 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.dto.StoredUpload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStorageServiceTest {
+    
+    private final FileStorageService fileStorageService = new FileStorageService();
+    
+    @TempDir
+    Path tempDir;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileStorageService, "inputPath", tempDir.resolve("input").toString());
+        ReflectionTestUtils.setField(fileStorageService, "tempPath", tempDir.resolve("temp").toString());
+    }
+    
+    @Test
+    void testStoreStreamHashesWritesAndExtractsInOnePass() throws Exception {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(zip)) {
+            zos.putNextEntry(new ZipEntry("book/chapter1.mif"));
+            zos.write("<MIFFile 7.00>".getBytes());
+            zos.closeEntry();
+        }
+        byte[] zipBytes = zip.toByteArray();
+        
+        StoredUpload upload = fileStorageService.storeStream(
+            new ByteArrayInputStream(zipBytes), "../book.zip", "job1", 1024 * 1024, true);
+        
+        assertEquals(tempDir.resolve("input").resolve("job1_book.zip").toString(), upload.getFilePath());
+        assertArrayEquals(zipBytes, Files.readAllBytes(Path.of(upload.getFilePath())));
+        assertEquals(zipBytes.length, upload.getSize());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(zipBytes)), upload.getSha256());
+        assertEquals("<MIFFile 7.00>", Files.readString(upload.getExtractedDir().resolve("book/chapter1.mif")));
+    }
+    
+    @Test
+    void testStoreStreamRemovesEverythingWhenTooLarge() throws IOException {
+        byte[] content = new byte[10_000];
+        
+        assertThrows(MaxUploadSizeExceededException.class, () -> fileStorageService.storeStream(
+            new ByteArrayInputStream(content), "big.bin", "job2", 1000, false));
+        
+        assertFalse(Files.exists(tempDir.resolve("input").resolve("job2_big.bin")));
+    }
+    
+    @Test
+    void testExtractZipFileRefusesEntriesOutsideTheFolder() throws IOException {
+        Path zip = tempDir.resolve("unsafe.zip");
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zip))) {
+            zos.putNextEntry(new ZipEntry("book/chapter1.mif"));
+            zos.write("<MIFFile 7.00>".getBytes());
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("../escaped.mif"));
+            zos.closeEntry();
+        }
+        
+        IOException e = assertThrows(IOException.class, () -> fileStorageService.extractZipFile(zip, "job3"));
+        
+        assertEquals("Invalid ZIP entry: ../escaped.mif", e.getMessage());
+        assertEquals("<MIFFile 7.00>", Files.readString(tempDir.resolve("temp/job3_extracted/book/chapter1.mif")));
+        assertFalse(Files.exists(tempDir.resolve("temp/escaped.mif")));
+    }
+}
@@ -0,0 +1,67 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.dto.FolderValidationResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FolderValidationServiceTest {
+    
+    private final FolderValidationService validationService = new FolderValidationService();
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testValidateZipReadsEntriesWithoutExtracting() throws IOException {
+        Path zip = createZip("book.zip", "book/", "book/chapter1.mif", "book/images/logo.png", "book/chapter2.MIF");
+        
+        FolderValidationResult result = validationService.validateZip(zip);
+        
+        assertTrue(result.isValid());
+        assertEquals(FolderValidationResult.FileType.MIF, result.getFileType());
+        assertEquals(List.of("chapter1.mif", "chapter2.MIF"), result.getFileNames());
+        assertEquals(Path.of("book/chapter1.mif"), result.getFiles().get(0));
+        assertEquals(tempDir.resolve("out/book/chapter1.mif"), result.resolve(tempDir.resolve("out")).getFiles().get(0));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(zip), files.toList());
+        }
+    }
+    
+    @Test
+    void testValidateZipRejectsMixedTypesAndUnsafeEntries() throws IOException {
+        assertFalse(validationService.validateZip(createZip("mixed.zip", "a.fm", "b.mif")).isValid());
+        assertFalse(validationService.validateZip(createZip("empty.zip", "readme.txt")).isValid());
+        
+        FolderValidationResult unsafe = validationService.validateZip(createZip("unsafe.zip", "a.fm", "../b.fm"));
+        assertFalse(unsafe.isValid());
+        assertEquals("Invalid ZIP entry: ../b.fm", unsafe.getMessage());
+        
+        FolderValidationResult unnamed = validationService.validateZip(createZip("unnamed.zip", "a.fm", "b\u0000.fm"));
+        assertFalse(unnamed.isValid());
+        assertEquals("Invalid ZIP entry: b\u0000.fm", unnamed.getMessage());
+    }
+    
+    private Path createZip(String name, String... entries) throws IOException {
+        Path zip = tempDir.resolve(name);
+        try (OutputStream out = Files.newOutputStream(zip); ZipOutputStream zos = new ZipOutputStream(out)) {
+            for (String entry : entries) {
+                zos.putNextEntry(new ZipEntry(entry));
+                if (!entry.endsWith("/")) {
+                    zos.write(entry.getBytes());
+                }
+                zos.closeEntry();
+            }
+        }
+        return zip;
+    }
+}
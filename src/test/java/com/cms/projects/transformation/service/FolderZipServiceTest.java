@@ -0,0 +1,138 @@
+package com.cms.projects.transformation.service;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FolderZipServiceTest {
+
+    private final FolderZipService folderZipService = new FolderZipService();
+
+    @TempDir
+    Path scratchRoot;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(folderZipService, "tempPath", scratchRoot.toString());
+    }
+
+    @Test
+    void testWriteZipStreamsFolderWithoutClosingTheTarget(@TempDir Path tempDir) throws Exception {
+        Files.createDirectories(tempDir.resolve("xml"));
+        Files.writeString(tempDir.resolve("main.ditamap"), "<map/>");
+        Files.writeString(tempDir.resolve("xml").resolve("topic_001.xml"), "<topic/>");
+
+        boolean[] closed = {false};
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        int fileCount = folderZipService.writeZip(tempDir, out);
+
+        assertEquals(2, fileCount);
+        assertFalse(closed[0]);
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zis.readAllBytes()));
+            }
+        }
+        assertEquals(Map.of("main.ditamap", "<map/>", "xml/topic_001.xml", "<topic/>"), entries);
+    }
+
+    @Test
+    void testWriteZipGivesTheSameBytesInPathOrderEveryTime(@TempDir Path tempDir) throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String name = String.format("xml/topic_%03d.xml", i);
+            Files.createDirectories(tempDir.resolve(name).getParent());
+            Files.writeString(tempDir.resolve(name), "<topic>" + "x".repeat(i * 50) + "</topic>");
+            names.add(name);
+        }
+        folderZipService.setCompressionThreads(4);
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        folderZipService.writeZip(tempDir, first);
+        folderZipService.writeZip(tempDir, second);
+
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+        List<String> entryNames = new ArrayList<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(first.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entryNames.add(entry.getName());
+            }
+        }
+        assertEquals(names, entryNames);
+        // Scratch files are removed once copied into the archive
+        try (Stream<Path> scratch = Files.list(scratchRoot.resolve("zip-scatter"))) {
+            assertEquals(0, scratch.count());
+        }
+    }
+
+    @Test
+    void testCompressedImagesAreStoredAndTextIsDeflated(@TempDir Path tempDir) throws Exception {
+        Files.createDirectories(tempDir.resolve("images"));
+        Files.write(tempDir.resolve("images").resolve("figure.PNG"), new byte[4096]);
+        Files.writeString(tempDir.resolve("topic_001.xml"), "<topic/>".repeat(100));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        folderZipService.writeZip(tempDir, out, 9);
+
+        Map<String, Integer> methods = new HashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                zis.readAllBytes();
+                methods.put(entry.getName(), entry.getMethod());
+            }
+        }
+        assertEquals(Map.of("images/figure.PNG", ZipEntry.STORED, "topic_001.xml", ZipEntry.DEFLATED), methods);
+    }
+
+    @Test
+    void testWriteTarGzIsReadableAndRepeatable(@TempDir Path tempDir) throws Exception {
+        Path outputDir = Files.createDirectories(tempDir.resolve("output").resolve("xml"));
+        Files.writeString(outputDir.resolve("topic_001.xml"), "<topic/>");
+        Files.writeString(outputDir.getParent().resolve("main.ditamap"), "<map/>");
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        assertEquals(2, folderZipService.writeTar(outputDir.getParent(), first, true, 6));
+        folderZipService.writeTar(outputDir.getParent(), second, true, 6);
+
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+        Map<String, String> entries = new HashMap<>();
+        try (TarArchiveInputStream tis = new TarArchiveInputStream(
+                new GzipCompressorInputStream(new ByteArrayInputStream(first.toByteArray())))) {
+            TarArchiveEntry entry;
+            while ((entry = tis.getNextTarEntry()) != null) {
+                entries.put(entry.getName(), new String(tis.readAllBytes()));
+            }
+        }
+        assertEquals(Map.of("main.ditamap", "<map/>", "xml/topic_001.xml", "<topic/>"), entries);
+    }
+}
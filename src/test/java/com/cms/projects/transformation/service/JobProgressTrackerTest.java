@@ -0,0 +1,147 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.entity.TransformationJob;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobProgressTrackerTest {
+
+    private final JobProgressTracker tracker = new JobProgressTracker();
+    private final FolderZipService folderZipService = new FolderZipService();
+
+    @Test
+    void testDownloadFollowsTheJobUntilItCompletes(@TempDir Path outputDir) throws Exception {
+        tracker.start("job-1");
+        JobProgress progress = tracker.find("job-1").orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture<Integer> download = CompletableFuture.supplyAsync(() -> writeTar(progress, outputDir, out));
+
+        Path topic = Files.writeString(Files.createDirectories(outputDir.resolve("xml")).resolve("topic_001.xml"), "<topic/>");
+        tracker.addReadyFiles("job-1", List.of(topic));
+        Files.writeString(outputDir.resolve("main.ditamap"), "<map/>");
+        tracker.complete("job-1", outputDir);
+
+        assertEquals(2, download.get());
+        assertTrue(tracker.find("job-1").isEmpty());
+        assertEquals(List.of("xml/topic_001.xml", "main.ditamap"), entryNames(out.toByteArray()));
+    }
+
+    @Test
+    void testDownloadOfAFailedJobIsCutShort(@TempDir Path outputDir) throws Exception {
+        tracker.start("job-1");
+        JobProgress progress = tracker.find("job-1").orElseThrow();
+        Path topic = Files.writeString(outputDir.resolve("topic_001.xml"), "<topic/>");
+        tracker.addReadyFiles("job-1", List.of(topic));
+        tracker.fail("job-1");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IOException failure = assertThrows(IOException.class, () -> folderZipService.writeTar(
+            outputDir, out, false, -1, nextBatches(progress)));
+
+        assertTrue(failure.getMessage().contains("failed"));
+        // The entry was sent, but the end-of-archive records never were
+        assertEquals(512 + 512, out.size());
+    }
+
+    @Test
+    void testWaitForReadyFilesGivesUpAfterTheTimeout() throws Exception {
+        tracker.start("job-1");
+        JobProgress progress = tracker.find("job-1").orElseThrow();
+
+        assertEquals(List.of(), progress.awaitReadyFiles(0, Duration.ofMillis(20)));
+        assertFalse(progress.isFinished());
+    }
+
+    @Test
+    void testStatusChangesArePushedUntilTheJobFinishes() {
+        tracker.start("job-1");
+        JobProgress progress = tracker.find("job-1").orElseThrow();
+        List<TransformationJob.TransformationStatus> seen = new ArrayList<>();
+        progress.followStatus(seen::add);
+
+        tracker.setStatus("job-1", TransformationJob.TransformationStatus.PROCESSING);
+        tracker.fail("job-1");
+        // Reported after the job finished; not pushed again
+        tracker.setStatus("job-1", TransformationJob.TransformationStatus.PROCESSING);
+
+        assertEquals(List.of(TransformationJob.TransformationStatus.PENDING,
+                             TransformationJob.TransformationStatus.PROCESSING,
+                             TransformationJob.TransformationStatus.FAILED), seen);
+        assertEquals(TransformationJob.TransformationStatus.FAILED, progress.getStatus());
+    }
+
+    @Test
+    void testListenersAreCalledWithoutTheProgressLocked() {
+        tracker.start("job-1");
+        JobProgress progress = tracker.find("job-1").orElseThrow();
+        List<Boolean> lockedDuringCall = new ArrayList<>();
+        progress.followStatus(status -> lockedDuringCall.add(Thread.holdsLock(progress)));
+
+        tracker.setStatus("job-1", TransformationJob.TransformationStatus.PROCESSING);
+        tracker.fail("job-1");
+
+        assertEquals(List.of(false, false, false), lockedDuringCall);
+    }
+
+    @Test
+    void testStoppedListenerIsNotCalledAgain() {
+        tracker.start("job-1");
+        List<TransformationJob.TransformationStatus> seen = new ArrayList<>();
+        Runnable stopFollowing = tracker.find("job-1").orElseThrow().followStatus(seen::add);
+
+        stopFollowing.run();
+        tracker.setStatus("job-1", TransformationJob.TransformationStatus.PROCESSING);
+
+        assertEquals(List.of(TransformationJob.TransformationStatus.PENDING), seen);
+    }
+
+    private int writeTar(JobProgress progress, Path outputDir, ByteArrayOutputStream out) {
+        try {
+            return folderZipService.writeTar(outputDir, out, false, -1, nextBatches(progress));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static FolderZipService.FileBatches nextBatches(JobProgress progress) {
+        int[] sent = {0};
+        return () -> {
+            List<Path> files;
+            boolean finished;
+            do {
+                finished = progress.isFinished();
+                files = progress.awaitReadyFiles(sent[0], Duration.ofMillis(50));
+            } while (files.isEmpty() && !finished);
+            sent[0] += files.size();
+            if (files.isEmpty() && !progress.isSucceeded()) {
+                throw new IOException("Job failed");
+            }
+            return files;
+        };
+    }
+
+    private static List<String> entryNames(byte[] tar) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (TarArchiveInputStream tis = new TarArchiveInputStream(new ByteArrayInputStream(tar))) {
+            TarArchiveEntry entry;
+            while ((entry = tis.getNextTarEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,76 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.dto.JobState;
+import com.cms.projects.transformation.entity.TransformationJob;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobStateCacheTest {
+
+    private long now;
+    private final JobStateCache cache = new JobStateCache(2, Duration.ofSeconds(30), Duration.ofMinutes(10), () -> now);
+
+    @Test
+    void testFinishedJobExpiresAfterItsTtl() {
+        cache.write(job("job-1", TransformationJob.TransformationStatus.COMPLETED));
+
+        now += Duration.ofMinutes(9).toNanos();
+        assertEquals(TransformationJob.TransformationStatus.COMPLETED, cache.get("job-1").orElseThrow().getStatus());
+
+        now += Duration.ofMinutes(1).toNanos();
+        assertTrue(cache.get("job-1").isEmpty());
+    }
+
+    @Test
+    void testRunningJobExpiresShortlyAfterItsLastWrite() {
+        cache.write(job("job-1", TransformationJob.TransformationStatus.PROCESSING));
+
+        now += Duration.ofSeconds(20).toNanos();
+        cache.write(job("job-1", TransformationJob.TransformationStatus.PROCESSING));
+        now += Duration.ofSeconds(20).toNanos();
+        assertEquals(TransformationJob.TransformationStatus.PROCESSING, cache.get("job-1").orElseThrow().getStatus());
+
+        now += Duration.ofSeconds(10).toNanos();
+        assertTrue(cache.get("job-1").isEmpty());
+    }
+
+    @Test
+    void testLeastRecentlyUsedJobIsDroppedFirst() {
+        cache.write(job("job-1", TransformationJob.TransformationStatus.PENDING));
+        cache.write(job("job-2", TransformationJob.TransformationStatus.PENDING));
+        cache.get("job-1");
+        cache.write(job("job-3", TransformationJob.TransformationStatus.PENDING));
+
+        assertTrue(cache.get("job-1").isPresent());
+        assertTrue(cache.get("job-2").isEmpty());
+        assertTrue(cache.get("job-3").isPresent());
+    }
+
+    @Test
+    void testOnlyFinishedStateIsCachedFromTheDatabase() {
+        cache.putLoaded("job-1", new JobState(TransformationJob.TransformationStatus.PROCESSING, null, null, null));
+        cache.putLoaded("job-2", new JobState(TransformationJob.TransformationStatus.FAILED, null, "Broken", null));
+
+        assertTrue(cache.get("job-1").isEmpty());
+        assertEquals("Broken", cache.get("job-2").orElseThrow().getErrorMessage());
+    }
+
+    @Test
+    void testInvalidatedJobIsReadAgain() {
+        cache.write(job("job-1", TransformationJob.TransformationStatus.PENDING));
+
+        cache.invalidate("job-1");
+
+        assertTrue(cache.get("job-1").isEmpty());
+    }
+
+    private static TransformationJob job(String jobId, TransformationJob.TransformationStatus status) {
+        TransformationJob job = new TransformationJob();
+        job.setJobId(jobId);
+        job.setStatus(status);
+        return job;
+    }
+}
@@ -0,0 +1,42 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.dto.ResultArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultArchiveServiceTest {
+
+    private final FolderZipService folderZipService = new FolderZipService();
+    private final ResultArchiveService resultArchiveService = new ResultArchiveService(folderZipService);
+
+    @Test
+    void testArchiveIsReusedUntilTheOutputChanges(@TempDir Path tempDir) throws Exception {
+        ReflectionTestUtils.setField(folderZipService, "tempPath", tempDir.resolve("temp").toString());
+        Path outputDir = Files.createDirectories(tempDir.resolve("job-1"));
+        Path topic = Files.writeString(outputDir.resolve("topic_001.xml"), "<topic/>");
+
+        ResultArchive built = resultArchiveService.buildArchive(outputDir);
+        FileTime builtAt = Files.getLastModifiedTime(built.getPath());
+        ResultArchive served = resultArchiveService.getArchive(outputDir, -1);
+
+        assertEquals(built.getPath(), served.getPath());
+        assertEquals(built.getEtag(), served.getEtag());
+        assertEquals(builtAt, Files.getLastModifiedTime(served.getPath()));
+        assertTrue(served.getEtag().startsWith("\"") && served.getEtag().endsWith("\""));
+
+        Files.writeString(topic, "<topic>changed</topic>");
+        ResultArchive rebuilt = resultArchiveService.getArchive(outputDir, -1);
+
+        assertNotEquals(built.getEtag(), rebuilt.getEtag());
+        assertTrue(Files.exists(rebuilt.getPath()));
+        assertFalse(Files.exists(built.getPath()));
+        assertEquals(outputDir.getParent(), rebuilt.getPath().getParent());
+    }
+}
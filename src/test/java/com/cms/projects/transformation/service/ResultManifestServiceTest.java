@@ -0,0 +1,84 @@
+package com.cms.projects.transformation.service;
+
+import com.cms.projects.transformation.dto.ManifestEntry;
+import com.cms.projects.transformation.dto.ResultManifest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultManifestServiceTest {
+
+    private final ResultManifestService resultManifestService = new ResultManifestService();
+
+    @Test
+    void testManifestListsFilesWithChecksumsAndTracksChanges(@TempDir Path tempDir) throws Exception {
+        Path outputDir = Files.createDirectories(tempDir.resolve("job-1").resolve("xml")).getParent();
+        Path topic = Files.writeString(outputDir.resolve("xml").resolve("topic_001.xml"), "<topic/>");
+        Files.writeString(outputDir.resolve("main.ditamap"), "<map/>");
+
+        ResultManifest manifest = resultManifestService.getManifest(outputDir);
+
+        assertEquals(List.of("main.ditamap", "xml/topic_001.xml"),
+            manifest.getFiles().stream().map(ManifestEntry::getPath).toList());
+        assertEquals(sha256("<topic/>"), manifest.getFiles().get(1).getSha256());
+        assertEquals(8, manifest.getFiles().get(1).getSize());
+
+        // A new instance reads the stored manifest instead of hashing again
+        ResultManifest stored = new ResultManifestService().getManifest(outputDir);
+        assertEquals(manifest.getVersion(), stored.getVersion());
+        assertEquals(sha256("<topic/>"), stored.getFiles().get(1).getSha256());
+
+        Files.writeString(topic, "<topic>changed</topic>");
+        Files.setLastModifiedTime(topic, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        ManifestEntry changed = resultManifestService.findEntry(outputDir, "xml/topic_001.xml").orElseThrow();
+
+        assertEquals(sha256("<topic>changed</topic>"), changed.getSha256());
+        assertNotEquals(manifest.getVersion(), resultManifestService.getManifest(outputDir).getVersion());
+        try (var manifests = Files.list(tempDir)) {
+            assertEquals(1, manifests.filter(path -> path.toString().endsWith(".manifest.tsv")).count());
+        }
+    }
+
+    @Test
+    void testStoredManifestKeepsPathsWithTabsAndLineBreaks(@TempDir Path tempDir) throws Exception {
+        Path outputDir = Files.createDirectories(tempDir.resolve("job-1"));
+        List<String> names = List.of("a\tb.xml", "line\nbreak.xml", "plain.xml", "return\r.xml");
+        for (String name : names) {
+            Files.writeString(outputDir.resolve(name), name);
+        }
+
+        resultManifestService.getManifest(outputDir);
+        ResultManifest stored = new ResultManifestService().getManifest(outputDir);
+
+        assertEquals(names.stream().sorted().toList(),
+            stored.getFiles().stream().map(ManifestEntry::getPath).toList());
+        for (ManifestEntry entry : stored.getFiles()) {
+            assertEquals(sha256(entry.getPath()), entry.getSha256());
+        }
+    }
+
+    @Test
+    void testFindEntryStaysInsideTheOutput(@TempDir Path tempDir) throws Exception {
+        Path outputDir = Files.createDirectories(tempDir.resolve("job-1"));
+        Files.writeString(outputDir.resolve("main.ditamap"), "<map/>");
+        Files.writeString(tempDir.resolve("secret.txt"), "secret");
+
+        assertTrue(resultManifestService.findEntry(outputDir, "main.ditamap").isPresent());
+        assertTrue(resultManifestService.findEntry(outputDir, "../secret.txt").isEmpty());
+        assertTrue(resultManifestService.findEntry(outputDir, "missing.xml").isEmpty());
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(
+            MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
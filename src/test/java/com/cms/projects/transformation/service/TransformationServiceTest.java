@@ -1,19 +1,37 @@
 package com.cms.projects.transformation.service;
 
+import com.cms.projects.transformation.dto.FolderTransformationResponse;
+import com.cms.projects.transformation.dto.FolderValidationResult;
+import com.cms.projects.transformation.dto.JobState;
 import com.cms.projects.transformation.dto.TransformationResponse;
 import com.cms.projects.transformation.entity.TransformationJob;
+import com.cms.projects.transformation.exception.JobQueueFullException;
 import com.cms.projects.transformation.repo.TransformationJobRepository;
 import com.cms.projects.transformation.transformer.FrameMakerToDitaTransformer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +46,21 @@ class TransformationServiceTest {
     @Mock
     private FileStorageService fileStorageService;
     
+    @Mock
+    private TransformationJobDispatcher jobDispatcher;
+    
+    @Mock
+    private ResultArchiveService resultArchiveService;
+    
+    @Mock
+    private ResultManifestService resultManifestService;
+    
+    @Mock
+    private JobProgressTracker jobProgressTracker;
+    
+    @Spy
+    private JobStateCache jobStateCache = new JobStateCache(100, Duration.ofSeconds(30), Duration.ofMinutes(10));
+    
     @InjectMocks
     private TransformationServiceImpl transformationService;
     
@@ -47,19 +80,146 @@ class TransformationServiceTest {
         assertNotNull(response.getJobId());
         assertEquals(TransformationJob.TransformationStatus.PENDING, response.getStatus());
         verify(jobRepository, times(1)).save(any(TransformationJob.class));
+        verify(jobDispatcher).dispatch(eq(response.getJobId()), any(Runnable.class));
     }
     
     @Test
-    void testGetJobStatus() {
+    void testSubmitTransformationWhenQueueIsFull() {
+        doThrow(new JobQueueFullException("Transformation queue is full, please retry later", 30, null))
+            .when(jobDispatcher).dispatch(anyString(), any(Runnable.class));
+        
+        assertThrows(JobQueueFullException.class,
+            () -> transformationService.submitTransformation("/path/to/file.mif", "file.mif"));
+        ArgumentCaptor<TransformationJob> deleted = ArgumentCaptor.forClass(TransformationJob.class);
+        verify(jobRepository).delete(deleted.capture());
+        assertTrue(jobStateCache.get(deleted.getValue().getJobId()).isEmpty());
+    }
+    
+    @Test
+    void testFolderJobTransformsTheSubmittedExtraction(@TempDir Path tempDir) throws Exception {
+        Path extractedDir = Files.createDirectories(tempDir.resolve("extracted"));
+        Path mifFile = Files.writeString(extractedDir.resolve("book.mif"), "<MIFFile 7.00>");
+        FolderValidationResult validation = FolderValidationResult.valid(
+            FolderValidationResult.FileType.MIF, List.of(mifFile), 1);
+        when(jobRepository.save(any(TransformationJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        FolderTransformationResponse response = transformationService.submitFolderTransformation(
+            "/path/to/book.zip", "book.zip", extractedDir, validation);
+        
+        ArgumentCaptor<Runnable> work = ArgumentCaptor.forClass(Runnable.class);
+        verify(jobDispatcher).dispatch(eq(response.getJobId()), work.capture());
+        TransformationJob job = new TransformationJob();
+        job.setJobId(response.getJobId());
+        when(jobRepository.findByJobId(response.getJobId())).thenReturn(Optional.of(job));
+        when(fileStorageService.getOutputPath(response.getJobId())).thenReturn(tempDir.resolve("output"));
+        
+        work.getValue().run();
+        
+        assertEquals(TransformationJob.TransformationStatus.COMPLETED, job.getStatus());
+        verify(transformer).transform(eq(mifFile.toFile()), eq(tempDir.resolve("output")), any(), any(), any());
+        verify(fileStorageService, never()).extractZipFile(any(), anyString());
+        verify(resultArchiveService).buildArchive(tempDir.resolve("output"));
+        verify(jobProgressTracker).complete(response.getJobId(), tempDir.resolve("output"));
+        assertFalse(Files.exists(extractedDir));
+    }
+    
+    @Test
+    void testFolderJobTransformsFilesAsTheyAreExtracted(@TempDir Path tempDir) throws Exception {
+        Path extractedDir = Files.createDirectories(tempDir.resolve("extracted"));
+        Path zipFile = tempDir.resolve("book.zip");
+        FolderValidationResult validation = FolderValidationResult.valid(
+            FolderValidationResult.FileType.MIF, List.of(Path.of("docs", "book.mif")), 1);
+        when(jobRepository.save(any(TransformationJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        FolderTransformationResponse response = transformationService.submitFolderTransformation(
+            zipFile.toString(), "book.zip", validation);
+        
+        ArgumentCaptor<Runnable> work = ArgumentCaptor.forClass(Runnable.class);
+        verify(jobDispatcher).dispatch(eq(response.getJobId()), work.capture());
+        TransformationJob job = new TransformationJob();
+        job.setJobId(response.getJobId());
+        when(jobRepository.findByJobId(response.getJobId())).thenReturn(Optional.of(job));
+        when(fileStorageService.getOutputPath(response.getJobId())).thenReturn(tempDir.resolve("output"));
+        when(fileStorageService.createTempDirectory(response.getJobId() + "_extracted")).thenReturn(extractedDir);
+        Path mifFile = extractedDir.resolve("docs").resolve("book.mif");
+        doAnswer(invocation -> {
+            Files.createDirectories(mifFile.getParent());
+            Files.writeString(mifFile, "<MIFFile 7.00>");
+            invocation.<Consumer<Path>>getArgument(2).accept(mifFile);
+            return null;
+        }).when(fileStorageService).extractZipFile(eq(zipFile), eq(extractedDir), any());
+        
+        work.getValue().run();
+        
+        assertEquals(TransformationJob.TransformationStatus.COMPLETED, job.getStatus());
+        verify(transformer).transform(eq(mifFile.toFile()), eq(tempDir.resolve("output")), any(), any(), any());
+        assertFalse(Files.exists(extractedDir));
+    }
+    
+    @Test
+    void testSlowFileDoesNotHoldBackTheFilesAfterIt(@TempDir Path tempDir) throws Exception {
+        Path extractedDir = Files.createDirectories(tempDir.resolve("extracted"));
+        Path slow = Files.writeString(extractedDir.resolve("a.mif"), "<MIFFile 7.00>");
+        Path fast = Files.writeString(extractedDir.resolve("b.mif"), "<MIFFile 7.00>");
+        Path last = Files.writeString(extractedDir.resolve("c.mif"), "<MIFFile 7.00>");
+        FolderValidationResult validation = FolderValidationResult.valid(
+            FolderValidationResult.FileType.MIF, List.of(slow, fast, last), 3);
+        ReflectionTestUtils.setField(transformationService, "folderParallelism", 2);
+        transformationService.setFileThreads(2);
+        when(jobRepository.save(any(TransformationJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // The first file only finishes once the third has started in the slot the second freed
+        CountDownLatch lastStarted = new CountDownLatch(1);
+        AtomicBoolean overtaken = new AtomicBoolean();
+        doAnswer(invocation -> {
+            overtaken.set(lastStarted.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(transformer).transform(eq(slow.toFile()), any(), any(), any(), any());
+        doAnswer(invocation -> {
+            lastStarted.countDown();
+            return null;
+        }).when(transformer).transform(eq(last.toFile()), any(), any(), any(), any());
+        
+        FolderTransformationResponse response = transformationService.submitFolderTransformation(
+            "/path/to/book.zip", "book.zip", extractedDir, validation);
+        
+        ArgumentCaptor<Runnable> work = ArgumentCaptor.forClass(Runnable.class);
+        verify(jobDispatcher).dispatch(eq(response.getJobId()), work.capture());
         TransformationJob job = new TransformationJob();
-        job.setJobId("test-job-id");
-        job.setStatus(TransformationJob.TransformationStatus.PROCESSING);
+        job.setJobId(response.getJobId());
+        when(jobRepository.findByJobId(response.getJobId())).thenReturn(Optional.of(job));
+        when(fileStorageService.getOutputPath(response.getJobId())).thenReturn(tempDir.resolve("output"));
         
-        when(jobRepository.findByJobId("test-job-id")).thenReturn(Optional.of(job));
+        work.getValue().run();
+        
+        assertEquals(TransformationJob.TransformationStatus.COMPLETED, job.getStatus());
+        assertTrue(overtaken.get());
+        verify(transformer, times(3)).transform(any(), eq(tempDir.resolve("output")), any(), any(), any());
+    }
+    
+    @Test
+    void testGetJobStatus() {
+        when(jobRepository.findStateByJobId("test-job-id")).thenReturn(Optional.of(
+            new JobState(TransformationJob.TransformationStatus.PROCESSING, null, null, null)));
         
         TransformationJob.TransformationStatus status = transformationService.getJobStatus("test-job-id");
         
         assertEquals(TransformationJob.TransformationStatus.PROCESSING, status);
+        // Running, possibly on another instance; read again next time
+        assertTrue(jobStateCache.get("test-job-id").isEmpty());
+    }
+    
+    @Test
+    void testJobStateIsWrittenThroughToTheCache() {
+        when(jobRepository.save(any(TransformationJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        TransformationResponse response = transformationService.submitTransformation("/path/to/file.fm", "file.fm");
+        TransformationJob.TransformationStatus status = transformationService.getJobStatus(response.getJobId());
+        TransformationResponse details = transformationService.getJobResult(response.getJobId());
+        
+        assertEquals(TransformationJob.TransformationStatus.PENDING, status);
+        assertEquals(TransformationJob.TransformationStatus.PENDING, details.getStatus());
+        verify(jobRepository, never()).findStateByJobId(anyString());
+        verify(jobRepository, never()).findByJobId(anyString());
     }
 }
-
@@ -0,0 +1,39 @@
+package com.cms.projects.transformation.transformer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeferredImageExtractorTest {
+    
+    @Test
+    void testImagesAreExtractedInFileOrder(@TempDir Path tempDir) throws IOException {
+        Path outputDir = tempDir.resolve("output/images");
+        File first = writeDocumentWithImage(tempDir.resolve("first"), "first.mif", "first image");
+        File second = writeDocumentWithImage(tempDir.resolve("second"), "second.mif", "second image");
+        DeferredImageExtractor deferred = new DeferredImageExtractor();
+        
+        // The second file finishes first
+        assertEquals(List.of(), deferred.forFile(1).extractImages(List.of("logo.eps"), second, outputDir));
+        assertEquals(List.of(), deferred.forFile(0).extractImages(List.of("logo.eps"), first, outputDir));
+        assertFalse(Files.exists(outputDir.resolve("logo.eps")));
+        
+        deferred.extractDeferred();
+        
+        assertEquals("first image", Files.readString(outputDir.resolve("logo.eps")));
+        assertEquals("second image", Files.readString(outputDir.resolve("second_mif_logo.eps")));
+    }
+    
+    private File writeDocumentWithImage(Path dir, String documentName, String imageContent) throws IOException {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("logo.eps"), imageContent);
+        return dir.resolve(documentName).toFile();
+    }
+}
@@ -0,0 +1,72 @@
+package com.cms.projects.transformation.transformer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DitaWriteBatchTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testAwaitWaitsForAllWritesAndBoundsInFlight() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+
+        try (DitaWriteBatch batch = new DitaWriteBatch(executor, 2)) {
+            for (int i = 0; i < 50; i++) {
+                batch.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    written.incrementAndGet();
+                });
+            }
+            batch.await();
+        }
+
+        assertEquals(50, written.get());
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void testFirstFailureIsRethrown() throws Exception {
+        try (DitaWriteBatch batch = new DitaWriteBatch(executor, 4)) {
+            batch.submit(() -> {
+                throw new IOException("disk full");
+            });
+            IOException e = assertThrows(IOException.class, batch::await);
+            assertEquals("disk full", e.getMessage());
+            assertThrows(IOException.class, () -> batch.submit(() -> { }));
+        }
+    }
+
+    @Test
+    void testFirstWriteTimeIsOnlyKnownOnceAWriteCompleted() throws Exception {
+        try (DitaWriteBatch batch = new DitaWriteBatch(executor, 4)) {
+            batch.await();
+            assertTrue(batch.getFirstWriteNanos().isEmpty());
+
+            long before = System.nanoTime();
+            batch.submit(() -> { });
+            batch.await();
+            assertTrue(batch.getFirstWriteNanos().getAsLong() - before >= 0);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.cms.projects.transformation.transformer;
+
+import com.cms.projects.transformation.framemaker.cache.FrameMakerParseCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameMakerToDitaTransformerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCorruptCacheEntryIsReparsed() throws Exception {
+        File sample = sample("sample_statement.mif");
+        FrameMakerParseCache cache = cacheWithGarbageEntryFor(sample);
+
+        new FrameMakerToDitaTransformer().transform(sample, tempDir.resolve("output"), cache);
+
+        assertTrue(Files.exists(tempDir.resolve("output").resolve("main.ditamap")));
+        assertEquals(1, cache.getStats().getMisses());
+        // Stored again from the fresh parse
+        assertNotNull(cache.get(cache.key(sample), sample.getPath()));
+    }
+
+    @Test
+    void testCorruptCacheEntryIsReparsedWhenStreaming() throws Exception {
+        File sample = sample("sample.mif");
+        FrameMakerParseCache cache = cacheWithGarbageEntryFor(sample);
+        FrameMakerToDitaTransformer transformer = new FrameMakerToDitaTransformer();
+        ReflectionTestUtils.setField(transformer, "streamingThreshold", DataSize.ofBytes(0));
+
+        transformer.transform(sample, tempDir.resolve("output"), cache);
+
+        assertTrue(Files.exists(tempDir.resolve("output").resolve("main.ditamap")));
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    private FrameMakerParseCache cacheWithGarbageEntryFor(File sample) throws Exception {
+        Path cacheDir = Files.createDirectories(tempDir.resolve("cache"));
+        String key = new FrameMakerParseCache(cacheDir, 0, 0).key(sample);
+        Files.write(cacheDir.resolve(key + ".fmpc"), "not a parse cache entry".getBytes());
+        return new FrameMakerParseCache(cacheDir, 1024 * 1024, 1024 * 1024);
+    }
+
+    private File sample(String name) throws Exception {
+        return new File(getClass().getResource("/samples/" + name).toURI());
+    }
+}
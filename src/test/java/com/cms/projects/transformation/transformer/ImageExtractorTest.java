@@ -7,9 +7,11 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,5 +42,28 @@ class ImageExtractorTest {
         
         assertNotNull(extracted);
     }
+    
+    @Test
+    void testSameNamedImagesOfDifferentDocumentsDoNotOverwriteEachOther(@TempDir Path tempDir) throws IOException {
+        Path outputDir = tempDir.resolve("output/images");
+        File first = writeDocumentWithImage(tempDir.resolve("first"), "first.mif", "first image");
+        File second = writeDocumentWithImage(tempDir.resolve("second"), "second.mif", "second image");
+        File copy = writeDocumentWithImage(tempDir.resolve("copy"), "copy.mif", "first image");
+        
+        assertEquals(List.of("logo.eps"), extractor.extractImages(List.of("logo.eps"), first, outputDir));
+        assertEquals(List.of("second_mif_logo.eps"), extractor.extractImages(List.of("logo.eps"), second, outputDir));
+        assertEquals(List.of("logo.eps"), extractor.extractImages(List.of("logo.eps"), copy, outputDir));
+        
+        assertEquals("first image", Files.readString(outputDir.resolve("logo.eps")));
+        assertEquals("second image", Files.readString(outputDir.resolve("second_mif_logo.eps")));
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+    
+    private File writeDocumentWithImage(Path dir, String documentName, String imageContent) throws IOException {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("logo.eps"), imageContent);
+        return dir.resolve(documentName).toFile();
+    }
 }
-
@@ -0,0 +1,77 @@
+package com.cms.projects.transformation.transformer;
+
+import com.cms.projects.transformation.dto.PipelineStats;
+import com.cms.projects.transformation.framemaker.exception.FrameMakerParseException;
+import com.cms.projects.transformation.framemaker.model.FrameMakerChapter;
+import com.cms.projects.transformation.framemaker.model.FrameMakerDocument;
+import com.cms.projects.transformation.framemaker.model.FrameMakerParagraph;
+import com.cms.projects.transformation.framemaker.model.FrameMakerSection;
+import com.cms.projects.transformation.framemaker.parser.FrameMakerDocumentBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectionPipelineTest {
+
+    private final ExecutorService parseExecutor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        parseExecutor.shutdownNow();
+    }
+
+    @Test
+    void testEventsReachMapperInDocumentOrder() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics();
+        SectionPipeline pipeline = new SectionPipeline(2, metrics.sections());
+        FrameMakerDocumentBuilder mapper = new FrameMakerDocumentBuilder("doc.mif");
+
+        pipeline.run(parseExecutor, handler -> {
+            handler.startDocument("Manual");
+            for (int c = 1; c <= 3; c++) {
+                FrameMakerChapter chapter = new FrameMakerChapter();
+                chapter.setTitle("Chapter " + c);
+                handler.startChapter(chapter);
+                for (int s = 1; s <= 20; s++) {
+                    FrameMakerSection section = new FrameMakerSection();
+                    section.setTitle("Section " + c + "." + s);
+                    handler.startSection(section);
+                    FrameMakerParagraph paragraph = new FrameMakerParagraph();
+                    paragraph.setText("Text " + c + "." + s);
+                    handler.paragraph(paragraph);
+                    handler.endSection();
+                }
+                handler.endChapter();
+            }
+            handler.endDocument();
+        }, mapper);
+
+        FrameMakerDocument document = mapper.getDocument();
+        assertEquals("Manual", document.getTitle());
+        assertEquals(3, document.getChapters().size());
+        FrameMakerSection last = document.getChapters().get(2).getSections().get(19);
+        assertEquals("Section 3.20", last.getTitle());
+        assertEquals("Text 3.20", last.getParagraphs().get(0).getText());
+        PipelineStats stats = metrics.snapshot(2, 0);
+        assertEquals(0, stats.getSectionQueueDepth());
+        // Capacity plus the section the parser is waiting to hand over
+        assertTrue(stats.getSectionQueuePeakDepth() <= 3);
+        assertEquals(3 * 20 + 2 * 3 + 2, stats.getSectionsMapped());
+    }
+
+    @Test
+    void testParseFailureIsRethrownToCaller() {
+        SectionPipeline pipeline = new SectionPipeline(2, new PipelineMetrics.StageCounter());
+
+        FrameMakerParseException e = assertThrows(FrameMakerParseException.class, () ->
+            pipeline.run(parseExecutor, handler -> {
+                handler.startDocument("Broken");
+                throw new FrameMakerParseException("Unexpected end of file");
+            }, new FrameMakerDocumentBuilder("broken.mif")));
+        assertEquals("Unexpected end of file", e.getMessage());
+    }
+}